@@ -0,0 +1,38 @@
+package com.hotel.bench;
+
+import com.hotel.model.*;
+import java.time.LocalDate;
+
+//Synthetic hotels for the benchmarks.
+//Every fourth room is Deluxe. Reservation i goes to room i % rooms and customer i % customers,
+//and each room's stays follow each other (2 nights, 1 free), so none overlap.
+//Stays start as far in the past as they reach into the future, so half of them have ended.
+public class BenchmarkData {
+
+    public static Hotel hotel(int rooms, int customers, int reservations) {
+        Hotel hotel = new Hotel("Benchmark Hotel", "Istanbul");
+        for (int i = 0; i < rooms; i++) {
+            hotel.addRoom(i % 4 == 0
+                    ? new DeluxeRoom("D" + i, 4, 200.0 + i % 50, true, true, i % 8 == 0, 0.20)
+                    : new StandardRoom("S" + i, 2, 100.0 + i % 50, true, i % 2 == 0));
+        }
+        for (int i = 0; i < customers; i++) {
+            hotel.registerCustomer(new Customer("Guest", "No " + i, email(i), "555" + i));
+        }
+        int perRoom = (reservations + rooms - 1) / Math.max(rooms, 1);
+        LocalDate start = LocalDate.now().minusDays(perRoom * 3L / 2);
+        for (int i = 0; i < reservations; i++) {
+            Room room = hotel.getRooms().get(i % rooms);
+            Customer customer = hotel.getCustomers().get(i % customers);
+            LocalDate in = start.plusDays((long) (i / rooms) * 3);
+            Reservation res = new Reservation(customer, room, in, in.plusDays(2));
+            if (i % 10 == 0) res.setStatus("CANCELLED");
+            hotel.addReservation(res);
+        }
+        return hotel;
+    }
+
+    public static String email(int customer) {
+        return "guest" + customer + "@bench.com";
+    }
+}
@@ -0,0 +1,45 @@
+package com.hotel.bench;
+
+import com.hotel.model.*;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+//Hotel.bookRoom on a free room, one booking per call.
+//Each call books the next room, one night later once every room was used, so it never collides.
+//The customer's fraud window is reset before each call, so the full booking path is measured.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    int rooms;
+
+    private Hotel hotel;
+    private Customer[] customers;
+    private LocalDate start;
+    private long bookings;
+
+    // A fresh hotel per iteration, so the reservation count stays comparable between iterations
+    @Setup(Level.Iteration)
+    public void setUp() {
+        hotel = BenchmarkData.hotel(rooms, 1000, 0);
+        customers = hotel.getCustomers().toArray(new Customer[0]);
+        start = LocalDate.now().plusDays(1);
+        bookings = 0;
+    }
+
+    @Benchmark
+    public boolean bookRoom() {
+        long n = bookings++;
+        Customer customer = customers[(int) (n % customers.length)];
+        customer.setLastBookingTime(null);
+        Room room = hotel.getRooms().get((int) (n % rooms));
+        LocalDate in = start.plusDays(n / rooms);
+        return hotel.bookRoom(customer, room, in, in.plusDays(1), false, false);
+    }
+}
@@ -0,0 +1,58 @@
+package com.hotel.bench;
+
+import com.hotel.model.*;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+//Read-only queries on hotels from 10 to 100k rooms.
+//The 10M-reservation dataset needs a large heap: -p reservations=10000000 -jvmArgs -Xmx16g
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class HotelBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    int rooms;
+
+    @Param({"100000", "1000000"})
+    int reservations;
+
+    private Hotel hotel;
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+    private String email;
+
+    @Setup
+    public void setUp() {
+        int customers = Math.max(100, reservations / 20);
+        hotel = BenchmarkData.hotel(rooms, customers, reservations);
+        checkIn = LocalDate.now().plusDays(3);
+        checkOut = checkIn.plusDays(2);
+        email = BenchmarkData.email(customers / 2);
+    }
+
+    @Benchmark
+    public List<Room> searchAvailableRooms() {
+        return hotel.searchAvailableRooms(checkIn, checkOut);
+    }
+
+    @Benchmark
+    public Customer findCustomerByEmail() {
+        return hotel.findCustomerByEmail(email);
+    }
+
+    @Benchmark
+    public double calculateRevenue() {
+        return hotel.calculateRevenue();
+    }
+
+    @Benchmark
+    public double calculateOccupancyRate() {
+        return hotel.calculateOccupancyRate();
+    }
+}
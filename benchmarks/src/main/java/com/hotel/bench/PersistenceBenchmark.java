@@ -0,0 +1,79 @@
+package com.hotel.bench;
+
+import com.hotel.model.*;
+import com.hotel.service.DataService;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.*;
+
+//DataService.saveData and loadData, from the binary snapshot and from the CSV files.
+//Each call is timed on its own (single shot). The fork gets a 16 GB heap for the 10M dataset;
+//run with -p reservations=10000,1000000 on a smaller machine.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class PersistenceBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    int reservations;
+
+    private Hotel hotel;
+    private Path saveDir;
+    private Path snapshotDir;
+    private Path csvDir;
+
+    @Setup
+    public void setUp() throws IOException {
+        hotel = BenchmarkData.hotel(1000, Math.max(100, reservations / 20), reservations);
+        saveDir = Files.createTempDirectory("bench-save");
+        snapshotDir = Files.createTempDirectory("bench-snapshot");
+        csvDir = Files.createTempDirectory("bench-csv");
+        new DataService(snapshotDir.toString()).saveData(hotel);
+        new DataService(csvDir.toString()).saveData(hotel);
+        Files.delete(csvDir.resolve("snapshot.bin"));// Forces the CSV path
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        for (Path dir : new Path[]{saveDir, snapshotDir, csvDir}) {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean saveData() {
+        return new DataService(saveDir.toString()).saveData(hotel);
+    }
+
+    @Benchmark
+    public Hotel loadBinarySnapshot() {
+        Hotel loaded = new Hotel("Benchmark Hotel", "Istanbul");
+        new DataService(snapshotDir.toString()).loadData(loaded, true);
+        return loaded;
+    }
+
+    @Benchmark
+    public Hotel loadCsvParallel() {
+        Hotel loaded = new Hotel("Benchmark Hotel", "Istanbul");
+        new DataService(csvDir.toString()).loadData(loaded, true);
+        return loaded;
+    }
+
+    @Benchmark
+    public Hotel loadCsvSerial() {
+        Hotel loaded = new Hotel("Benchmark Hotel", "Istanbul");
+        new DataService(csvDir.toString()).loadData(loaded, false);
+        return loaded;
+    }
+}
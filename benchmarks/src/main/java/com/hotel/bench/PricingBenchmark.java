@@ -0,0 +1,50 @@
+package com.hotel.bench;
+
+import com.hotel.model.*;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+//Reservation.calculateTotalAmount for short and long stays,
+//with the room's rate calendar (O(1) lookup) and without it (night-by-night loop).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+
+    @Param({"2", "14", "365"})
+    int nights;
+
+    @Param({"true", "false"})
+    boolean rateCalendar;
+
+    private Reservation standardStay;
+    private Reservation deluxeStay;
+
+    @Setup
+    public void setUp() {
+        StandardRoom standard = new StandardRoom("101", 2, 100.0, true, true);
+        DeluxeRoom deluxe = new DeluxeRoom("201", 4, 200.0, true, true, true, 0.20);
+        LocalDate today = LocalDate.now();
+        if (rateCalendar) {
+            standard.setRateCalendar(new RateCalendar(standard, today, RateCalendar.DEFAULT_HORIZON_DAYS));
+            deluxe.setRateCalendar(new RateCalendar(deluxe, today, RateCalendar.DEFAULT_HORIZON_DAYS));
+        }
+        Customer customer = new Customer("Ali", "Veli", "ali@bench.com", "555");
+        standardStay = new Reservation(customer, standard, today.plusDays(1), today.plusDays(1 + nights));
+        deluxeStay = new Reservation(customer, deluxe, today.plusDays(1), today.plusDays(1 + nights));
+    }
+
+    @Benchmark
+    public double standardRoom() {
+        return standardStay.calculateTotalAmount();
+    }
+
+    @Benchmark
+    public double deluxeRoom() {
+        return deluxeStay.calculateTotalAmount();
+    }
+}
@@ -0,0 +1,46 @@
+package com.hotel.bench;
+
+import com.hotel.model.*;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+//A year of arrival dates times every stay length up to two weeks, for one room:
+//the bulk QuoteGrid against one calculateStayPrice call per quote (the night-by-night loop).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuoteBenchmark {
+
+    private static final int ARRIVALS = 365;
+    private static final int MAX_NIGHTS = 14;
+
+    private DeluxeRoom room;
+    private LocalDate first;
+
+    @Setup
+    public void setUp() {
+        room = new DeluxeRoom("201", 4, 200.0, true, true, true, 0.20);
+        first = LocalDate.now().plusDays(1);
+    }
+
+    @Benchmark
+    public QuoteGrid quoteGrid() {
+        return new QuoteGrid(room, first, ARRIVALS, MAX_NIGHTS);
+    }
+
+    @Benchmark
+    public double perQuoteLoop() {
+        double sum = 0;
+        for (int a = 0; a < ARRIVALS; a++) {
+            LocalDate in = first.plusDays(a);
+            for (int nights = 1; nights <= MAX_NIGHTS; nights++) {
+                sum += room.calculateStayPrice(in, in.plusDays(nights));
+            }
+        }
+        return sum;
+    }
+}
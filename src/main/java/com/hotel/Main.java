@@ -1,28 +1,55 @@
 package com.hotel;
 
 import com.hotel.model.*;
+import com.hotel.server.HotelServer;
 import com.hotel.service.DataService;
+import com.hotel.service.HotelRegistry;
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Scanner;
+import javax.management.JMException;
 import java.io.File;
 
 //The Main class. This is where the application starts.
 //It handles User Interface (Console) and Menu loop.
 public class Main {
     public static void main(String[] args) {
-        // Ensure data directory exists to prevent IO errors
-        File dataDir = new File("data");
-        if (!dataDir.exists()) {
-            dataDir.mkdir();
-            System.out.println("System: 'data' directory created.");
-        }
-
         Scanner scanner = new Scanner(System.in);
-        Hotel hotel = new Hotel("Ocean View Hotel", "1020 Ocean Drive, Vice City");
-        DataService dataService = new DataService();
+        HotelRegistry chain = null;
+        Hotel hotel;
+        DataService dataService;
+
+        if (args.length > 0 && args[0].equals("--chain")) {
+            // Chain mode: "--chain [dir]" loads every property of the chain, then manages one of them
+            chain = new HotelRegistry(args.length > 1 ? args[1] : "chain");
+            chain.setListener(System.out::println);
+            chain.loadAll();
+            if (chain.size() == 0) {
+                chain.addProperty("ocean-view", "Ocean View Hotel", "1020 Ocean Drive, Vice City");
+            }
+            String id = chooseProperty(scanner, chain);
+            hotel = chain.getHotel(id);
+            dataService = chain.getDataService(id);
+            hotel.setListener(System.out::println);
+            dataService.setListener(System.out::println);
+        } else {
+            // Ensure data directory exists to prevent IO errors
+            File dataDir = new File("data");
+            if (!dataDir.exists()) {
+                dataDir.mkdir();
+                System.out.println("System: 'data' directory created.");
+            }
 
-        // Load existing data from CSV files
-        dataService.loadData(hotel);
+            hotel = new Hotel("Ocean View Hotel", "1020 Ocean Drive, Vice City");
+            dataService = new DataService();
+            // The core only reports messages; the console prints them
+            hotel.setListener(System.out::println);
+            dataService.setListener(System.out::println);
+
+            // Load existing data from CSV files
+            dataService.loadData(hotel, true);
+        }
 
         // If no rooms loaded, add some defaults
         if (hotel.getTotalRooms() == 0) {
@@ -37,9 +64,30 @@ public class Main {
             hotel.addRoom(new DeluxeRoom("203", 4, 200.0, true, true, true, 0.20));
         }
 
+        // Metrics can be watched live with JConsole (and in the admin panel, option 67)
+        try {
+            hotel.getMetrics().registerMBean("com.hotel:type=Metrics");
+        } catch (JMException e) {
+            System.out.println("Metrics are not available over JMX: " + e.getMessage());
+        }
+
+        // Past reservations live in the on-disk archive instead of the heap
+        dataService.openArchive(hotel, 256);
+
+        // Recover changes from a crashed session, then journal every change as it happens
+        dataService.startJournal(hotel, 5);
+        hotel.archiveReservations(LocalDate.now());
+
+        // Server mode: "--server [port]" serves the booking API instead of the menu
+        if (args.length > 0 && args[0].equals("--server")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+            runServer(hotel, dataService, port);
+            return;
+        }
+
         while (true) {
             System.out.println("\n========================================");
-            System.out.println("           OCEAN VIEW HOTEL");
+            System.out.println("           " + hotel.getName().toUpperCase());
             System.out.println("========================================");
             System.out.println("  [1] List All Rooms");
             System.out.println("  [2] Register New Customer");
@@ -47,6 +95,7 @@ public class Main {
             System.out.println("  [4] Get Room Recommendation");
             System.out.println("  [5] View My Reservations");
             System.out.println("  [6] Save Data & Exit");
+            if (chain != null) System.out.println("  [7] Search All Properties");
             System.out.println("========================================");
             System.out.print(">> Enter your choice: ");
 
@@ -74,7 +123,7 @@ public class Main {
                 while (true) {
                     System.out.print("Email: ");
                     email = scanner.nextLine();
-                    if (email.contains("@") && email.contains(".")) {
+                    if (Customer.isValidEmail(email)) {
                         break;
                     }
                     System.out.println("Error: Invalid email! Please try again.");
@@ -85,7 +134,7 @@ public class Main {
                 while (true) {
                     System.out.print("Phone: ");
                     phone = scanner.nextLine();
-                    if (phone.matches("[0-9]+")) {
+                    if (Customer.isValidPhone(phone)) {
                         break;
                     }
                     System.out.println("Error: Phone number must contain only digits! Please try again.");
@@ -146,13 +195,13 @@ public class Main {
 
                 boolean isFreeUpgrade = false;
 
-                // Handle Dirty/Occupied Rooms
-                if (!selectedRoom.isClean()) {
-                    System.out.println("Warning: Room " + selectedRoom.getRoomNumber() + " is currently occupied/dirty.");
+                // Handle Rooms Booked for These Dates
+                if (!selectedRoom.isAvailable(in, out)) {
+                    System.out.println("Warning: Room " + selectedRoom.getRoomNumber() + " is already booked for these dates.");
 
                     // Suggest Upgrade if it's a Standard Room
                     if (selectedRoom instanceof StandardRoom) {
-                        Room upgradeRoom = hotel.findAvailableDeluxeRoom();
+                        Room upgradeRoom = hotel.findUpgrade(selectedRoom, in, out);
 
                         if (upgradeRoom != null) {
                             System.out.println("BUT! We have a Deluxe Room available: " + upgradeRoom.getRoomNumber());
@@ -210,15 +259,41 @@ public class Main {
                 hotel.displayReservations(email);
 
             } else if (choice == 6) {
-                dataService.saveData(hotel);
+                if (chain != null) {
+                    // Customers are shared, so bookings here may have changed other properties' guests
+                    chain.saveAll();
+                    chain.shutdown();
+                } else {
+                    dataService.saveData(hotel);
+                }
+                dataService.stopJournal(hotel);
+                dataService.closeArchive(hotel);
                 System.out.println("Goodbye!");
                 break;
 
+            } else if (choice == 7 && chain != null) {
+                try {
+                    System.out.print("Check-in (YYYY-MM-DD): ");
+                    LocalDate in = LocalDate.parse(scanner.nextLine());
+                    System.out.print("Check-out (YYYY-MM-DD): ");
+                    LocalDate out = LocalDate.parse(scanner.nextLine());
+                    if (!out.isAfter(in)) {
+                        System.out.println("Error: Check-out must be after Check-in!");
+                        continue;
+                    }
+                    List<HotelRegistry.Availability> found = chain.searchAvailableRooms(in, out);
+                    for (HotelRegistry.Availability a : found) {
+                        System.out.println(a.hotel().getName() + " (" + a.propertyId() + "): Room " + a.room().getRoomNumber()
+                                + " - " + a.room().getRoomType() + " - $" + String.format("%.2f", a.room().calculateStayPrice(in, out)));
+                    }
+                    System.out.println(found.size() + " rooms free in " + chain.size() + " properties.");
+                } catch (java.time.format.DateTimeParseException e) {
+                    System.out.println("Invalid date format. Please use YYYY-MM-DD.");
+                }
+
             } else if (choice == 66) {
                 // Secret Admin Panel
-                System.out.print("Enter Admin Password: ");
-                String pass = scanner.nextLine();
-                if (pass.equals("yozgat66")) {
+                if (checkAdminPassword(scanner)) {
                     System.out.println("\n*** ADMIN PANEL ***");
                     System.out.println("Total Revenue: $" + hotel.calculateRevenue());
                     System.out.println("Occupancy Rate: " + String.format("%.1f", hotel.calculateOccupancyRate()) + "%");
@@ -226,12 +301,65 @@ public class Main {
                     hotel.listVIPCustomers();
                     hotel.listAllCustomers();
                     System.out.println("*******************");
-                } else {
-                    System.out.println("Access Denied!");
+                }
+
+            } else if (choice == 67) {
+                // Secret Performance Panel: latency percentiles in milliseconds
+                if (checkAdminPassword(scanner)) {
+                    System.out.println("\n*** PERFORMANCE ***");
+                    System.out.print(hotel.getMetrics().report());
+                    System.out.println("*******************");
                 }
             }
 
         }
         scanner.close();
     }
+
+    // Lists the chain's properties and asks which one to manage
+    private static String chooseProperty(Scanner scanner, HotelRegistry chain) {
+        List<String> ids = chain.getPropertyIds();
+        if (ids.size() == 1) return ids.get(0);
+        System.out.println("Properties:");
+        for (String id : ids) {
+            Hotel property = chain.getHotel(id);
+            System.out.println("  " + id + " - " + property.getName() + " (" + property.getTotalRooms() + " rooms)");
+        }
+        while (true) {
+            System.out.print(">> Property ID: ");
+            String id = scanner.nextLine().trim();
+            if (chain.getHotel(id) != null) return id;
+            System.out.println("Error: Property not found! Please try again.");
+        }
+    }
+
+    private static boolean checkAdminPassword(Scanner scanner) {
+        System.out.print("Enter Admin Password: ");
+        String pass = scanner.nextLine();
+        if (pass.equals("yozgat66")) return true;
+        System.out.println("Access Denied!");
+        return false;
+    }
+
+    // Serves until the process is stopped (Ctrl+C), then saves like option 6
+    private static void runServer(Hotel hotel, DataService dataService, int port) {
+        HotelServer server;
+        try {
+            server = new HotelServer(hotel, port);
+        } catch (IOException e) {
+            System.out.println("Cannot start server: " + e.getMessage());
+            return;
+        }
+        hotel.setListener(null);// No console output per booking
+        hotel.getMetrics().startDump(60, System.out::print);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            hotel.getMetrics().stopDump();
+            dataService.saveData(hotel);
+            dataService.stopJournal(hotel);
+            dataService.closeArchive(hotel);
+        }));
+        server.start();
+        System.out.println("Booking API listening on port " + server.getPort() + ". Press Ctrl+C to stop.");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.hotel.model;
+
+import java.time.LocalDate;
+
+//One room wanted in a group booking (see Hotel.bookRooms).
+//The hotel picks which room of the type is booked.
+public class BookingRequest {
+    private final Customer customer;
+    private final String roomType;
+    private final LocalDate checkIn;
+    private final LocalDate checkOut;
+
+    /**
+     * @param customer The guest the room is booked for (already registered).
+     * @param roomType "Standard Room" or "Deluxe Room" (see Room.getRoomType).
+     * @param checkIn First night.
+     * @param checkOut Departure day.
+     */
+    public BookingRequest(Customer customer, String roomType, LocalDate checkIn, LocalDate checkOut) {
+        this.customer = customer;
+        this.roomType = roomType;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+    }
+
+    public Customer getCustomer() { return customer; }
+    public String getRoomType() { return roomType; }
+    public LocalDate getCheckIn() { return checkIn; }
+    public LocalDate getCheckOut() { return checkOut; }
+}
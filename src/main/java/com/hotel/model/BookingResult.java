@@ -0,0 +1,54 @@
+package com.hotel.model;
+
+//What happened to one Hotel.book call: the reservation and its prices,
+//or why it was refused.
+public class BookingResult {
+
+    public enum Status { BOOKED, TOO_FAST, UNAVAILABLE, NOT_SAVED }
+
+    private final Status status;
+    private final Reservation reservation;
+    private final double totalPrice;
+    private final double discount;
+    private final int pointsUsed;
+    private final int pointsEarned;
+    private final int pointsBalance;
+
+    /**
+     * A booking that was made.
+     * @param totalPrice Price of the stay before the discount.
+     * @param discount Paid with loyalty points (10 points = $1).
+     * @param pointsBalance The customer's points after the booking.
+     */
+    public BookingResult(Reservation reservation, double totalPrice, double discount, int pointsUsed, int pointsEarned, int pointsBalance) {
+        this.status = Status.BOOKED;
+        this.reservation = reservation;
+        this.totalPrice = totalPrice;
+        this.discount = discount;
+        this.pointsUsed = pointsUsed;
+        this.pointsEarned = pointsEarned;
+        this.pointsBalance = pointsBalance;
+    }
+
+    //A booking that was refused.
+    public BookingResult(Status status) {
+        this.status = status;
+        this.reservation = null;
+        this.totalPrice = 0;
+        this.discount = 0;
+        this.pointsUsed = 0;
+        this.pointsEarned = 0;
+        this.pointsBalance = 0;
+    }
+
+    public boolean isSuccess() { return status == Status.BOOKED; }
+    public Status getStatus() { return status; }
+    public Reservation getReservation() { return reservation; }
+    public String getReservationId() { return reservation == null ? null : reservation.getReservationId(); }
+    public double getTotalPrice() { return totalPrice; }
+    public double getDiscount() { return discount; }
+    public double getFinalPrice() { return totalPrice - discount; }
+    public int getPointsUsed() { return pointsUsed; }
+    public int getPointsEarned() { return pointsEarned; }
+    public int getPointsBalance() { return pointsBalance; }
+}
@@ -1,39 +1,149 @@
 package com.hotel.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.time.LocalDateTime;
 
 //Represents a customer of the hotel.
 //Stores personal details and reservation history.
 public class Customer {
-    private static int customerCounter = 0;
+    private static final AtomicInteger customerCounter = new AtomicInteger();
 
-    private final String customerId;
+    private volatile String customerId; // Only changed before a chain shares the customer (see CustomerDirectory)
     private String firstName;
     private String lastName;
     private String email;
     private String phoneNumber;
     private final ArrayList<Reservation> reservationHistory;
+    private final ArrayList<Reservation> reservationsByCheckIn; // Same reservations, sorted by check-in date
     private int loyaltyPoints;
+    private long pointsChangedAt; // When the balance was last changed (epoch ms); for a loaded customer, when its file was saved
     private LocalDateTime lastBookingTime;
+    private volatile HistoryLoader historyLoader; // Set while older reservations are still on disk (lazy loading)
 
     public Customer(String firstName, String lastName, String email, String phoneNumber) {
-        this.customerId = generateCustomerId();
+        this(null, firstName, lastName, email, phoneNumber);
+    }
+
+    /**
+     * Restores a customer with a known ID (e.g. from a file).
+     * New IDs generated afterwards will not collide with it.
+     * @param customerId The saved ID, or null to generate a new one.
+     */
+    public Customer(String customerId, String firstName, String lastName, String email, String phoneNumber) {
+        this.customerId = customerId == null ? generateCustomerId() : keepCustomerId(customerId);
         this.firstName = firstName;
         this.lastName = lastName;
         this.email = email;
         this.phoneNumber = phoneNumber;
         this.reservationHistory = new ArrayList<>();
+        this.reservationsByCheckIn = new ArrayList<>();
         this.loyaltyPoints = 0;
     }
+    //Gives the customer a new generated ID, when another customer of the chain already has its ID.
+    void renumber() {
+        customerId = generateCustomerId();
+    }
     //Generates a unique ID like "CUST1", "CUST2"
     private String generateCustomerId() {
-        customerCounter++;
-        return "CUST" + customerCounter;
+        return "CUST" + customerCounter.incrementAndGet();
+    }
+    //Moves the counter past a loaded ID like "CUST42"
+    private String keepCustomerId(String customerId) {
+        if (customerId.startsWith("CUST")) {
+            try {
+                int number = Integer.parseInt(customerId.substring(4));
+                customerCounter.accumulateAndGet(number, Math::max);
+            } catch (NumberFormatException e) {
+                // Not a generated ID, nothing to reserve
+            }
+        }
+        return customerId;
     }
     //Adds a reservation to the customer's history.
-    public void addReservation(Reservation reservation) {
+    //Points and history are guarded by the customer's own monitor, which Hotel.bookRoom also holds.
+    public synchronized void addReservation(Reservation reservation) {
         reservationHistory.add(reservation);
+        reservationsByCheckIn.add(insertionPoint(reservation), reservation);
+    }
+
+    //Drops reservations that were moved to the archive.
+    public synchronized void removeReservations(Set<Reservation> archived) {
+        reservationHistory.removeIf(archived::contains);
+        reservationsByCheckIn.removeIf(archived::contains);
+    }
+
+    // Binary search for the slot after every reservation with the same or an earlier check-in.
+    // New bookings usually come last, so this is normally an append.
+    private int insertionPoint(Reservation reservation) {
+        int checkIn = reservation.getCheckInDay();
+        int low = 0;
+        int high = reservationsByCheckIn.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (reservationsByCheckIn.get(mid).getCheckInDay() <= checkIn) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns one page of this customer's reservations, sorted by check-in date.
+     * @param page Page number, starting from 0.
+     * @param pageSize Reservations per page.
+     * @return A read-only copy of the page (empty if the page is past the end).
+     */
+    public List<Reservation> getReservationPage(int page, int pageSize) {
+        if (page < 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("Invalid page: " + page + " (size " + pageSize + ")");
+        }
+        loadHistory();
+        synchronized (this) {
+            long from = (long) page * pageSize;
+            if (from >= reservationsByCheckIn.size()) {
+                return Collections.emptyList();
+            }
+            int to = (int) Math.min(from + pageSize, reservationsByCheckIn.size());
+            return List.copyOf(reservationsByCheckIn.subList((int) from, to));
+        }
+    }
+
+    //All reservations sorted by check-in date (read-only).
+    public List<Reservation> getReservationsByCheckIn() {
+        loadHistory();
+        return Collections.unmodifiableList(reservationsByCheckIn);
+    }
+
+    /**
+     * Loads older reservations that were left on disk at startup (lazy loading), once.
+     * Called by every method that reads the history; must not be called while holding this customer's lock.
+     */
+    public void loadHistory() {
+        HistoryLoader loader = historyLoader;
+        if (loader != null) {
+            loader.loadHistory(this);
+            historyLoader = null;
+        }
+    }
+
+    public void setHistoryLoader(HistoryLoader historyLoader) {
+        this.historyLoader = historyLoader;
+    }
+
+    //Number of reservations, including ones still on disk, without loading them.
+    public int getReservationCount() {
+        HistoryLoader loader = historyLoader;
+        int count;
+        synchronized (this) {
+            count = reservationHistory.size();
+        }
+        return loader == null ? count : count + loader.countUnloaded(this);
     }
 
     /**
@@ -41,9 +151,10 @@ public class Customer {
      * @param points Points to use.
      * @return true if successful, false if not enough points.
      */
-    public boolean redeemLoyaltyPoints(int points) {
+    public synchronized boolean redeemLoyaltyPoints(int points) {
         if (loyaltyPoints >= points) {
             loyaltyPoints -= points;
+            pointsChangedAt = System.currentTimeMillis();
             return true;
         }
         return false;
@@ -54,6 +165,19 @@ public class Customer {
     public String getCustomerId() {
         return customerId;
     }
+    public static final int MAX_EMAIL_LENGTH = 254; // The longest address mail servers accept
+
+    //The email check the console and the booking API apply before registering:
+    //it needs an "@" and a ".", and at most MAX_EMAIL_LENGTH characters.
+    public static boolean isValidEmail(String email) {
+        return email != null && email.length() <= MAX_EMAIL_LENGTH && email.contains("@") && email.contains(".");
+    }
+
+    //The phone check the console and the booking API apply before registering: digits only.
+    public static boolean isValidPhone(String phone) {
+        return phone != null && phone.matches("[0-9]+");
+    }
+
     public String getFirstName() {
         return firstName;
     }
@@ -79,17 +203,37 @@ public class Customer {
         this.phoneNumber = phoneNumber;
     }
     public ArrayList<Reservation> getReservationHistory() {
+        loadHistory();
         return reservationHistory;
     }
-    public int getLoyaltyPoints() {
+    public synchronized int getLoyaltyPoints() {
         return loyaltyPoints;
     }
-    public LocalDateTime getLastBookingTime() {return lastBookingTime;}
-    public void setLastBookingTime(LocalDateTime lastBookingTime) {this.lastBookingTime = lastBookingTime;}
+    //0 if the balance was never changed or saved.
+    public synchronized long getPointsChangedAt() {
+        return pointsChangedAt;
+    }
+    public synchronized LocalDateTime getLastBookingTime() {return lastBookingTime;}
+    public synchronized void setLastBookingTime(LocalDateTime lastBookingTime) {this.lastBookingTime = lastBookingTime;}
 
-    // For loading from file
-    public void addLoyaltyPoints(int points) {
+    public synchronized void addLoyaltyPoints(int points) {
         this.loyaltyPoints += points;
+        this.pointsChangedAt = System.currentTimeMillis();
+    }
+
+    // For replaying the journal, which stores the balance after each change
+    public synchronized void setLoyaltyPoints(int points) {
+        this.loyaltyPoints = points;
+        this.pointsChangedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * For loading from file: the saved balance, and when it was saved.
+     * @param savedAt Time the file was written (epoch ms), 0 if unknown.
+     */
+    public synchronized void restoreLoyaltyPoints(int points, long savedAt) {
+        this.loyaltyPoints = points;
+        this.pointsChangedAt = savedAt;
     }
 
     @Override
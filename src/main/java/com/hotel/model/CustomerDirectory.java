@@ -0,0 +1,53 @@
+package com.hotel.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+//The customers of a hotel chain, by email, shared by all its hotels (see Hotel.setCustomerDirectory).
+//A guest registered at one property is the same Customer object at every other one,
+//so loyalty points and reservation history follow them across the chain.
+//Customer IDs are unique in the chain: each property numbers the customers of its own files,
+//so a customer whose ID another guest already has is given a new one when it is shared.
+//Every property saves the chain's balance of a shared guest as it is at that moment, so among the copies
+//loaded from several properties the most recently saved one is right (Customer.getPointsChangedAt).
+public class CustomerDirectory {
+    private final ConcurrentHashMap<String, Customer> customersByEmail = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Customer> customersById = new ConcurrentHashMap<>();
+
+    /**
+     * Adds the customer unless the email is already known, renumbering it if its ID is taken.
+     * When the email is known, the chain's customer takes the given one's loyalty points only if they
+     * were changed or saved later, so copies of a guest loaded from several properties merge the same
+     * way in any order, and a redemption saved at one property is not undone by another's older file.
+     * @return The chain's customer with that email: the given one, or the one known before.
+     */
+    public synchronized Customer share(Customer customer) {
+        Customer known = customersByEmail.get(customer.getEmail());
+        if (known != null) {
+            if (known != customer) {
+                int points = customer.getLoyaltyPoints();
+                long changedAt = customer.getPointsChangedAt();
+                synchronized (known) {
+                    if (changedAt > known.getPointsChangedAt()) known.restoreLoyaltyPoints(points, changedAt);
+                }
+            }
+            return known;
+        }
+        while (customersById.putIfAbsent(customer.getCustomerId(), customer) != null) {
+            customer.renumber();
+        }
+        customersByEmail.put(customer.getEmail(), customer);
+        return customer;
+    }
+
+    public Customer find(String email) {
+        return email == null ? null : customersByEmail.get(email);
+    }
+
+    public Customer findById(String customerId) {
+        return customerId == null ? null : customersById.get(customerId);
+    }
+
+    public int size() {
+        return customersByEmail.size();
+    }
+}
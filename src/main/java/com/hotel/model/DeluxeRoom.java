@@ -50,6 +50,11 @@ public class DeluxeRoom extends Room {
         return "Deluxe Room";
     }
 
+    @Override
+    public String getRatePlanKey() {
+        return super.getRatePlanKey() + "|" + luxuryTax;
+    }
+
     // Getters and Setters
     public boolean hasMiniBar() { return hasMiniBar; }
     public void setHasMiniBar(boolean hasMiniBar) { this.hasMiniBar = hasMiniBar; }
@@ -61,5 +66,8 @@ public class DeluxeRoom extends Room {
     public void setHasBalcony(boolean hasBalcony) { this.hasBalcony = hasBalcony; }
     
     public double getLuxuryTax() { return luxuryTax; }
-    public void setLuxuryTax(double luxuryTax) { this.luxuryTax = luxuryTax; }
+    public void setLuxuryTax(double luxuryTax) {
+        this.luxuryTax = luxuryTax;
+        setRateCalendar(null);// Old rates are no longer valid
+    }
 }
@@ -0,0 +1,25 @@
+package com.hotel.model;
+
+/**
+ * Loads reservations that were left out when the hotel was loaded (lazy history),
+ * the first time someone reads the history they belong to.
+ * Loaded reservations are linked to the hotel with Hotel.restoreReservation.
+ * Must not be called while holding a room's or customer's lock, since loading locks them.
+ */
+public interface HistoryLoader {
+
+    //Loads every reservation of the customer that is not loaded yet.
+    void loadHistory(Customer customer);
+
+    //Loads every reservation of the room that is not loaded yet.
+    void loadHistory(Room room);
+
+    /**
+     * Loads one reservation by ID.
+     * @return The reservation, or null if it is not among the ones still on disk.
+     */
+    Reservation loadReservation(String reservationId);
+
+    //How many reservations of the customer are still on disk.
+    int countUnloaded(Customer customer);
+}
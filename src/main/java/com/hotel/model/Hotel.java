@@ -1,45 +1,310 @@
 package com.hotel.model;
 
+import com.hotel.util.DateRangeSet;
+import com.hotel.util.LatencyHistogram;
+import com.hotel.util.Metrics;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.time.Duration;
 import java.time.LocalDateTime;
 
 //The main manager class for the Hotel system.
 //It manages rooms, customers, and reservations.
 public class Hotel {
+    // How many times bookRooms picks rooms again when other bookings took some of them first
+    private static final int BLOCK_ATTEMPTS = 3;
+
     private final String name;
     private final String address;
     private final ArrayList<Room> rooms;
     private final ArrayList<Customer> customers;
     private final ArrayList<Reservation> reservations;
 
+    // Lookup indexes kept in sync by addRoom and registerCustomer (safe to read while other threads book)
+    private final ConcurrentHashMap<String, Room> roomsByNumber;
+    private final ConcurrentHashMap<String, Customer> customersByEmail;
+    private final ConcurrentHashMap<String, Customer> customersById;
+    private final HotelStatistics statistics;
+    private final HashMap<String, RateCalendar> rateCalendars; // Rate plan key -> shared calendar
+    private final ArrayList<double[]> seasonalRates; // {fromEpochDay, toEpochDay, multiplier}, re-applied on refresh
+    private final ConcurrentHashMap<String, Reservation> reservationsById;
+    private volatile HotelJournal journal; // Null while loading or when persistence is off
+    private volatile ReservationArchive archive; // Old reservations moved off the heap, null if not used
+    private volatile HotelListener listener; // Where messages go, null to drop them (no console)
+    private volatile HistoryLoader historyLoader; // Old reservations not loaded yet (lazy loading), null if not used
+    private volatile CustomerDirectory directory; // Customers shared with the other hotels of a chain, null if none
+    private final RoomInventory inventory; // Booked nights of every room as bitsets, for room assignment
+
+    // Timings of the hot paths (see getMetrics); DataService adds its load and save timings
+    private final Metrics metrics;
+    private final LatencyHistogram bookTimes;
+    private final LatencyHistogram blockBookTimes;
+    private final LatencyHistogram searchTimes;
+    private final LatencyHistogram customerLookupTimes;
+    private final LatencyHistogram roomLookupTimes;
+    private final LatencyHistogram reservationLookupTimes;
+    private final LongAdder bookedCount;
+    private final LongAdder tooFastCount;
+    private final LongAdder unavailableCount;
+    private final LongAdder notSavedCount;
+
     public Hotel(String name, String address) {
         this.name = name;
         this.address = address;
         this.rooms = new ArrayList<>();
         this.customers = new ArrayList<>();
         this.reservations = new ArrayList<>();
+        this.roomsByNumber = new ConcurrentHashMap<>();
+        this.customersByEmail = new ConcurrentHashMap<>();
+        this.customersById = new ConcurrentHashMap<>();
+        this.statistics = new HotelStatistics();
+        this.rateCalendars = new HashMap<>();
+        this.seasonalRates = new ArrayList<>();
+        this.reservationsById = new ConcurrentHashMap<>();
+        this.inventory = new RoomInventory(LocalDate.now(), RoomInventory.DEFAULT_HORIZON_NIGHTS);
+        this.metrics = new Metrics();
+        this.bookTimes = metrics.histogram("hotel.book");
+        this.blockBookTimes = metrics.histogram("hotel.bookBlock");
+        this.searchTimes = metrics.histogram("hotel.search");
+        this.customerLookupTimes = metrics.histogram("hotel.findCustomer");
+        this.roomLookupTimes = metrics.histogram("hotel.findRoom");
+        this.reservationLookupTimes = metrics.histogram("hotel.findReservation");
+        this.bookedCount = metrics.counter("hotel.booked");
+        this.tooFastCount = metrics.counter("hotel.refused.tooFast");
+        this.unavailableCount = metrics.counter("hotel.refused.unavailable");
+        this.notSavedCount = metrics.counter("hotel.refused.notSaved");
     }
 
     public void addRoom(Room room) {
-        rooms.add(room);
+        synchronized (rooms) {
+            rooms.add(room);
+        }
+        roomsByNumber.putIfAbsent(room.getRoomNumber(), room);// First room with a number wins, like the old list scan
+        inventory.addRoom(room);
+        attachRateCalendar(room);
+        HotelJournal j = journal;
+        if (j != null) {
+            j.roomAdded(room);
+            j.commit();
+        }
+    }
+
+    // Rooms with the same rate plan share one calendar, so it is built once per plan
+    private void attachRateCalendar(Room room) {
+        synchronized (rateCalendars) {
+            RateCalendar calendar = rateCalendars.get(room.getRatePlanKey());
+            if (calendar == null) {
+                calendar = new RateCalendar(room, LocalDate.now(), RateCalendar.DEFAULT_HORIZON_DAYS);
+                for (double[] season : seasonalRates) {
+                    calendar.applySeasonalRate(LocalDate.ofEpochDay((long) season[0]), LocalDate.ofEpochDay((long) season[1]), season[2]);
+                }
+                rateCalendars.put(room.getRatePlanKey(), calendar);
+            }
+            room.setRateCalendar(calendar);
+        }
+    }
+
+    /**
+     * Changes a room's base price and moves it to the rate calendar of its new rate plan.
+     * The calendar of its old plan keeps the old prices for the rooms still on it.
+     */
+    public void setBasePrice(Room room, double basePrice) {
+        synchronized (rateCalendars) {
+            room.setBasePrice(basePrice);
+            attachRateCalendar(room);
+        }
     }
 
-    public void registerCustomer(Customer customer) {
-        customers.add(customer);
+    /**
+     * Rebuilds the rate calendars so the horizon starts today, and moves the room inventory's
+     * horizon to today as well. Call once a day (e.g. at night audit).
+     * Also re-attaches rooms whose price changed since they were added.
+     * Seasonal rates set through the hotel are kept.
+     */
+    public void refreshRateCalendars() {
+        synchronized (rateCalendars) {
+            rateCalendars.clear();
+            for (Room room : rooms) {
+                attachRateCalendar(room);
+            }
+        }
+        inventory.advance(LocalDate.now());
+    }
+
+    /**
+     * Applies a seasonal multiplier to every rate plan for the nights in [from, to).
+     * @param multiplier e.g. 1.25 for high season.
+     */
+    public void applySeasonalRate(LocalDate from, LocalDate to, double multiplier) {
+        synchronized (rateCalendars) {
+            seasonalRates.add(new double[]{from.toEpochDay(), to.toEpochDay(), multiplier});
+            for (RateCalendar calendar : rateCalendars.values()) {
+                calendar.applySeasonalRate(from, to, multiplier);
+            }
+        }
+    }
+
+    /**
+     * Adds a customer to the hotel. In a chain (see setCustomerDirectory), a customer whose email
+     * another property already knows is registered as that property's Customer object instead.
+     * @return The customer now registered: the given one, or the chain's one with the same email.
+     */
+    public Customer registerCustomer(Customer customer) {
+        CustomerDirectory d = directory;
+        if (d != null) {
+            Customer shared = d.share(customer);// May renumber it, before it is added below
+            if (shared != customer) {
+                if (customersByEmail.get(shared.getEmail()) == shared) return shared;
+                customer = shared;
+            }
+        }
+        synchronized (customers) {
+            customers.add(customer);
+        }
+        customersByEmail.putIfAbsent(customer.getEmail(), customer);
+        customersById.putIfAbsent(customer.getCustomerId(), customer);
+        HotelJournal j = journal;
+        if (j != null) {
+            j.customerRegistered(customer);
+            j.commit();
+        }
+        return customer;
+    }
+
+    /**
+     * Links a reservation to the hotel, its room and its customer,
+     * and updates the running statistics.
+     * All reservations (new bookings and loaded ones) should come through here.
+     * Callers that check availability first must hold the room's lock (see bookRoom).
+     * @param res The reservation, already pointing to its real room and customer.
+     */
+    public void addReservation(Reservation res) {
+        linkReservation(res);
+        HotelJournal j = journal;
+        if (j != null) j.commit();
+    }
+
+    /**
+     * Links a reservation that was loaded late (lazy history). It is already saved
+     * and already counted in the statistics, so neither is done again.
+     */
+    public void restoreReservation(Reservation res) {
+        synchronized (reservations) {
+            reservations.add(res);
+        }
+        reservationsById.putIfAbsent(res.getReservationId(), res);
+        res.getRoom().addReservation(res);
+        res.getCustomer().addReservation(res);
+    }
+
+    //Counts a reservation in the statistics without keeping it in memory (lazy history).
+    public void recordUnloadedReservation(Reservation res) {
+        statistics.recordReservation(res);
+        if (!res.isCancelled()) {
+            res.getRoom().addBookedNights(res.getCheckInDay(), res.getCheckOutDay());
+        }
+    }
+
+    // Same as addReservation, but leaves the journal commit to the caller
+    private void linkReservation(Reservation res) {
+        statistics.recordReservation(res);// Before the room sees it, so its nights are counted once
+        synchronized (reservations) {
+            reservations.add(res);
+        }
+        reservationsById.putIfAbsent(res.getReservationId(), res);
+        res.getRoom().addReservation(res);
+        res.getCustomer().addReservation(res);
+        HotelJournal j = journal;
+        if (j != null) j.reservationAdded(res);
+    }
+
+    /**
+     * Changes a reservation's status (e.g. to CANCELLED), frees or blocks its nights again
+     * and updates the occupancy statistics.
+     * @param res The reservation.
+     * @param status PENDING, CONFIRMED or CANCELLED.
+     */
+    public void updateReservationStatus(Reservation res, String status) {
+        Room room = res.getRoom();
+        synchronized (room) {
+            String oldStatus = res.getStatus();
+            res.setStatus(status);
+            if (res.isCancelled()) {
+                room.refreshAvailability();
+                statistics.recordStatusChange(res, oldStatus);// Counts the nights just freed
+            } else {
+                statistics.recordStatusChange(res, oldStatus);// Counts the nights about to be booked again
+                room.refreshAvailability();
+            }
+        }
+        HotelJournal j = journal;
+        if (j != null) {
+            j.reservationStatusChanged(res);
+            j.commit();
+        }
     }
 
     /**
      * Handles the booking process.
-     * Includes fraud check, discounts, upgrades, and point calculation.
+     * Includes fraud check, availability check, discounts, upgrades, and point calculation.
+     * Safe to call from many threads: it locks only the booked room and then the customer
+     * (always in that order), so bookings for different rooms run in parallel.
+     * @return true if the reservation was made.
      */
-    public void bookRoom(Customer customer, Room room, LocalDate checkIn, LocalDate checkOut, boolean usePoints, boolean isFreeUpgrade) {
+    public boolean bookRoom(Customer customer, Room room, LocalDate checkIn, LocalDate checkOut, boolean usePoints, boolean isFreeUpgrade) {
+        return book(customer, room, checkIn, checkOut, usePoints, isFreeUpgrade).isSuccess();
+    }
+
+    /**
+     * Same as bookRoom, but returns the details (ID, price, discount, points) instead of only
+     * reporting them to the listener.
+     */
+    public BookingResult book(Customer customer, Room room, LocalDate checkIn, LocalDate checkOut, boolean usePoints, boolean isFreeUpgrade) {
+        long start = System.nanoTime();
+        BookingResult result;
+        synchronized (room) {
+            synchronized (customer) {
+                result = placeBooking(customer, room, checkIn, checkOut, usePoints, isFreeUpgrade);
+            }
+        }
+        // Flush outside the locks, so bookings for other rooms can share the same disk flush
+        HotelJournal j = journal;
+        if (result.isSuccess() && j != null && !j.commit()) {
+            undoBooking(result.getReservation(), result.getPointsUsed() - result.getPointsEarned());
+            result = new BookingResult(BookingResult.Status.NOT_SAVED);
+        }
+        bookTimes.recordSince(start);
+        switch (result.getStatus()) {
+            case BOOKED -> bookedCount.increment();
+            case TOO_FAST -> tooFastCount.increment();
+            case UNAVAILABLE -> unavailableCount.increment();
+            case NOT_SAVED -> notSavedCount.increment();
+        }
+        if (listener != null) reportBooking(result, room, usePoints);
+        return result;
+    }
+
+    // The booking itself. Caller holds the room lock and then the customer lock.
+    private BookingResult placeBooking(Customer customer, Room room, LocalDate checkIn, LocalDate checkOut, boolean usePoints, boolean isFreeUpgrade) {
         //Security Check: Prevent booking too fast (within 60 seconds)
         if (customer.getLastBookingTime() != null &&
                 Duration.between(customer.getLastBookingTime(), LocalDateTime.now()).getSeconds() < 60) {
-            System.out.println("Fraud alert! You are booking too fast. Please wait a moment.");
-            return;
+            return new BookingResult(BookingResult.Status.TOO_FAST);
+        }
+        //Check-availability-then-insert is atomic because the room lock is held until the reservation is added
+        if (!room.isAvailable(checkIn, checkOut)) {
+            return new BookingResult(BookingResult.Status.UNAVAILABLE);
         }
         //Handle Upgrades: If upgraded, use Standard Room pricing temporarily
         Room pricingRoom = room;
@@ -51,188 +316,452 @@ public class Hotel {
         double totalAmount = res.calculateTotalAmount();
         //Handle Loyalty Points (Discount)
         double discount = 0;
+        int pointsUsed = 0;
         if (usePoints) {
             int points = customer.getLoyaltyPoints();
             if (points > 0) {// 10 points = $1 discount
                 double maxDiscount = points / 10.0;
                 if (maxDiscount >= totalAmount) {
                     discount = totalAmount;// Full cover
-                    int pointsUsed = (int)(totalAmount * 10);
-                    customer.redeemLoyaltyPoints(pointsUsed);
-                    System.out.println("Loyalty Points Used: " + pointsUsed + " (-$" + totalAmount + ")");
+                    pointsUsed = (int)(totalAmount * 10);
                 } else {
                     discount = maxDiscount;
-                    customer.redeemLoyaltyPoints(points);
-                    System.out.println("Loyalty Points Used: " + points + " (-$" + discount + ")");
+                    pointsUsed = points;
                 }
-            } else {
-                System.out.println("No loyalty points available to use.");
+                customer.redeemLoyaltyPoints(pointsUsed);
             }
         }
         //Calculate Final Price
         double finalPrice = totalAmount - discount;
-        System.out.println("Total Price: $" + totalAmount);
-        if (discount > 0) {
-            System.out.println("Discount Applied: -$" + discount);
-            System.out.println("Final Price to Pay: $" + finalPrice);
-        }
         //Earn new points (5% of payment)
         int pointsEarned = (int)(finalPrice * 0.05);
         customer.addLoyaltyPoints(pointsEarned);
         res.setRoom(room);
-        reservations.add(res);
-        room.addReservation(res);
-        customer.addReservation(res);
+        linkReservation(res);
 
         room.setClean(false);
         customer.setLastBookingTime(LocalDateTime.now());
+        HotelJournal j = journal;
+        if (j != null) j.loyaltyPointsChanged(customer);
+        return new BookingResult(res, totalAmount, discount, pointsUsed, pointsEarned, customer.getLoyaltyPoints());
+    }
+
+    // Takes back a booking the journal could not save: it is cancelled (which frees its nights)
+    // and the customer gets back the points it moved. It stays in the lists, as cancelled bookings do.
+    private void undoBooking(Reservation res, int pointsBack) {
+        updateReservationStatus(res, "CANCELLED");
+        Customer customer = res.getCustomer();
+        synchronized (customer) {
+            customer.addLoyaltyPoints(pointsBack);
+        }
+    }
+
+    // The messages the console shows for a booking
+    private void reportBooking(BookingResult result, Room room, boolean usePoints) {
+        switch (result.getStatus()) {
+            case TOO_FAST -> report("Fraud alert! You are booking too fast. Please wait a moment.");
+            case UNAVAILABLE -> report("Room " + room.getRoomNumber() + " is already booked for these dates.");
+            case NOT_SAVED -> report("The booking could not be saved and was cancelled. Please try again later.");
+            case BOOKED -> {
+                if (result.getPointsUsed() > 0) {
+                    report("Loyalty Points Used: " + result.getPointsUsed() + " (-$" + result.getDiscount() + ")");
+                } else if (usePoints) {
+                    report("No loyalty points available to use.");
+                }
+                report("Total Price: $" + result.getTotalPrice());
+                if (result.getDiscount() > 0) {
+                    report("Discount Applied: -$" + result.getDiscount());
+                    report("Final Price to Pay: $" + result.getFinalPrice());
+                }
+                report("Reservation successful! ID: " + result.getReservationId() + " in Room: " + room.getRoomNumber());
+                report("You earned " + result.getPointsEarned() + " Loyalty Points! Total Points: " + result.getPointsBalance());
+            }
+        }
+    }
+
+    // Sends a message to the listener, if there is one
+    private void report(String text) {
+        HotelListener l = listener;
+        if (l != null) l.message(text);
+    }
+
+    /**
+     * Books a block of rooms at once (e.g. for a tour operator), all-or-nothing.
+     * Each request gets the first room of its type that is free for its dates, counting
+     * the rooms already picked for earlier requests of the block. If any request cannot
+     * be placed, or a customer is not registered with the hotel, nothing is booked.
+     * Unlike bookRoom there is no fraud check (a block is many bookings by design) and no points
+     * are redeemed; each customer earns 5% of their bookings' price in points.
+     * The picked rooms are held one at a time, each under its own lock, so other rooms (even of the
+     * same type) stay bookable meanwhile. If another booking took a picked room first, the holds are
+     * released and the rooms picked again, up to BLOCK_ATTEMPTS times.
+     * The journal is flushed once for the whole block.
+     * @return The reservations in request order, or an empty list if the block was not booked.
+     */
+    public List<Reservation> bookRooms(List<BookingRequest> requests) {
+        if (requests.isEmpty()) return List.of();
+        long start = System.nanoTime();
+        HashSet<String> types = new HashSet<>();
+        for (BookingRequest request : requests) types.add(request.getRoomType());
+        ArrayList<Room> candidates = new ArrayList<>();
+        synchronized (rooms) {
+            for (Room room : rooms) {
+                if (types.contains(room.getRoomType())) candidates.add(room);
+            }
+        }
+        StringBuilder refusal = new StringBuilder();
+        List<Reservation> booked = List.of();
+        for (int attempt = 0; attempt < BLOCK_ATTEMPTS && booked.isEmpty(); attempt++) {
+            refusal.setLength(0);
+            Room[] picked = pickBlock(requests, candidates, refusal);
+            if (picked == null) break;// Would not fit even with no other bookings going on
+            if (holdBlock(requests, picked)) {
+                booked = commitBlock(requests, picked);
+            } else {
+                refusal.append("the rooms were taken by other bookings.");
+            }
+        }
+        // Flush and report outside the locks, like bookRoom
+        HotelJournal j = journal;
+        if (!booked.isEmpty() && j != null && !j.commit()) {
+            for (Reservation res : booked) undoBooking(res, -(int) (res.calculateTotalAmount() * 0.05));
+            booked = List.of();
+            refusal.append("it could not be saved.");
+        }
+        blockBookTimes.recordSince(start);
+        report(booked.isEmpty() ? "Block not booked: " + refusal : "Block booked: " + booked.size() + " rooms.");
+        return booked;
+    }
+
+    // Checks if this is the hotel's own customer with that email
+    private boolean isRegistered(Customer customer) {
+        return customer != null && customersByEmail.get(customer.getEmail()) == customer;
+    }
+
+    // Picks a room for every request, without locks (the holds check again).
+    // Returns null, with the reason appended to refusal, if the block cannot be placed.
+    private Room[] pickBlock(List<BookingRequest> requests, List<Room> candidates, StringBuilder refusal) {
+        Room[] picked = new Room[requests.size()];
+        IdentityHashMap<Room, DateRangeSet> pickedNights = new IdentityHashMap<>();
+        // Requests with the same type and dates go on from the room where the previous one was placed
+        HashMap<String, Integer> nextCandidate = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            BookingRequest request = requests.get(i);
+            long in = request.getCheckIn().toEpochDay();
+            long out = request.getCheckOut().toEpochDay();
+            if (!isRegistered(request.getCustomer()) || in >= out) {
+                refusal.append("request ").append(i + 1).append(" is invalid.");
+                return null;
+            }
+            String key = request.getRoomType() + "|" + in + "|" + out;
+            int c = nextCandidate.getOrDefault(key, 0);
+            for (; c < candidates.size(); c++) {
+                Room room = candidates.get(c);
+                DateRangeSet taken = pickedNights.get(room);
+                if (room.getRoomType().equals(request.getRoomType()) && room.isAvailable(in, out)
+                        && (taken == null || !taken.overlaps(in, out))) {
+                    break;
+                }
+            }
+            if (c == candidates.size()) {
+                refusal.append("no ").append(request.getRoomType()).append(" free from ")
+                        .append(request.getCheckIn()).append(" to ").append(request.getCheckOut()).append('.');
+                return null;
+            }
+            picked[i] = candidates.get(c);
+            pickedNights.computeIfAbsent(picked[i], room -> new DateRangeSet()).add(in, out);
+            nextCandidate.put(key, c);
+        }
+        return picked;
+    }
 
-        System.out.println("Reservation successful! ID: " + res.getReservationId() + " in Room: " + room.getRoomNumber());
-        System.out.println("You earned " + pointsEarned + " Loyalty Points! Total Points: " + customer.getLoyaltyPoints());
+    // Holds the nights of every picked room, one room lock at a time. If one is taken, releases the others.
+    private boolean holdBlock(List<BookingRequest> requests, Room[] picked) {
+        for (int i = 0; i < picked.length; i++) {
+            BookingRequest request = requests.get(i);
+            if (!picked[i].hold(request.getCheckIn().toEpochDay(), request.getCheckOut().toEpochDay())) {
+                for (int k = 0; k < i; k++) {
+                    picked[k].releaseHold(requests.get(k).getCheckIn().toEpochDay(), requests.get(k).getCheckOut().toEpochDay());
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Books the held rooms. Nothing can fail any more, so the block is complete once this returns.
+    private List<Reservation> commitBlock(List<BookingRequest> requests, Room[] picked) {
+        // Commit: statistics first (before the rooms see the reservations), then every index in one go
+        ArrayList<Reservation> block = new ArrayList<>(requests.size());
+        IdentityHashMap<Customer, Integer> pointsEarned = new IdentityHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            BookingRequest request = requests.get(i);
+            Reservation res = new Reservation(request.getCustomer(), picked[i], request.getCheckIn(), request.getCheckOut());
+            statistics.recordReservation(res);
+            pointsEarned.merge(request.getCustomer(), (int) (res.calculateTotalAmount() * 0.05), Integer::sum);
+            block.add(res);
+        }
+        synchronized (reservations) {
+            reservations.addAll(block);
+        }
+        HotelJournal j = journal;
+        for (Reservation res : block) {
+            reservationsById.putIfAbsent(res.getReservationId(), res);
+            res.getRoom().addHeldReservation(res);
+            synchronized (res.getCustomer()) {
+                res.getCustomer().addReservation(res);
+            }
+            res.getRoom().setClean(false);
+            if (j != null) j.reservationAdded(res);
+        }
+        for (Customer customer : pointsEarned.keySet()) {
+            synchronized (customer) {
+                customer.addLoyaltyPoints(pointsEarned.get(customer));
+                if (j != null) j.loyaltyPointsChanged(customer);
+            }
+        }
+        return block;
     }
 
     /**
-     * Finds rooms that are clean.
-     * In a real app, this should also check dates.
+     * Finds rooms that have no active reservation between the dates.
+     * Within the inventory horizon this is one AND per 64 rooms per night; beyond it,
+     * each room answers from its own date index (O(log n) per room).
      */
     public ArrayList<Room> searchAvailableRooms(LocalDate checkIn, LocalDate checkOut) {
-        ArrayList<Room> availableRooms = new ArrayList<>();
-        for (Room room : rooms) {
-            // Simplified availability logic: just check if room is clean for now
-            if (room.isClean()) {
-                availableRooms.add(room);
+        long start = System.nanoTime();
+        // An AND of the night bitsets when the inventory covers the stay, else a check of every room
+        ArrayList<Room> availableRooms = inventory.findFreeRooms(null, checkIn.toEpochDay(), checkOut.toEpochDay());
+        if (availableRooms == null) {
+            availableRooms = new ArrayList<>();
+            for (Room room : rooms) {
+                if (room.isAvailable(checkIn, checkOut)) {
+                    availableRooms.add(room);
+                }
             }
         }
+        searchTimes.recordSince(start);
         return availableRooms;
     }
 
     public Customer findCustomerByEmail(String email) {
-        for (Customer c : customers) {
-            if (c.getEmail().equals(email)) {
-                return c;
-            }
-        }
-        return null;
+        long start = System.nanoTime();
+        Customer customer = email == null ? null : customersByEmail.get(email);
+        customerLookupTimes.recordSince(start);
+        return customer;
+    }
+
+    public Customer findCustomerById(String customerId) {
+        long start = System.nanoTime();
+        Customer customer = customerId == null ? null : customersById.get(customerId);
+        customerLookupTimes.recordSince(start);
+        return customer;
     }
 
     public Room findRoom(String roomNumber) {
-        for (Room r : rooms) {
-            if (r.getRoomNumber().equals(roomNumber)) {
-                return r;
+        long start = System.nanoTime();
+        Room room = roomNumber == null ? null : roomsByNumber.get(roomNumber);
+        roomLookupTimes.recordSince(start);
+        return room;
+    }
+
+    //Looks in the loaded reservations first, then in the ones still on disk, then in the archive.
+    public Reservation findReservation(String reservationId) {
+        if (reservationId == null) return null;
+        long start = System.nanoTime();
+        Reservation res = reservationsById.get(reservationId);
+        HistoryLoader loader = historyLoader;
+        if (res == null && loader != null) {
+            res = loader.loadReservation(reservationId);
+        }
+        ReservationArchive a = archive;
+        if (res == null && a != null) {
+            res = a.find(reservationId, this);
+        }
+        reservationLookupTimes.recordSince(start);
+        return res;
+    }
+
+    /**
+     * All reservations of a customer, archived ones included, sorted by check-in date.
+     * Archived reservations are read from the archive on every call.
+     */
+    public List<Reservation> getReservationHistory(Customer customer) {
+        customer.loadHistory();// Before taking the customer's lock
+        ArrayList<Reservation> history;
+        synchronized (customer) {
+            history = new ArrayList<>(customer.getReservationsByCheckIn());
+        }
+        ReservationArchive a = archive;
+        if (a == null) return history;
+        HashSet<String> current = new HashSet<>();
+        for (Reservation r : history) current.add(r.getReservationId());
+        ArrayList<Reservation> all = new ArrayList<>();
+        for (Reservation r : a.findByCustomer(customer, this)) {
+            // After a crash before the next save, a reservation can be in both places
+            if (!current.contains(r.getReservationId())) all.add(r);
+        }
+        all.addAll(history);
+        all.sort(Comparator.comparingInt(Reservation::getCheckInDay));// Stable: both parts are already sorted
+        return all;
+    }
+
+    // Number of reservations in a customer's whole history
+    private int countReservations(Customer customer) {
+        ReservationArchive a = archive;
+        int count = customer.getReservationCount();
+        return a == null ? count : count + a.countByCustomer(customer);
+    }
+
+    /**
+     * Moves reservations that ended on or before the date from the heap to the archive.
+     * They are written to the archive first and only then dropped from the lists,
+     * so a crash in between leaves them in both places, never in none.
+     * Revenue and occupancy statistics keep counting them. Reservations the archive cannot store
+     * (see ReservationArchive.canArchive) stay in memory.
+     * @param before Reservations with a check-out on or before this day are archived.
+     * @return How many reservations were moved (0 if no archive is attached).
+     */
+    public int archiveReservations(LocalDate before) {
+        ReservationArchive a = archive;
+        if (a == null) return 0;
+        long lastDay = before.toEpochDay();
+        ArrayList<Reservation> old = new ArrayList<>();
+        int kept = 0;
+        synchronized (reservations) {
+            for (Reservation r : reservations) {
+                if (r.getCheckOutDay() > lastDay) continue;
+                if (a.canArchive(r)) {
+                    old.add(r);
+                } else {
+                    kept++;// Stays in memory (and in the data files)
+                }
             }
         }
-        return null;
+        if (kept > 0) report(kept + " reservations cannot be archived (ID or email too long) and stay in memory.");
+        if (old.isEmpty()) return 0;
+        try {
+            a.archive(old);
+        } catch (IOException e) {
+            report("Error archiving reservations: " + e.getMessage());
+            return 0;
+        }
+
+        Set<Reservation> archived = Collections.newSetFromMap(new IdentityHashMap<>());
+        archived.addAll(old);
+        Set<Customer> owners = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Room> bookedRooms = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Reservation r : old) {
+            reservationsById.remove(r.getReservationId(), r);
+            owners.add(r.getCustomer());
+            bookedRooms.add(r.getRoom());
+        }
+        synchronized (reservations) {
+            reservations.removeIf(archived::contains);
+        }
+        for (Room room : bookedRooms) room.removeReservations(archived);
+        for (Customer c : owners) c.removeReservations(archived);
+        return old.size();
     }
 
     public void displayInfo() {
-        System.out.println("Hotel: " + name);
-        System.out.println("Address: " + address);
-        System.out.println("Total Rooms: " + rooms.size());
+        report("Hotel: " + name);
+        report("Address: " + address);
+        report("Total Rooms: " + rooms.size());
     }
 
     public void displayAllRooms() {
-        System.out.println("\n-------------------------------------------------------------");
-        System.out.printf("%-10s | %-15s | %-10s | %-10s%n", "Room No", "Type", "Price", "Status");
-        System.out.println("-------------------------------------------------------------");
+        report("\n-------------------------------------------------------------");
+        report(String.format("%-10s | %-15s | %-10s | %-10s", "Room No", "Type", "Price", "Status"));
+        report("-------------------------------------------------------------");
         for (Room r : rooms) {
             String status = r.isClean() ? "Available" : "Occupied";
-            System.out.printf("%-10s | %-15s | $%-9.2f | %-10s%n",
+            report(String.format("%-10s | %-15s | $%-9.2f | %-10s",
                     r.getRoomNumber(),
                     r.getRoomType(),
                     r.calculatePrice(LocalDate.now()),
-                    status);
+                    status));
         }
-        System.out.println("-------------------------------------------------------------");
+        report("-------------------------------------------------------------");
+    }
+
+    /**
+     * Returns one page of a customer's reservations, sorted by check-in date.
+     * Goes email -> customer -> their own history, so the cost does not grow with the hotel's total bookings.
+     * @return The page, or an empty list if the customer is unknown.
+     */
+    public List<Reservation> findReservations(String email, int page, int pageSize) {
+        Customer customer = findCustomerByEmail(email);
+        if (customer == null) {
+            return Collections.emptyList();
+        }
+        if (archive == null) {
+            return customer.getReservationPage(page, pageSize);
+        }
+        if (page < 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("Invalid page: " + page + " (size " + pageSize + ")");
+        }
+        List<Reservation> history = getReservationHistory(customer);
+        long from = (long) page * pageSize;
+        if (from >= history.size()) {
+            return Collections.emptyList();
+        }
+        return List.copyOf(history.subList((int) from, (int) Math.min(from + pageSize, history.size())));
     }
 
     public void displayReservations(String email) {
-        System.out.println("\n--- Reservations for " + email + " ---");
-        boolean found = false;
-        for (Reservation r : reservations) {
-            if (r.getCustomer().getEmail().equals(email)) {
-                System.out.println(r.getReservationId() + " - Room: " + r.getRoom().getRoomNumber() +
-                        " (" + r.getCheckInDate() + " to " + r.getCheckOutDate() + ")" + " | Total: $" + r.calculateTotalAmount());
-                found = true;
-            }
+        report("\n--- Reservations for " + email + " ---");
+        Customer customer = findCustomerByEmail(email);
+        List<Reservation> history = customer == null ? Collections.emptyList() : getReservationHistory(customer);
+        if (history.isEmpty()) {
+            report("No reservations found for this email.");
+            return;
         }
-        if (!found) {
-            System.out.println("No reservations found for this email.");
+        for (Reservation r : history) {
+            report(r.getReservationId() + " - Room: " + r.getRoom().getRoomNumber() +
+                    " (" + r.getCheckInDate() + " to " + r.getCheckOutDate() + ")" + " | Total: $" + r.calculateTotalAmount());
         }
     }
-    //Calculates total money earned from all reservations.
+    //Total money earned from all reservations (kept up to date by addReservation).
     public double calculateRevenue() {
-        double total = 0;
-        for (Reservation r : reservations) {
-            total += r.calculateTotalAmount();
-        }
-        return total;
+        return statistics.getTotalRevenue();
     }
     //Finds the room that has been booked the most.
     public void displayMostPopularRoom() {
-        if (reservations.isEmpty()) {
-            System.out.println("No data available.");
+        if (statistics.getMostPopularRoomNumber() == null) {
+            report("No data available.");
             return;
         }
-
-        Room popular = null;
-        int maxCount = -1;
-
-        for (Room r : rooms) {
-            int count = 0;
-            for (Reservation res : reservations) {
-                if (res.getRoom().getRoomNumber().equals(r.getRoomNumber())) {
-                    count++;
-                }
-            }
-            if (count > maxCount) {
-                maxCount = count;
-                popular = r;
-            }
-        }
-
-        if (popular != null) {
-            System.out.println("Most Popular Room: " + popular.getRoomNumber() + " (" + maxCount + " bookings)");
-        }
+        report("Most Popular Room: " + statistics.getMostPopularRoomNumber() + " (" + statistics.getMostPopularCount() + " bookings)");
     }
 
     public void listAllCustomers() {
-        System.out.println("\n--- All Customers ---");
+        report("\n--- All Customers ---");
         for (Customer c : customers) {
-            System.out.println("ID: " + c.getCustomerId() + " | " + c.getFirstName() + " " + c.getLastName() + " | " + c.getEmail());
+            report("ID: " + c.getCustomerId() + " | " + c.getFirstName() + " " + c.getLastName() + " | " + c.getEmail());
         }
     }
-    //Calculates the percentage of rooms occupied right now.
+    //Calculates the percentage of rooms occupied tonight.
     public double calculateOccupancyRate() {
         if (rooms.isEmpty()) return 0.0;
-        int occupiedCount = 0;
         LocalDate today = LocalDate.now();
-
-        for (Room room : rooms) {
-            boolean isOccupied = false;
-            for (Reservation res : reservations) {
-                if (res.getRoom().getRoomNumber().equals(room.getRoomNumber())) {
-                    if (!today.isBefore(res.getCheckInDate()) && !today.isAfter(res.getCheckOutDate())) {
-                        isOccupied = true;
-                        break;
-                    }
-                }
-            }
-            if (isOccupied) occupiedCount++;
-        }
+        int occupiedCount = inventory.countBooked(today.toEpochDay());// A popcount of tonight's bitset
+        if (occupiedCount < 0) occupiedCount = statistics.getOccupiedRooms(today);// Horizon not moved for too long
         return (double) occupiedCount / rooms.size() * 100;
     }
     // Lists customers with more than 3 bookings
     public void listVIPCustomers() {
-        System.out.println("\n--- VIP Customers (3+ Bookings) ---");
+        report("\n--- VIP Customers (3+ Bookings) ---");
         boolean found = false;
         for (Customer c : customers) {
-            if (c.getReservationHistory().size() >= 3) {
-                System.out.println("VIP: " + c.getFirstName() + " " + c.getLastName() + " (" + c.getReservationHistory().size() + " bookings)");
+            int bookings = countReservations(c);
+            if (bookings >= 3) {
+                report("VIP: " + c.getFirstName() + " " + c.getLastName() + " (" + bookings + " bookings)");
                 found = true;
             }
         }
         if (!found) {
-            System.out.println("No VIP customers yet.");
+            report("No VIP customers yet.");
         }
     }
     /**
@@ -240,26 +769,19 @@ public class Hotel {
      * If they usually book Deluxe, suggest Deluxe.
      */
     public Room recommendRoom(String email) {
-        Customer customer = null;
-
-        for (Customer c : customers) {
-            if (c.getEmail().equals(email)) {
-                customer = c;
-                break;
-            }
-        }
+        Customer customer = findCustomerByEmail(email);
 
         if (customer == null) {
-            System.out.println("Customer not found!");
+            report("Customer not found!");
             return null;
         }
 
-        System.out.println("Analyzing history for: " + customer.getFirstName());
+        report("Analyzing history for: " + customer.getFirstName());
 
         int deluxeCount = 0;
         int standardCount = 0;
 
-        for (Reservation res : customer.getReservationHistory()) {
+        for (Reservation res : getReservationHistory(customer)) {
             if (res.getRoom() instanceof DeluxeRoom) {
                 deluxeCount++;
             } else {
@@ -267,12 +789,12 @@ public class Hotel {
             }
         }
 
-        System.out.println("Stats: " + deluxeCount + " Deluxe bookings vs " + standardCount + " Standard bookings.");
+        report("Stats: " + deluxeCount + " Deluxe bookings vs " + standardCount + " Standard bookings.");
 
         if (deluxeCount > standardCount) {
             for (Room r : rooms) {
                 if (r instanceof DeluxeRoom && r.isClean()) {
-                    System.out.println(">>> Based on your history, we recommend Deluxe Room: " + r.getRoomNumber());
+                    report(">>> Based on your history, we recommend Deluxe Room: " + r.getRoomNumber());
                     return r;
                 }
             }
@@ -280,12 +802,12 @@ public class Hotel {
 
         for (Room r : rooms) {
             if (r instanceof StandardRoom && r.isClean()) {
-                System.out.println(">>> We recommend Standard Room: " + r.getRoomNumber());
+                report(">>> We recommend Standard Room: " + r.getRoomNumber());
                 return r;
             }
         }
 
-        System.out.println("Sorry, no suitable room found.");
+        report("Sorry, no suitable room found.");
         return null;
     }
     //Previews the invoice (bill) without saving the reservation.
@@ -311,28 +833,76 @@ public class Hotel {
 
         double finalPrice = totalAmount - discount;
 
-        System.out.println("\n========================================");
-        System.out.println("         PAYMENT CONFIRMATION");
-        System.out.println("========================================");
-        System.out.println("Customer: " + customer.getFirstName() + " " + customer.getLastName());
-        System.out.println("Room: " + room.getRoomNumber() + " (" + room.getRoomType() + ")");
+        report("\n========================================");
+        report("         PAYMENT CONFIRMATION");
+        report("========================================");
+        report("Customer: " + customer.getFirstName() + " " + customer.getLastName());
+        report("Room: " + room.getRoomNumber() + " (" + room.getRoomType() + ")");
         if(isFreeUpgrade) {
-            System.out.println("*** FREE UPGRADE APPLIED (Standard Price) ***");
+            report("*** FREE UPGRADE APPLIED (Standard Price) ***");
         }
-        System.out.println("Check-in:  " + checkIn);
-        System.out.println("Check-out: " + checkOut);
-        System.out.println("----------------------------------------");
-        System.out.printf("Total Amount:      $%.2f%n", totalAmount);
+        report("Check-in:  " + checkIn);
+        report("Check-out: " + checkOut);
+        report("----------------------------------------");
+        report(String.format("Total Amount:      $%.2f", totalAmount));
         if (discount > 0) {
-            System.out.printf("Loyalty Discount: -$%.2f%n", discount);
+            report(String.format("Loyalty Discount: -$%.2f", discount));
         }
-        System.out.printf("FINAL TO PAY:      $%.2f%n", finalPrice);
-        System.out.println("========================================");
+        report(String.format("FINAL TO PAY:      $%.2f", finalPrice));
+        report("========================================");
     }
 
+    /**
+     * Quotes every stay of 1..maxNights nights for the arrival dates from firstArrival on,
+     * once per rate plan (rooms of the same plan have the same prices), e.g. for channel feeds.
+     * Quotes equal the prices the stays are booked at, seasonal and holiday rates included (see QuoteGrid).
+     * @return Rate plan key (see Room.getRatePlanKey) -> its quotes, in room order.
+     */
+    public LinkedHashMap<String, QuoteGrid> quoteRatePlans(LocalDate firstArrival, int arrivals, int maxNights) {
+        LinkedHashMap<String, QuoteGrid> grids = new LinkedHashMap<>();
+        for (Room room : rooms) {
+            if (!grids.containsKey(room.getRatePlanKey())) {
+                grids.put(room.getRatePlanKey(), new QuoteGrid(room, firstArrival, arrivals, maxNights));
+            }
+        }
+        return grids;
+    }
+
+    /**
+     * Finds the room to offer as a free upgrade for a stay: standard rooms are upgraded to deluxe ones,
+     * deluxe rooms have no upgrade. Only rooms free on every night
+     * of the stay are considered (see findBestRoom).
+     * @return The room, or null if there is no upgrade.
+     */
+    public Room findUpgrade(Room requested, LocalDate checkIn, LocalDate checkOut) {
+        if (!(requested instanceof StandardRoom)) return null;
+        return findBestRoom("Deluxe Room", checkIn, checkOut);
+    }
+
+    /**
+     * Picks the room of the type to assign for a stay, among the rooms free on every night of it.
+     * Within the inventory horizon, the room whose free nights around the stay fit it most tightly
+     * is chosen (see RoomInventory.findBestFit); beyond it, the first free room.
+     * @param roomType "Standard Room" or "Deluxe Room" (see Room.getRoomType).
+     * @return The room, or null if none is free.
+     */
+    public Room findBestRoom(String roomType, LocalDate checkIn, LocalDate checkOut) {
+        long in = checkIn.toEpochDay();
+        long out = checkOut.toEpochDay();
+        if (inventory.covers(in, out)) return inventory.findBestFit(roomType, in, out);
+        for (Room room : rooms) {
+            if (room.getRoomType().equals(roomType) && room.isAvailable(in, out)) return room;
+        }
+        return null;
+    }
+
+    //Returns the first deluxe room free tonight, or null.
     public Room findAvailableDeluxeRoom() {
+        LocalDate today = LocalDate.now();
+        ArrayList<Room> free = inventory.findFreeRooms("Deluxe Room", today.toEpochDay(), today.toEpochDay() + 1);
+        if (free != null) return free.isEmpty() ? null : free.get(0);
         for (Room r : rooms) {
-            if (r instanceof DeluxeRoom && r.isClean()) {
+            if (r instanceof DeluxeRoom && r.isAvailable(today, today.plusDays(1))) {
                 return r;
             }
         }
@@ -345,5 +915,34 @@ public class Hotel {
     public ArrayList<Room> getRooms() { return rooms; }
     public ArrayList<Customer> getCustomers() { return customers; }
     public ArrayList<Reservation> getReservations() { return reservations; }
+    public HotelStatistics getStatistics() { return statistics; }
+    public RoomInventory getInventory() { return inventory; }
+    //Counters and latency histograms of bookings, searches, lookups, loads and saves.
+    public Metrics getMetrics() { return metrics; }
+    public HotelJournal getJournal() { return journal; }
+    public void setJournal(HotelJournal journal) { this.journal = journal; }
+    public ReservationArchive getArchive() { return archive; }
+    public HotelListener getListener() { return listener; }
+    public void setListener(HotelListener listener) { this.listener = listener; }
+    public HistoryLoader getHistoryLoader() { return historyLoader; }
+    public void setHistoryLoader(HistoryLoader historyLoader) { this.historyLoader = historyLoader; }
+    public CustomerDirectory getCustomerDirectory() { return directory; }
+    //Shares customers with the other hotels using the same directory. Set it before loading any customer.
+    public void setCustomerDirectory(CustomerDirectory directory) { this.directory = directory; }
+
+    /**
+     * Attaches an archive (or detaches it with null). Call after loading, before bookings start:
+     * archived reservations are added to the statistics, since they are not in the lists.
+     */
+    public void setArchive(ReservationArchive archive) {
+        this.archive = archive;
+        if (archive == null) return;
+        archive.forEach(this, res -> {
+            // Reservations still in the lists (archived just before a crash) are already counted
+            if (!reservationsById.containsKey(res.getReservationId())) {
+                statistics.recordReservation(res);
+            }
+        });
+    }
     public int getTotalRooms() { return rooms.size(); }
 }
@@ -0,0 +1,30 @@
+package com.hotel.model;
+
+/**
+ * Receives every change made to a Hotel, so it can be written to disk right away.
+ * The Hotel calls these methods after the change is applied in memory,
+ * then calls commit() once before the operation returns to its caller.
+ */
+public interface HotelJournal {
+
+    void roomAdded(Room room);
+
+    void customerRegistered(Customer customer);
+
+    void reservationAdded(Reservation res);
+
+    /**
+     * Called when a customer's points balance changes (booking, redeeming).
+     * @param customer The customer, already holding the new balance.
+     */
+    void loyaltyPointsChanged(Customer customer);
+
+    void reservationStatusChanged(Reservation res);
+
+    /**
+     * Makes every change recorded so far durable.
+     * Concurrent callers may share one disk flush (group commit).
+     * @return false if the changes could not be written; the caller should not report them as saved.
+     */
+    boolean commit();
+}
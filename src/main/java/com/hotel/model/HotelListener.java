@@ -0,0 +1,15 @@
+package com.hotel.model;
+
+/**
+ * Receives the messages the hotel and the data service report (booking details, warnings, errors).
+ * Nothing is printed by the core itself: the console UI subscribes and prints them,
+ * and code that calls the hotel directly can leave the listener unset.
+ */
+public interface HotelListener {
+
+    /**
+     * Called once per message line, on the thread that made the change.
+     * Called outside the room and customer locks, so it may be slow.
+     */
+    void message(String text);
+}
@@ -0,0 +1,98 @@
+package com.hotel.model;
+
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+
+//Keeps running totals for the admin panel.
+//Every reservation is recorded once when it is added to the hotel,
+//so revenue, occupancy and popularity can be read without rescanning all reservations.
+//Updates from concurrent bookings only contend on the counters they touch.
+public class HotelStatistics {
+    private final DoubleAdder totalRevenue;
+    private final ConcurrentHashMap<Long, Integer> occupiedRoomsByNight; // epoch day -> rooms occupied that night
+    private final ConcurrentHashMap<String, Integer> bookingsByRoom; // room number -> number of bookings
+    private volatile String mostPopularRoomNumber;
+    private volatile int mostPopularCount;
+
+    public HotelStatistics() {
+        this.totalRevenue = new DoubleAdder();
+        this.occupiedRoomsByNight = new ConcurrentHashMap<>();
+        this.bookingsByRoom = new ConcurrentHashMap<>();
+        this.mostPopularRoomNumber = null;
+        this.mostPopularCount = 0;
+    }
+
+    /**
+     * Adds a reservation to the running totals.
+     * Must be called before the reservation is added to its room,
+     * so nights the room already had booked are not counted twice
+     * (and under the room's lock when other threads may book the same room).
+     * @param res The reservation being added to the hotel.
+     */
+    public void recordReservation(Reservation res) {
+        Room room = res.getRoom();
+        totalRevenue.add(res.calculateTotalAmount());
+
+        int count = bookingsByRoom.merge(room.getRoomNumber(), 1, Integer::sum);
+        if (count > mostPopularCount) {
+            updateMostPopular(room.getRoomNumber(), count);
+        }
+
+        if (res.isCancelled()) return;
+        for (long night = res.getCheckInDay(); night < res.getCheckOutDay(); night++) {
+            if (room.isAvailable(night, night + 1)) {
+                occupiedRoomsByNight.merge(night, 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * Updates the occupancy after a reservation was cancelled or un-cancelled.
+     * Must be called under the room's lock while the room's nights leave the stay out:
+     * after a cancellation freed them, or before a reactivated stay books them again.
+     * Only the nights the room has free without this stay are counted, as in recordReservation.
+     * @param oldStatus The status before the change (see Reservation.getStatus).
+     */
+    public void recordStatusChange(Reservation res, String oldStatus) {
+        boolean wasCancelled = "CANCELLED".equals(oldStatus);
+        if (wasCancelled == res.isCancelled()) return;
+        int change = wasCancelled ? 1 : -1;
+        Room room = res.getRoom();
+        for (long night = res.getCheckInDay(); night < res.getCheckOutDay(); night++) {
+            if (room.isAvailable(night, night + 1)) {
+                occupiedRoomsByNight.merge(night, change, Integer::sum);
+            }
+        }
+    }
+
+    // Re-checked under the lock so a slower thread cannot overwrite a higher count
+    private synchronized void updateMostPopular(String roomNumber, int count) {
+        if (count > mostPopularCount) {
+            mostPopularRoomNumber = roomNumber;
+            mostPopularCount = count;
+        }
+    }
+
+    public double getTotalRevenue() {
+        return totalRevenue.sum();
+    }
+
+    //Number of rooms with an active reservation for the night of the given date.
+    public int getOccupiedRooms(LocalDate night) {
+        return occupiedRoomsByNight.getOrDefault(night.toEpochDay(), 0);
+    }
+
+    public int getBookingCount(String roomNumber) {
+        return bookingsByRoom.getOrDefault(roomNumber, 0);
+    }
+
+    //Room number with the most bookings, or null if nothing was booked yet.
+    public String getMostPopularRoomNumber() {
+        return mostPopularRoomNumber;
+    }
+
+    public int getMostPopularCount() {
+        return mostPopularCount;
+    }
+}
@@ -0,0 +1,95 @@
+package com.hotel.model;
+
+import java.time.LocalDate;
+
+//Prices of every stay length for a run of arrival dates, for one room (or rate plan), computed in bulk.
+//Each quote is the price the room would book the stay at (Room.calculateStayPrice): stays inside the
+//room's rate calendar come from its rounded cents, seasons and holidays included, as
+//(prefix[last] - prefix[first]) / 100; other stays sum calculatePrice night by night.
+//The night-by-night totals grow one night at a time: totals[n][a] = totals[n - 1][a] + rate[a + n - 1],
+//the same sum in the same order as that loop. The inner loops run over contiguous arrays,
+//which HotSpot compiles to SIMD instructions.
+public class QuoteGrid {
+    private final long firstArrival;
+    private final int arrivals;
+    private final int maxNights;
+    private final double[] totals; // [nights - 1][arrival], flattened
+
+    /**
+     * Quotes every stay of 1..maxNights nights for arrivals on firstArrival and the following days.
+     * @param room The room whose rate calendar, or calculatePrice outside it, defines the nightly rates.
+     * @param arrivals Number of arrival dates, e.g. 365.
+     * @param maxNights Longest stay quoted.
+     */
+    public QuoteGrid(Room room, LocalDate firstArrival, int arrivals, int maxNights) {
+        if (arrivals <= 0 || maxNights <= 0) {
+            throw new IllegalArgumentException("Arrivals and stay length must be positive");
+        }
+        this.firstArrival = firstArrival.toEpochDay();
+        this.arrivals = arrivals;
+        this.maxNights = maxNights;
+        this.totals = new double[arrivals * maxNights];
+        int nights = arrivals + maxNights - 1;
+
+        // The nights [covered, covered + prefix.length - 1) are inside the rate calendar, read from one horizon
+        int covered = 0;
+        long[] prefix = null;
+        RateCalendar calendar = room.getRateCalendar();
+        if (calendar != null) {
+            covered = (int) Math.max(0, Math.min(nights, calendar.getStartDate().toEpochDay() - this.firstArrival));
+            if (covered < nights) prefix = calendar.findPrefixCents(firstArrival.plusDays(covered), nights - covered);
+        }
+        int coveredEnd = prefix == null ? covered : covered + prefix.length - 1;
+
+        // Stays not inside the calendar: one night is the first rate, each longer stay adds its last night
+        if (covered > 0 || coveredEnd < nights) {
+            double[] rates = new double[nights];
+            LocalDate night = firstArrival;
+            for (int i = 0; i < nights; i++) {
+                rates[i] = room.calculatePrice(night);
+                night = night.plusDays(1);
+            }
+            double[] previous = new double[arrivals];
+            for (int n = 0; n < maxNights; n++) {
+                for (int a = 0; a < arrivals; a++) {
+                    previous[a] += rates[a + n];
+                }
+                System.arraycopy(previous, 0, totals, n * arrivals, arrivals);
+            }
+        }
+        // Stays inside the calendar: the difference of two prefix sums, as in RateCalendar.findStayTotal
+        if (prefix != null) {
+            for (int n = 0; n < maxNights; n++) {
+                int row = n * arrivals;
+                int last = Math.min(arrivals, coveredEnd - n); // Arrivals whose last night is still covered
+                for (int a = covered; a < last; a++) {
+                    totals[row + a] = (prefix[a - covered + n + 1] - prefix[a - covered]) / 100.0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Price of a stay of the given length, arriving on the given date.
+     * @throws IllegalArgumentException If the stay is not in the grid.
+     */
+    public double getQuote(LocalDate arrival, int nights) {
+        long a = arrival.toEpochDay() - firstArrival;
+        if (a < 0 || a >= arrivals || nights < 1 || nights > maxNights) {
+            throw new IllegalArgumentException("No quote for " + nights + " nights from " + arrival);
+        }
+        return totals[(nights - 1) * arrivals + (int) a];
+    }
+
+    //The prices of all arrivals for one stay length, in arrival order (a copy).
+    public double[] getQuotes(int nights) {
+        if (nights < 1 || nights > maxNights) throw new IllegalArgumentException("No quotes for " + nights + " nights");
+        double[] row = new double[arrivals];
+        System.arraycopy(totals, (nights - 1) * arrivals, row, 0, arrivals);
+        return row;
+    }
+
+    public LocalDate getFirstArrival() { return LocalDate.ofEpochDay(firstArrival); }
+    public int getArrivals() { return arrivals; }
+    public int getMaxNights() { return maxNights; }
+}
@@ -0,0 +1,173 @@
+package com.hotel.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+//Precomputed nightly rates for one rate plan (rooms of the same type and price).
+//Rates are kept in cents for every night of a rolling horizon, together with their prefix sums,
+//so the price of any stay inside the horizon is one subtraction.
+public class RateCalendar {
+    public static final int DEFAULT_HORIZON_DAYS = 730; // About two years
+
+    private final Reservable pricing;
+    private final int horizonDays;
+    private final ArrayList<double[]> seasons; // {fromEpochDay, toEpochDay, multiplier}
+    private final ArrayList<double[]> holidays; // {epochDay, rate}
+    private volatile Rates rates; // Replaced as a whole, so a reader never mixes two horizons
+
+    // One horizon's rates; never changed once published
+    private static final class Rates {
+        final long startDay;
+        final long[] nightlyCents;
+        final long[] prefixCents; // prefixCents[i] = sum of nightlyCents[0 .. i-1]
+
+        Rates(long startDay, long[] nightlyCents, long[] prefixCents) {
+            this.startDay = startDay;
+            this.nightlyCents = nightlyCents;
+            this.prefixCents = prefixCents;
+        }
+    }
+
+    /**
+     * Builds the calendar from a room's own pricing rule.
+     * @param pricing The room (or any Reservable) whose calculatePrice defines the base rates.
+     *                A room's prices are captured now (see Room.getFixedPricing), so other rooms
+     *                sharing the calendar keep their rates when this one is repriced.
+     * @param start First night covered by the calendar.
+     * @param horizonDays Number of nights covered.
+     */
+    public RateCalendar(Reservable pricing, LocalDate start, int horizonDays) {
+        if (horizonDays <= 0) {
+            throw new IllegalArgumentException("Horizon must be positive: " + horizonDays);
+        }
+        this.pricing = pricing instanceof Room room ? room.getFixedPricing() : pricing;
+        this.horizonDays = horizonDays;
+        this.seasons = new ArrayList<>();
+        this.holidays = new ArrayList<>();
+        this.rates = computeRates(start.toEpochDay());
+    }
+
+    /**
+     * Moves the horizon to start at the given night and recomputes every rate.
+     * Seasonal and holiday rates are applied again on top of the new base rates.
+     * Prices read at the same time come from either the old or the new horizon, never a mix.
+     */
+    public synchronized void rollTo(LocalDate start) {
+        rates = computeRates(start.toEpochDay());
+    }
+
+    // Called from the constructor or with the calendar's lock held
+    private Rates computeRates(long startDay) {
+        long[] nightlyCents = new long[horizonDays];
+        long[] prefixCents = new long[horizonDays + 1];
+
+        LocalDate date = LocalDate.ofEpochDay(startDay);
+        for (int i = 0; i < horizonDays; i++) {
+            nightlyCents[i] = Math.round(pricing.calculatePrice(date) * 100);
+            date = date.plusDays(1);
+        }
+        for (double[] season : seasons) {
+            int from = clampIndex(startDay, (long) season[0]);
+            int to = clampIndex(startDay, (long) season[1]);
+            for (int i = from; i < to; i++) {
+                nightlyCents[i] = Math.round(nightlyCents[i] * season[2]);
+            }
+        }
+        // Holidays are fixed prices, so they win over seasons
+        for (double[] holiday : holidays) {
+            long index = (long) holiday[0] - startDay;
+            if (index >= 0 && index < horizonDays) {
+                nightlyCents[(int) index] = Math.round(holiday[1] * 100);
+            }
+        }
+        for (int i = 0; i < horizonDays; i++) {
+            prefixCents[i + 1] = prefixCents[i] + nightlyCents[i];
+        }
+        return new Rates(startDay, nightlyCents, prefixCents);
+    }
+
+    /**
+     * Multiplies the rate of every night in [from, to) by the given factor,
+     * on top of the weekend rule (e.g. 1.5 for high season, 0.8 for low season).
+     */
+    public synchronized void applySeasonalRate(LocalDate from, LocalDate to, double multiplier) {
+        seasons.add(new double[]{from.toEpochDay(), to.toEpochDay(), multiplier});
+        rollTo(getStartDate());
+    }
+
+    //Replaces the rate of a single night (e.g. New Year's Eve) with a fixed price.
+    public synchronized void setHolidayRate(LocalDate night, double rate) {
+        holidays.add(new double[]{night.toEpochDay(), rate});
+        rollTo(getStartDate());
+    }
+
+    //Checks if every night of the stay is inside the horizon.
+    public boolean covers(LocalDate checkIn, LocalDate checkOut) {
+        Rates r = rates;
+        long from = checkIn.toEpochDay() - r.startDay;
+        long to = checkOut.toEpochDay() - r.startDay;
+        return from >= 0 && to <= horizonDays;
+    }
+
+    /**
+     * Price of all nights in [checkIn, checkOut), in O(1).
+     * Callers must check covers() first; use findStayTotal when the calendar may roll in between.
+     * @return The total, or 0 if check-out is not after check-in.
+     */
+    public double getStayTotal(LocalDate checkIn, LocalDate checkOut) {
+        Rates r = rates;
+        int from = (int) (checkIn.toEpochDay() - r.startDay);
+        int to = (int) (checkOut.toEpochDay() - r.startDay);
+        if (to <= from) return 0;
+        return (r.prefixCents[to] - r.prefixCents[from]) / 100.0;
+    }
+
+    /**
+     * Same as covers() and then getStayTotal(), checked and priced on the same horizon.
+     * @return The total, or -1 if the stay is not inside the horizon.
+     */
+    public double findStayTotal(LocalDate checkIn, LocalDate checkOut) {
+        Rates r = rates;
+        long from = checkIn.toEpochDay() - r.startDay;
+        long to = checkOut.toEpochDay() - r.startDay;
+        if (from < 0 || to > horizonDays) return -1;
+        if (to <= from) return 0;
+        return (r.prefixCents[(int) to] - r.prefixCents[(int) from]) / 100.0;
+    }
+
+    /**
+     * Prefix sums, in cents, of the nightly rates from the given night on, for at most the given
+     * number of nights and no further than the horizon, all from one horizon:
+     * element i is the price of the first i nights (see QuoteGrid).
+     * @return null if the night is not inside the horizon.
+     */
+    public long[] findPrefixCents(LocalDate from, int nights) {
+        Rates r = rates;
+        long index = from.toEpochDay() - r.startDay;
+        if (index < 0 || index >= horizonDays) return null;
+        int first = (int) index;
+        int count = Math.min(nights, horizonDays - first);
+        long[] prefix = new long[count + 1];
+        for (int i = 1; i <= count; i++) {
+            prefix[i] = r.prefixCents[first + i] - r.prefixCents[first];
+        }
+        return prefix;
+    }
+
+    public double getNightlyRate(LocalDate night) {
+        Rates r = rates;
+        return r.nightlyCents[(int) (night.toEpochDay() - r.startDay)] / 100.0;
+    }
+
+    public LocalDate getStartDate() {
+        return LocalDate.ofEpochDay(rates.startDay);
+    }
+
+    public int getHorizonDays() {
+        return horizonDays;
+    }
+
+    private int clampIndex(long startDay, long epochDay) {
+        return (int) Math.max(0, Math.min(horizonDays, epochDay - startDay));
+    }
+}
@@ -1,18 +1,28 @@
 package com.hotel.model;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 //This class holds information about a single reservation.
 //It links a Customer, a Room, and the Dates.
+//A hotel keeps every reservation in memory, so the fields are kept small:
+//dates are an epoch day and a number of nights, and the status is a code (32 bytes instead of about 90).
 public class Reservation {
-    private static int reservationCounter = 0;
+    private static final AtomicInteger reservationCounter = new AtomicInteger();
+
+    // Status texts by code. The usual ones are fixed, others get a code when first seen.
+    private static final List<String> statusNames = new CopyOnWriteArrayList<>(List.of("PENDING", "CONFIRMED", "CANCELLED"));
+    private static final byte PENDING = 0;
+    private static final byte CANCELLED = 2;
 
     private final String reservationId;
     private Customer customer;
     private Room room;
-    private LocalDate checkInDate;
-    private LocalDate checkOutDate;
-    private String status; // PENDING, CONFIRMED, CANCELLED
+    private int checkInDay; // Epoch day
+    private short nights; // Check-out is checkInDay + nights
+    private byte status; // PENDING, CONFIRMED, CANCELLED (index in statusNames)
 
     /**
      * Creates a new Reservation.
@@ -22,31 +32,69 @@ public class Reservation {
      * @param checkOutDate The check-out date.
      */
     public Reservation(Customer customer, Room room, LocalDate checkInDate, LocalDate checkOutDate) {
-        this.reservationId = generateId();
+        this(null, customer, room, checkInDate, checkOutDate);
+    }
+
+    /**
+     * Restores a reservation with a known ID (e.g. from a file).
+     * New IDs generated afterwards will not collide with it.
+     * @param reservationId The saved ID, or null to generate a new one.
+     */
+    public Reservation(String reservationId, Customer customer, Room room, LocalDate checkInDate, LocalDate checkOutDate) {
+        this.reservationId = reservationId == null ? generateId() : keepId(reservationId);
         this.customer = customer;
         this.room = room;
-        this.checkInDate = checkInDate;
-        this.checkOutDate = checkOutDate;
-        this.status = "PENDING";
+        this.checkInDay = (int) checkInDate.toEpochDay();
+        this.nights = nightsBetween(checkInDay, checkOutDate);
+        this.status = PENDING;
+    }
+
+    private static short nightsBetween(int checkInDay, LocalDate checkOutDate) {
+        long nights = checkOutDate.toEpochDay() - checkInDay;
+        if (nights < Short.MIN_VALUE || nights > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Stay is too long: " + nights + " nights");
+        }
+        return (short) nights;
+    }
+
+    private static byte statusCode(String status) {
+        int code = statusNames.indexOf(status);
+        if (code >= 0) return (byte) code;
+        synchronized (statusNames) {
+            code = statusNames.indexOf(status);
+            if (code < 0) {
+                if (statusNames.size() > Byte.MAX_VALUE) throw new IllegalArgumentException("Too many reservation statuses: " + status);
+                statusNames.add(status);
+                code = statusNames.size() - 1;
+            }
+        }
+        return (byte) code;
     }
 
     private String generateId() {
-        reservationCounter++;
-        return "RES" + reservationCounter;
+        return "RES" + reservationCounter.incrementAndGet();
+    }
+
+    //Moves the counter past a loaded ID like "RES42"
+    private String keepId(String reservationId) {
+        if (reservationId.startsWith("RES")) {
+            try {
+                int number = Integer.parseInt(reservationId.substring(3));
+                reservationCounter.accumulateAndGet(number, Math::max);
+            } catch (NumberFormatException e) {
+                // Not a generated ID, nothing to reserve
+            }
+        }
+        return reservationId;
     }
 
     /**
-     * Calculates the total cost by summing up the price of each night.
-     * It uses the room's calculatePrice method.
+     * Calculates the total cost of every night of the stay.
+     * The room answers from its rate calendar when it can,
+     * otherwise it sums its calculatePrice night by night.
      */
     public double calculateTotalAmount() {
-        double totalAmount = 0;
-        LocalDate date = checkInDate;
-        while (date.isBefore(checkOutDate)) {
-            totalAmount += room.calculatePrice(date);
-            date = date.plusDays(1);
-        }
-        return totalAmount;
+        return room.calculateStayPrice(getCheckInDate(), getCheckOutDate());
     }
 
     // Getters and Setters
@@ -55,19 +103,35 @@ public class Reservation {
     public void setCustomer(Customer customer) { this.customer = customer; }
     public Room getRoom() { return room; }
     public void setRoom(Room room) { this.room = room; }
-    public LocalDate getCheckInDate() { return checkInDate; }
-    public void setCheckInDate(LocalDate checkInDate) { this.checkInDate = checkInDate; }
-    public LocalDate getCheckOutDate() { return checkOutDate; }
-    public void setCheckOutDate(LocalDate checkOutDate) { this.checkOutDate = checkOutDate; }
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public LocalDate getCheckInDate() { return LocalDate.ofEpochDay(checkInDay); }
+    public LocalDate getCheckOutDate() { return LocalDate.ofEpochDay(getCheckOutDay()); }
+    public String getStatus() { return statusNames.get(status); }
+    public void setStatus(String status) { this.status = statusCode(status); }
+
+    //Keeps the check-out date.
+    public void setCheckInDate(LocalDate checkInDate) {
+        LocalDate checkOut = getCheckOutDate();
+        int day = (int) checkInDate.toEpochDay();
+        this.nights = nightsBetween(day, checkOut);
+        this.checkInDay = day;
+    }
+
+    public void setCheckOutDate(LocalDate checkOutDate) {
+        this.nights = nightsBetween(checkInDay, checkOutDate);
+    }
+
+    // Dates as epoch days, for loops that would otherwise create a LocalDate per call
+    public int getCheckInDay() { return checkInDay; }
+    public int getCheckOutDay() { return checkInDay + nights; }
+    public int getNights() { return nights; }
+    public boolean isCancelled() { return status == CANCELLED; }
 
     public void displayInfo() {
         System.out.println("Reservation ID: " + reservationId);
         System.out.println("Customer: " + customer.getFirstName() + " " + customer.getLastName());
         System.out.println("Room: " + room.getRoomNumber());
-        System.out.println("Dates: " + checkInDate + " to " + checkOutDate);
+        System.out.println("Dates: " + getCheckInDate() + " to " + getCheckOutDate());
         System.out.println("Total: $" + calculateTotalAmount());
-        System.out.println("Status: " + status);
+        System.out.println("Status: " + getStatus());
     }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.hotel.model;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Storage for reservations that have ended, so they no longer take heap space
+ * (see Hotel.archiveReservations). Archived reservations are read back only when
+ * someone looks at an old history, and are not changed any more.
+ * Reservations read back are new objects pointing to the hotel's real customer and room.
+ */
+public interface ReservationArchive {
+
+    /**
+     * Stores the reservations. They are durable when this returns.
+     * Storing a reservation that is already archived replaces it.
+     * @throws IOException If any of them cannot be stored (see canArchive); then none is.
+     */
+    void archive(List<Reservation> reservations) throws IOException;
+
+    //Checks if the reservation can be stored (e.g. its ID and email fit the storage's limits).
+    default boolean canArchive(Reservation res) {
+        return true;
+    }
+
+    /**
+     * @return The archived reservation, or null if it is not in the archive.
+     */
+    Reservation find(String reservationId, Hotel hotel);
+
+    //Archived reservations of the customer, sorted by check-in date.
+    List<Reservation> findByCustomer(Customer customer, Hotel hotel);
+
+    int countByCustomer(Customer customer);
+
+    //Streams every archived reservation (e.g. to rebuild statistics at startup).
+    void forEach(Hotel hotel, Consumer<Reservation> action);
+
+    int size();
+
+    void close();
+}
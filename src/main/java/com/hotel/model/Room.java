@@ -1,6 +1,8 @@
 package com.hotel.model;
 
+import com.hotel.util.DateRangeSet;
 import java.util.ArrayList;
+import java.util.Set;
 import java.time.LocalDate;
 
  //Abstract class representing a general Room in the hotel.
@@ -12,6 +14,12 @@ public abstract class Room implements Reservable {
     private double basePrice;
     private boolean isClean;
     private final ArrayList<Reservation> reservations;
+    private final DateRangeSet bookedNights; // Index of nights taken by active reservations (and holds)
+    private final ArrayList<long[]> holds = new ArrayList<>(); // {checkInDay, checkOutDay} held for a block booking (see hold)
+    private RateCalendar rateCalendar; // Shared precomputed rates, null if not attached
+    private volatile HistoryLoader historyLoader; // Set while older reservations are still on disk (lazy loading)
+    private RoomInventory inventory; // The hotel's night bitsets, kept in sync with bookedNights; null if not in a hotel
+    private int inventoryIndex;
 
     /**
      * Constructor to initialize a Room.
@@ -27,17 +35,158 @@ public abstract class Room implements Reservable {
         this.basePrice = basePrice;
         this.isClean = true;
         this.reservations = new ArrayList<>();
+        this.bookedNights = new DateRangeSet();
     }
 
     // Abstract method: Child classes (Standard, Deluxe) must implement their own pricing logic.
     public abstract double calculatePrice(LocalDate date);
 
+    /**
+     * Calculates the price of all nights in [checkIn, checkOut).
+     * Uses the attached rate calendar when it covers the stay (O(1)),
+     * otherwise sums calculatePrice night by night.
+     */
+    public double calculateStayPrice(LocalDate checkIn, LocalDate checkOut) {
+        RateCalendar calendar = rateCalendar;
+        if (calendar != null) {
+            double total = calendar.findStayTotal(checkIn, checkOut);// One read, even if the calendar rolls meanwhile
+            if (total >= 0) return total;
+        }
+        double total = 0;
+        LocalDate date = checkIn;
+        while (date.isBefore(checkOut)) {
+            total += calculatePrice(date);
+            date = date.plusDays(1);
+        }
+        return total;
+    }
+
+    /**
+     * The room's current pricing rule as a value of its own, for a RateCalendar to keep:
+     * later changes to the room (setBasePrice, setLuxuryTax) do not change it.
+     * Room prices only depend on the day of the week, so one week of rates is captured;
+     * a room type priced otherwise must override this.
+     */
+    public Reservable getFixedPricing() {
+        double[] week = new double[7];
+        LocalDate monday = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < 7; i++) {
+            week[i] = calculatePrice(monday.plusDays(i));
+        }
+        String roomType = getRoomType();
+        return new Reservable() {
+            @Override
+            public double calculatePrice(LocalDate date) {
+                return week[date.getDayOfWeek().getValue() - 1];
+            }
+
+            @Override
+            public String getRoomType() {
+                return roomType;
+            }
+        };
+    }
+
+    /**
+     * Rooms with the same key always have the same nightly prices,
+     * so they can share one RateCalendar.
+     */
+    public String getRatePlanKey() {
+        return getRoomType() + "|" + basePrice;
+    }
+
     /**
      * Adds a new reservation to this room's history.
+     * The room's own monitor is its booking lock (see Hotel.bookRoom).
      * @param res The reservation object.
      */
-    public void addReservation(Reservation res) {
+    public synchronized void addReservation(Reservation res) {
         reservations.add(res);
+        if (!res.isCancelled()) {
+            bookedNights.add(res.getCheckInDay(), res.getCheckOutDay());
+            if (inventory != null) inventory.markBooked(inventoryIndex, res.getCheckInDay(), res.getCheckOutDay());
+        }
+    }
+
+    // Blocks the nights of a reservation that is not loaded (lazy history). They are past nights,
+    // so losing them in a later refreshAvailability does not matter for new bookings.
+    synchronized void addBookedNights(long checkInDay, long checkOutDay) {
+        bookedNights.add(checkInDay, checkOutDay);
+        if (inventory != null) inventory.markBooked(inventoryIndex, checkInDay, checkOutDay);
+    }
+
+    /**
+     * Blocks the nights for a block booking that is still being placed (see Hotel.bookRooms),
+     * so no other booking can take them until the hold is booked or released.
+     * @return false if a night is already taken.
+     */
+    synchronized boolean hold(long checkInDay, long checkOutDay) {
+        if (bookedNights.overlaps(checkInDay, checkOutDay)) return false;
+        holds.add(new long[]{checkInDay, checkOutDay});
+        bookedNights.add(checkInDay, checkOutDay);
+        if (inventory != null) inventory.markBooked(inventoryIndex, checkInDay, checkOutDay);
+        return true;
+    }
+
+    //Frees the nights of a hold that will not be booked.
+    synchronized void releaseHold(long checkInDay, long checkOutDay) {
+        if (removeHold(checkInDay, checkOutDay)) refreshAvailability();
+    }
+
+    //Turns a hold into the reservation for the same nights.
+    synchronized void addHeldReservation(Reservation res) {
+        removeHold(res.getCheckInDay(), res.getCheckOutDay());
+        addReservation(res);
+    }
+
+    private boolean removeHold(long checkInDay, long checkOutDay) {
+        return holds.removeIf(h -> h[0] == checkInDay && h[1] == checkOutDay);
+    }
+
+    //Copies the booked nights to the inventory again, e.g. after its horizon moved.
+    synchronized void refreshInventory() {
+        if (inventory != null) inventory.copyRoom(inventoryIndex, bookedNights);
+    }
+
+    //Links the room to its hotel's inventory (see RoomInventory.addRoom) and copies its booked nights there.
+    synchronized void attachInventory(RoomInventory inventory, int index) {
+        this.inventory = inventory;
+        this.inventoryIndex = index;
+        if (!bookedNights.isEmpty()) inventory.copyRoom(index, bookedNights);// A new index has no bits set yet
+    }
+
+    /**
+     * Checks if the room is free for every night between the dates.
+     * @param checkIn First night of the stay.
+     * @param checkOut Departure day (not charged, not blocked).
+     * @return true if no active reservation overlaps the stay.
+     */
+    public synchronized boolean isAvailable(LocalDate checkIn, LocalDate checkOut) {
+        return !bookedNights.overlaps(checkIn, checkOut);
+    }
+
+    //Same as isAvailable(LocalDate, LocalDate), with epoch days.
+    public synchronized boolean isAvailable(long checkInDay, long checkOutDay) {
+        return !bookedNights.overlaps(checkInDay, checkOutDay);
+    }
+
+    //Drops reservations that were moved to the archive and rebuilds the availability index.
+    public synchronized void removeReservations(Set<Reservation> archived) {
+        if (reservations.removeIf(archived::contains)) {
+            refreshAvailability();
+        }
+    }
+
+    //Rebuilds the availability index, e.g. after a reservation was cancelled.
+    public synchronized void refreshAvailability() {
+        bookedNights.clear();
+        for (Reservation res : reservations) {
+            if (!res.isCancelled()) {
+                bookedNights.add(res.getCheckInDay(), res.getCheckOutDay());
+            }
+        }
+        for (long[] h : holds) bookedNights.add(h[0], h[1]);// Held nights stay blocked
+        if (inventory != null) inventory.copyRoom(inventoryIndex, bookedNights);
     }
 
     // Getters and Setters
@@ -61,8 +210,10 @@ public abstract class Room implements Reservable {
         return basePrice;
     }
 
+    //Rooms in a hotel should be repriced through Hotel.setBasePrice, which attaches the new rate plan's calendar.
     public void setBasePrice(double basePrice) {
         this.basePrice = basePrice;
+        this.rateCalendar = null;// Old rates are no longer valid
     }
 
     public boolean isClean() {
@@ -73,7 +224,24 @@ public abstract class Room implements Reservable {
         isClean = clean;
     }
 
+    public RateCalendar getRateCalendar() {
+        return rateCalendar;
+    }
+
+    public void setRateCalendar(RateCalendar rateCalendar) {
+        this.rateCalendar = rateCalendar;
+    }
+
     public ArrayList<Reservation> getReservations() {
+        HistoryLoader loader = historyLoader;
+        if (loader != null) {
+            loader.loadHistory(this);
+            historyLoader = null;
+        }
         return reservations;
     }
+
+    public void setHistoryLoader(HistoryLoader historyLoader) {
+        this.historyLoader = historyLoader;
+    }
 }
@@ -0,0 +1,271 @@
+package com.hotel.model;
+
+import com.hotel.util.DateRangeSet;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//Which rooms are booked on which night, as one bitset per night over room indices,
+//for a rolling horizon of nights [firstDay, firstDay + nights). Every room gets an index when added
+//to the hotel, and each room type a mask of its indices, so "rooms free for a stay" is a word-wise AND
+//over its nights and "rooms booked tonight" a popcount.
+//Rooms keep their own bits up to date while holding their lock (see Room.attachInventory),
+//so bits of different rooms change concurrently: they are set and cleared with atomic word updates.
+//Queries read the words without atomics (plain loops the JIT can vectorize), so an answer may miss a
+//booking made at the same moment; bookings check the room again under its lock anyway.
+//Adding rooms and moving the horizon take the write lock, everything else the read lock.
+public class RoomInventory {
+    public static final int DEFAULT_HORIZON_NIGHTS = 400;
+    // How far the free nights around a stay are looked at when comparing upgrade candidates
+    private static final int MAX_GAP = 7;
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile long firstDay;
+    private final int nights;
+    private int words; // Longs per night
+    private long[] booked; // Night-major: bit (room % 64) of booked[night * words + room / 64]
+    private Room[] rooms = new Room[64];
+    private int roomCount;
+    private long[] allRooms = new long[1];
+    private final HashMap<String, long[]> typeMasks = new HashMap<>(); // Room type -> its rooms' bits
+
+    /**
+     * @param firstDay First night covered.
+     * @param nights Number of nights covered.
+     */
+    public RoomInventory(LocalDate firstDay, int nights) {
+        this.firstDay = firstDay.toEpochDay();
+        this.nights = nights;
+        this.words = 1;
+        this.booked = new long[nights];
+    }
+
+    //Checks if every night of the stay is covered, so the bitsets can answer for it.
+    public boolean covers(long checkInDay, long checkOutDay) {
+        long first = firstDay;
+        return checkInDay >= first && checkOutDay <= first + nights && checkInDay < checkOutDay;
+    }
+
+    /**
+     * Gives the room the next index and copies its booked nights in.
+     * Called by Hotel.addRoom, once per room.
+     */
+    void addRoom(Room room) {
+        int index;
+        lock.writeLock().lock();
+        try {
+            index = roomCount++;
+            if (index == rooms.length) rooms = Arrays.copyOf(rooms, index * 2);
+            rooms[index] = room;
+            if (index / 64 == words) grow(words * 2);
+            long[] mask = typeMasks.computeIfAbsent(room.getRoomType(), type -> new long[words]);
+            mask[index / 64] |= 1L << index;
+            allRooms[index / 64] |= 1L << index;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        room.attachInventory(this, index);
+    }
+
+    // Copies the bits into wider nights; the caller holds the write lock
+    private void grow(int newWords) {
+        long[] wider = new long[nights * newWords];
+        for (int night = 0; night < nights; night++) {
+            System.arraycopy(booked, night * words, wider, night * newWords, words);
+        }
+        typeMasks.replaceAll((type, mask) -> Arrays.copyOf(mask, newWords));
+        allRooms = Arrays.copyOf(allRooms, newWords);
+        booked = wider;
+        words = newWords;
+    }
+
+    /**
+     * Moves the horizon so it starts on the given night. Nights before it are dropped;
+     * the new nights at the end are filled in from each room's booked nights.
+     * Does nothing if the horizon already starts there or later.
+     */
+    public void advance(LocalDate newFirstDay) {
+        Room[] toRefill;
+        lock.writeLock().lock();
+        try {
+            int shift = (int) Math.min(nights, newFirstDay.toEpochDay() - firstDay);
+            if (shift <= 0) return;
+            System.arraycopy(booked, shift * words, booked, 0, (nights - shift) * words);
+            Arrays.fill(booked, (nights - shift) * words, nights * words, 0);
+            firstDay = newFirstDay.toEpochDay();
+            toRefill = Arrays.copyOf(rooms, roomCount);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Under each room's lock, without ours (rooms take their lock first, then ours).
+        // Until a room is refilled, its new nights look free: a hint only, as for any query.
+        for (Room room : toRefill) room.refreshInventory();
+    }
+
+    /**
+     * Sets the room's bits for the nights [from, to) that are covered.
+     * Called with the room's lock held.
+     */
+    void markBooked(int room, long from, long to) {
+        lock.readLock().lock();
+        try {
+            long bit = 1L << room;
+            int start = (int) (Math.max(from, firstDay) - firstDay);
+            int end = (int) (Math.min(to, firstDay + nights) - firstDay);
+            for (int night = start; night < end; night++) {
+                WORDS.getAndBitwiseOr(booked, night * words + room / 64, bit);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Sets the room's bits from its booked nights. Called with the room's lock held.
+    void copyRoom(int room, DateRangeSet bookedNights) {
+        lock.readLock().lock();// Keeps the horizon still between clearing and marking
+        try {
+            clearRoom(room);
+            long[] ranges = bookedNights.rangesBetween(firstDay, firstDay + nights);
+            for (int i = 0; i < ranges.length; i += 2) {
+                markBooked(room, ranges[i], ranges[i + 1]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Clears every bit of the room; the caller holds the read lock
+    private void clearRoom(int room) {
+        long keep = ~(1L << room);
+        for (int night = 0; night < nights; night++) {
+            WORDS.getAndBitwiseAnd(booked, night * words + room / 64, keep);
+        }
+    }
+
+    /**
+     * The rooms free on every night of the stay, in the order they were added.
+     * @param roomType Only rooms of this type, or null for all rooms.
+     * @return null if the stay is not covered (the caller has to check the rooms one by one).
+     */
+    public ArrayList<Room> findFreeRooms(String roomType, long checkInDay, long checkOutDay) {
+        lock.readLock().lock();
+        try {
+            if (!covers(checkInDay, checkOutDay)) return null;
+            ArrayList<Room> free = new ArrayList<>();
+            long[] bits = freeBits(roomType, checkInDay, checkOutDay);
+            for (int w = 0; w < bits.length; w++) {
+                for (long word = bits[w]; word != 0; word &= word - 1) {
+                    free.add(rooms[w * 64 + Long.numberOfTrailingZeros(word)]);
+                }
+            }
+            return free;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of rooms booked for the night of the given day (a popcount of its bitset).
+     * @return -1 if the night is not covered.
+     */
+    public int countBooked(long night) {
+        lock.readLock().lock();
+        try {
+            if (!covers(night, night + 1)) return -1;
+            int base = (int) (night - firstDay) * words;
+            int count = 0;
+            for (int w = 0; w < words; w++) {
+                count += Long.bitCount(booked[base + w]);
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Picks the room of the type that is free for the whole stay and fits it best:
+     * the one with the fewest free nights left just before and just after the stay (up to a week each way).
+     * Filling a gap that fits the stay keeps the long free runs of other rooms for later guests,
+     * instead of cutting them into nights too short to sell.
+     * Ties go to the room added first. The result is a hint: book() checks the room again under its lock.
+     * @return The room, or null if none of the type is free (or the stay is not covered).
+     */
+    public Room findBestFit(String roomType, long checkInDay, long checkOutDay) {
+        lock.readLock().lock();
+        try {
+            if (!covers(checkInDay, checkOutDay)) return null;
+            long[] free = freeBits(roomType, checkInDay, checkOutDay);
+            if (firstBit(free) < 0) return null;
+
+            // before[k]: candidates whose k nights before check-in are all free; after[k] the same after check-out
+            long[][] before = freeRuns(free, (int) (checkInDay - firstDay) - 1, -1);
+            long[][] after = freeRuns(free, (int) (checkOutDay - firstDay), 1);
+            // Lowest total of free nights around the stay first: gap before <= i and gap after <= total - i
+            long[] fit = new long[words];
+            for (int total = 0; total <= 2 * MAX_GAP; total++) {
+                for (int i = Math.max(0, total - MAX_GAP); i <= Math.min(total, MAX_GAP); i++) {
+                    long[] longerBefore = before[i + 1];
+                    long[] longerAfter = after[total - i + 1];
+                    for (int w = 0; w < words; w++) {
+                        fit[w] = free[w] & ~longerBefore[w] & ~longerAfter[w];
+                    }
+                    int room = firstBit(fit);
+                    if (room >= 0) return rooms[room];
+                }
+            }
+            return rooms[firstBit(free)];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Rooms of the type (null = all) free on every night of a covered stay; the caller holds the read lock
+    private long[] freeBits(String roomType, long checkInDay, long checkOutDay) {
+        long[] mask = roomType == null ? allRooms : typeMasks.get(roomType);
+        if (mask == null) return new long[words];
+        long[] free = Arrays.copyOf(mask, words);
+        for (int night = (int) (checkInDay - firstDay); night < (int) (checkOutDay - firstDay); night++) {
+            andFree(free, night);
+        }
+        return free;
+    }
+
+    // Removes the rooms booked on the night from the set
+    private void andFree(long[] free, int night) {
+        long[] bits = booked;
+        int base = night * words;
+        for (int w = 0; w < free.length; w++) {
+            free[w] &= ~bits[base + w];
+        }
+    }
+
+    // runs[k] holds the candidates free for the k nights walked from 'start' in 'step' direction,
+    // for k = 0..MAX_GAP + 1. Nights outside the horizon count as booked.
+    private long[][] freeRuns(long[] candidates, int start, int step) {
+        long[][] runs = new long[MAX_GAP + 2][];
+        runs[0] = candidates.clone();
+        for (int k = 1; k < runs.length; k++) {
+            runs[k] = runs[k - 1].clone();
+            int night = start + (k - 1) * step;
+            if (night < 0 || night >= nights) {
+                Arrays.fill(runs[k], 0);
+            } else {
+                andFree(runs[k], night);
+            }
+        }
+        return runs;
+    }
+
+    private static int firstBit(long[] bits) {
+        for (int w = 0; w < bits.length; w++) {
+            if (bits[w] != 0) return w * 64 + Long.numberOfTrailingZeros(bits[w]);
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,231 @@
+package com.hotel.server;
+
+import com.hotel.model.*;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//HTTP/JSON booking API over a Hotel, for booking channels that call it concurrently.
+//Every request runs on its own virtual thread; the Hotel methods it calls are thread-safe.
+//  GET  /rooms/available?checkIn=2026-05-01&checkOut=2026-05-03
+//  POST /customers      {"firstName", "lastName", "email", "phone"}
+//  POST /bookings       {"email", "room", "checkIn", "checkOut", "usePoints", "upgrade"}
+//  GET  /reservations?email=a@b.com&page=0&size=20
+//"upgrade": true accepts a free deluxe upgrade when the standard room is taken; the server decides if there is one.
+//Bookings and customers are checked as in the console (no past check-in, valid email and phone).
+//Errors are answered as {"error": "..."} with a 4xx status (503 if a booking could not be saved, 500 if the hotel failed).
+public class HotelServer {
+
+    private static final int BACKLOG = 1024;
+
+    private final Hotel hotel;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Object registerLock = new Object(); // Makes the email check and the registration one step
+
+    /**
+     * Creates the server (not started yet).
+     * @param port The port to listen on, 0 for any free port.
+     */
+    public HotelServer(Hotel hotel, int port) throws IOException {
+        this.hotel = hotel;
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/rooms/available", exchange -> handle(exchange, "GET", this::searchRooms));
+        server.createContext("/customers", exchange -> handle(exchange, "POST", this::registerCustomer));
+        server.createContext("/bookings", exchange -> handle(exchange, "POST", this::book));
+        server.createContext("/reservations", exchange -> handle(exchange, "GET", this::listReservations));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    //Stops accepting requests, waits up to the delay for running ones, then stops their threads.
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdownNow();
+    }
+
+    //The port actually used (useful with port 0).
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // One endpoint: takes the request and returns {status, JSON body}
+    private interface Endpoint {
+        Response handle(HttpExchange exchange) throws IOException;
+    }
+
+    private record Response(int status, String body) {}
+
+    // Every request gets an answer, even if the hotel throws, and the exchange is always closed
+    private void handle(HttpExchange exchange, String method, Endpoint endpoint) throws IOException {
+        try {
+            Response response;
+            try {
+                if (!exchange.getRequestMethod().equals(method)) {
+                    response = error(405, "Use " + method);
+                } else {
+                    response = endpoint.handle(exchange);
+                }
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                response = error(400, e.getMessage());
+            } catch (RuntimeException e) {
+                response = error(500, "Internal error: " + e);
+            }
+            byte[] body = response.body().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(response.status(), body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Response searchRooms(HttpExchange exchange) {
+        Map<String, String> query = query(exchange);
+        LocalDate checkIn = date(query, "checkIn");
+        LocalDate checkOut = date(query, "checkOut");
+        if (!checkIn.isBefore(checkOut)) throw new IllegalArgumentException("checkIn must be before checkOut");
+        StringBuilder json = new StringBuilder("[");
+        for (Room room : hotel.searchAvailableRooms(checkIn, checkOut)) {
+            if (json.length() > 1) json.append(',');
+            json.append("{\"room\":").append(Json.quote(room.getRoomNumber()))
+                .append(",\"type\":").append(Json.quote(room.getRoomType()))
+                .append(",\"capacity\":").append(room.getCapacity())
+                .append(",\"price\":").append(room.calculateStayPrice(checkIn, checkOut)).append('}');
+        }
+        return new Response(200, json.append(']').toString());
+    }
+
+    private Response registerCustomer(HttpExchange exchange) throws IOException {
+        Map<String, String> body = body(exchange);
+        String email = required(body, "email");
+        String phone = required(body, "phone");
+        // Same checks as the console
+        if (!Customer.isValidEmail(email)) throw new IllegalArgumentException("Invalid email");
+        if (!Customer.isValidPhone(phone)) throw new IllegalArgumentException("Phone number must contain only digits");
+        Customer customer;
+        synchronized (registerLock) {
+            if (hotel.findCustomerByEmail(email) != null) return error(409, "Email already registered");
+            customer = new Customer(required(body, "firstName"), required(body, "lastName"), email, phone);
+            hotel.registerCustomer(customer);
+        }
+        return new Response(201, "{\"id\":" + Json.quote(customer.getCustomerId()) + ",\"email\":" + Json.quote(email) + "}");
+    }
+
+    private Response book(HttpExchange exchange) throws IOException {
+        Map<String, String> body = body(exchange);
+        Customer customer = hotel.findCustomerByEmail(required(body, "email"));
+        if (customer == null) return error(404, "Unknown customer");
+        Room room = hotel.findRoom(required(body, "room"));
+        if (room == null) return error(404, "Unknown room");
+        LocalDate checkIn = date(body, "checkIn");
+        LocalDate checkOut = date(body, "checkOut");
+        if (!checkIn.isBefore(checkOut)) throw new IllegalArgumentException("checkIn must be before checkOut");
+        if (checkIn.isBefore(LocalDate.now())) throw new IllegalArgumentException("checkIn cannot be in the past");
+
+        // "upgrade": true only accepts a free upgrade; whether there is one is decided here, as in the console
+        boolean isFreeUpgrade = false;
+        if (Boolean.parseBoolean(body.get("upgrade")) && room instanceof StandardRoom && !room.isAvailable(checkIn, checkOut)) {
+            Room upgrade = hotel.findUpgrade(room, checkIn, checkOut);
+            if (upgrade != null) {
+                room = upgrade;
+                isFreeUpgrade = true;
+            }
+        }
+        BookingResult result = hotel.book(customer, room, checkIn, checkOut,
+                Boolean.parseBoolean(body.get("usePoints")), isFreeUpgrade);
+        switch (result.getStatus()) {
+            case TOO_FAST -> { return error(409, "Booking too fast, please wait a moment"); }
+            case UNAVAILABLE -> { return error(409, "Room is already booked for these dates"); }
+            case NOT_SAVED -> { return error(503, "The booking could not be saved, please try again later"); }
+            case BOOKED -> { }
+        }
+        return new Response(201, "{\"id\":" + Json.quote(result.getReservationId())
+                + ",\"room\":" + Json.quote(room.getRoomNumber())
+                + ",\"upgraded\":" + isFreeUpgrade
+                + ",\"totalPrice\":" + result.getTotalPrice()
+                + ",\"discount\":" + result.getDiscount()
+                + ",\"finalPrice\":" + result.getFinalPrice()
+                + ",\"pointsUsed\":" + result.getPointsUsed()
+                + ",\"pointsEarned\":" + result.getPointsEarned()
+                + ",\"pointsBalance\":" + result.getPointsBalance() + "}");
+    }
+
+    private Response listReservations(HttpExchange exchange) {
+        Map<String, String> query = query(exchange);
+        String email = required(query, "email");
+        if (hotel.findCustomerByEmail(email) == null) return error(404, "Unknown customer");
+        List<Reservation> page = hotel.findReservations(email, number(query, "page", 0), number(query, "size", 20));
+        StringBuilder json = new StringBuilder("[");
+        for (Reservation r : page) {
+            if (json.length() > 1) json.append(',');
+            json.append("{\"id\":").append(Json.quote(r.getReservationId()))
+                .append(",\"room\":").append(Json.quote(r.getRoom().getRoomNumber()))
+                .append(",\"checkIn\":\"").append(r.getCheckInDate())
+                .append("\",\"checkOut\":\"").append(r.getCheckOutDate())
+                .append("\",\"status\":").append(Json.quote(r.getStatus())).append('}');
+        }
+        return new Response(200, json.append(']').toString());
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, "{\"error\":" + Json.quote(message) + "}");
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        HashMap<String, String> values = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) return values;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) continue;
+            values.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return values;
+    }
+
+    private static Map<String, String> body(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return Json.parseObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String required(Map<String, String> values, String name) {
+        String value = values.get(name);
+        if (value == null || value.isBlank()) throw new IllegalArgumentException("Missing " + name);
+        return value;
+    }
+
+    private static LocalDate date(Map<String, String> values, String name) {
+        return LocalDate.parse(required(values, name));
+    }
+
+    private static int number(Map<String, String> values, String name, int defaultValue) {
+        String value = values.get(name);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad " + name + ": " + value);
+        }
+    }
+}
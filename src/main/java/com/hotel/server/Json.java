@@ -0,0 +1,142 @@
+package com.hotel.server;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//Just enough JSON for the booking API: quoting strings for responses,
+//and reading request bodies, which are flat objects of strings, numbers and booleans.
+public class Json {
+
+    //Returns the text as a JSON string literal, quotes included ("null" for null).
+    public static String quote(String text) {
+        if (text == null) return "null";
+        StringBuilder out = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    /**
+     * Reads a flat JSON object such as {"email": "a@b.com", "usePoints": true}.
+     * Every value is returned as text (numbers and booleans as written, null as null).
+     * @throws IllegalArgumentException If the text is not such an object.
+     */
+    public static Map<String, String> parseObject(String text) {
+        Parser parser = new Parser(text);
+        Map<String, String> values = parser.object();
+        parser.skipSpace();
+        if (parser.pos != text.length()) throw parser.error("Unexpected text after the object");
+        return values;
+    }
+
+    private static class Parser {
+        final String text;
+        int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Map<String, String> object() {
+            HashMap<String, String> values = new HashMap<>();
+            expect('{');
+            skipSpace();
+            if (peek() == '}') {
+                pos++;
+                return values;
+            }
+            while (true) {
+                skipSpace();
+                String key = string();
+                expect(':');
+                values.put(key, value());
+                skipSpace();
+                char c = next();
+                if (c == '}') return values;
+                if (c != ',') throw error("Expected , or }");
+            }
+        }
+
+        String value() {
+            skipSpace();
+            char c = peek();
+            if (c == '"') return string();
+            if (c == '{' || c == '[') throw error("Nested values are not supported");
+            int start = pos;
+            while (pos < text.length() && ",} \t\r\n".indexOf(text.charAt(pos)) < 0) pos++;
+            String literal = text.substring(start, pos);
+            if (literal.isEmpty()) throw error("Missing value");
+            return literal.equals("null") ? null : literal;
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder out = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') return out.toString();
+                if (c != '\\') {
+                    out.append(c);
+                    continue;
+                }
+                char escaped = next();
+                switch (escaped) {
+                    case 'n' -> out.append('\n');
+                    case 'r' -> out.append('\r');
+                    case 't' -> out.append('\t');
+                    case 'b' -> out.append('\b');
+                    case 'f' -> out.append('\f');
+                    case 'u' -> {
+                        if (pos + 4 > text.length()) throw error("Bad \\u escape");
+                        try {
+                            out.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Bad \\u escape");
+                        }
+                        pos += 4;
+                    }
+                    default -> out.append(escaped);// \" \\ \/
+                }
+            }
+        }
+
+        void expect(char expected) {
+            skipSpace();
+            if (next() != expected) throw error("Expected " + expected);
+        }
+
+        char peek() {
+            if (pos >= text.length()) throw error("Unexpected end");
+            return text.charAt(pos);
+        }
+
+        char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        void skipSpace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Bad JSON at " + pos + ": " + message);
+        }
+    }
+}
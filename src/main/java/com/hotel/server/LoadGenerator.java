@@ -0,0 +1,184 @@
+package com.hotel.server;
+
+import com.hotel.model.*;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Drives the booking API with many concurrent clients, one virtual thread each, and reports latencies.
+//Each client books for several guests, like a travel agent: for each one it registers the guest,
+//searches for free rooms and books one. A new guest per booking keeps the fraud check (one booking
+//per customer a minute) out of the way, so the bookings measured are real ones.
+//Refused bookings (409, e.g. the room was taken meanwhile) are normal answers, not errors, but are counted apart.
+//Usage: LoadGenerator [base URL | local] [clients] [bookings per client]
+//"local" (the default) starts a server with a 100-room hotel in this process.
+public class LoadGenerator {
+
+    private static final AtomicInteger runCounter = new AtomicInteger();
+
+    //Latency percentiles in microseconds, over every request sent; booked and refused count the booking answers.
+    public record Report(int requests, int errors, int booked, int refused, long p50Micros, long p99Micros, long maxMicros, double seconds) {
+        @Override
+        public String toString() {
+            return String.format("%d requests in %.1f s (%.0f/s), %d booked, %d refused, %d errors, p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+                    requests, seconds, requests / seconds, booked, refused, errors,
+                    p50Micros / 1000.0, p99Micros / 1000.0, maxMicros / 1000.0);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String target = args.length > 0 ? args[0] : "local";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int bookings = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        HotelServer local = null;
+        URI base;
+        if (target.equals("local")) {
+            Hotel hotel = new Hotel("Load Test Hotel", "localhost");
+            for (int i = 0; i < 100; i++) {
+                hotel.addRoom(i % 4 == 0
+                        ? new DeluxeRoom(String.valueOf(200 + i), 4, 200.0, true, true, true, 0.20)
+                        : new StandardRoom(String.valueOf(100 + i), 2, 100.0, true, true));
+            }
+            local = new HotelServer(hotel, 0);
+            local.start();
+            base = URI.create("http://localhost:" + local.getPort());
+        } else {
+            base = URI.create(target);
+        }
+        try {
+            System.out.println("Running " + clients + " clients against " + base + "...");
+            System.out.println(run(base, clients, bookings));
+        } finally {
+            if (local != null) local.stop(0);
+        }
+    }
+
+    /**
+     * Runs the clients at the same time and waits for all of them.
+     * @param base The server, e.g. http://localhost:8080.
+     * @param bookingsPerClient Register-search-and-book rounds per client, each for a new guest.
+     */
+    public static Report run(URI base, int clients, int bookingsPerClient) throws InterruptedException {
+        int run = runCounter.incrementAndGet();
+        long start = System.nanoTime();
+        ArrayList<Future<long[]>> results = new ArrayList<>();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        // The HTTP client's own tasks get a separate executor, which stays open until every client is done
+        try (ExecutorService httpThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(httpThreads).build();
+            try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < clients; i++) {
+                    String prefix = "load" + run + "-" + i + "-";
+                    results.add(clientThreads.submit(() -> client(http, base, prefix, bookingsPerClient, errors, booked, refused)));
+                }
+                // Closing the executor waits for every client
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int count = 0;
+        long[][] perClient = new long[results.size()][];
+        for (int i = 0; i < perClient.length; i++) {
+            try {
+                perClient[i] = results.get(i).get();
+            } catch (Exception e) {
+                perClient[i] = new long[0];
+                errors.incrementAndGet();
+            }
+            count += perClient[i].length;
+        }
+        long[] latencies = new long[count];
+        int pos = 0;
+        for (long[] client : perClient) {
+            System.arraycopy(client, 0, latencies, pos, client.length);
+            pos += client.length;
+        }
+        Arrays.sort(latencies);
+        return new Report(count, errors.get(), booked.get(), refused.get(), percentile(latencies, 50), percentile(latencies, 99),
+                count == 0 ? 0 : latencies[count - 1], seconds);
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * percent / 100.0) - 1)];
+    }
+
+    // One client; returns the latency of each of its requests in microseconds
+    private static long[] client(HttpClient http, URI base, String emailPrefix, int bookings,
+                                 AtomicInteger errors, AtomicInteger booked, AtomicInteger refused) {
+        long[] latencies = new long[3 * bookings];
+        int count = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            for (int i = 0; i < bookings; i++) {
+                String email = emailPrefix + i + "@test.com";
+                String customer = "{\"firstName\":\"Load\",\"lastName\":\"Guest\",\"email\":" + Json.quote(email) + ",\"phone\":\"555\"}";
+                long started = System.nanoTime();
+                check(send(http, post(base, "/customers", customer)), errors);
+                latencies[count++] = (System.nanoTime() - started) / 1000;
+
+                LocalDate in = LocalDate.now().plusDays(1 + random.nextInt(365));
+                LocalDate out = in.plusDays(1 + random.nextInt(3));
+                started = System.nanoTime();
+                HttpResponse<String> rooms = send(http, HttpRequest.newBuilder(
+                        base.resolve("/rooms/available?checkIn=" + in + "&checkOut=" + out)).GET().build());
+                latencies[count++] = (System.nanoTime() - started) / 1000;
+                check(rooms, errors);
+
+                String room = anyRoom(rooms.body(), random);
+                if (room == null) continue;
+                String booking = "{\"email\":" + Json.quote(email) + ",\"room\":" + Json.quote(room)
+                        + ",\"checkIn\":\"" + in + "\",\"checkOut\":\"" + out + "\"}";
+                started = System.nanoTime();
+                HttpResponse<String> answer = send(http, post(base, "/bookings", booking));
+                latencies[count++] = (System.nanoTime() - started) / 1000;
+                check(answer, errors);
+                if (answer.statusCode() == 201) booked.incrementAndGet();
+                if (answer.statusCode() == 409) refused.incrementAndGet();
+            }
+        } catch (IOException e) {
+            errors.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    private static HttpRequest post(URI base, String path, String json) {
+        return HttpRequest.newBuilder(base.resolve(path)).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private static HttpResponse<String> send(HttpClient http, HttpRequest request) throws IOException, InterruptedException {
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void check(HttpResponse<String> response, AtomicInteger errors) {
+        if (response.statusCode() >= 300 && response.statusCode() != 409) errors.incrementAndGet();
+    }
+
+    // The room number of a random room in a search answer, or null if none is free.
+    // Clients that all took the first one would mostly be refused for each other's bookings.
+    private static String anyRoom(String json, ThreadLocalRandom random) {
+        ArrayList<Integer> starts = new ArrayList<>();
+        for (int key = json.indexOf("\"room\":\""); key >= 0; key = json.indexOf("\"room\":\"", key + 8)) {
+            starts.add(key + 8);
+        }
+        if (starts.isEmpty()) return null;
+        int start = starts.get(random.nextInt(starts.size()));
+        return json.substring(start, json.indexOf('"', start));
+    }
+}
@@ -0,0 +1,324 @@
+package com.hotel.service;
+
+import com.hotel.model.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+
+//Reads and writes the whole hotel as one compact binary file.
+//Layout (all numbers big-endian):
+//  header:       magic, version, room count, customer count, reservation count, string count
+//  strings:      string count + 1 end offsets, then the UTF-8 bytes of every distinct text
+//  rooms:        one column per field (type, number, capacity, base price, extras flags, luxury tax)
+//  customers:    one column per field (id, first name, last name, email, phone, points)
+//  reservations: one column per field (id, customer index, room index, check-in, check-out, status)
+//  checksum:     CRC32 of everything before it
+//Texts are stored once in the string table and referenced by index, dates are epoch days,
+//and reservations point to customers and rooms by their position, so loading needs no lookups.
+public class BinarySnapshot {
+
+    private static final int MAGIC = 0x48525331; // "HRS1"
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 6 * 4;
+
+    private static final byte STANDARD = 0;
+    private static final byte DELUXE = 1;
+
+    // Bits of the room extras column
+    private static final int WIFI = 1;
+    private static final int TV = 2;
+    private static final int MINI_BAR = 4;
+    private static final int JACUZZI = 8;
+    private static final int BALCONY = 16;
+
+    private static final int ROOM_BYTES = 1 + 4 + 4 + 8 + 1 + 8;
+    private static final int CUSTOMER_BYTES = 6 * 4;
+    private static final int RESERVATION_BYTES = 6 * 4;
+
+    /**
+     * Writes the lists as a binary snapshot to the stream (which is not closed).
+     * Reservations whose customer or room is not in the lists are left out.
+     * Every value is read once, in a first pass, so changes made meanwhile (e.g. a status update)
+     * cannot make the columns disagree; the columns are then streamed out through a small buffer.
+     */
+    public static void write(OutputStream target, List<Room> rooms, List<Customer> customers, List<Reservation> reservations) throws IOException {
+        StringTable strings = new StringTable();
+        IdentityHashMap<Room, Integer> roomIndex = new IdentityHashMap<>();
+        IdentityHashMap<Customer, Integer> customerIndex = new IdentityHashMap<>();
+        int roomCount = rooms.size();
+        byte[] roomTypes = new byte[roomCount];
+        int[] roomNumbers = new int[roomCount];
+        int[] capacities = new int[roomCount];
+        double[] prices = new double[roomCount];
+        byte[] extras = new byte[roomCount];
+        double[] taxes = new double[roomCount];
+        for (int i = 0; i < roomCount; i++) {
+            Room room = rooms.get(i);
+            roomIndex.put(room, i);
+            roomTypes[i] = room instanceof DeluxeRoom ? DELUXE : STANDARD;
+            roomNumbers[i] = strings.add(room.getRoomNumber());
+            capacities[i] = room.getCapacity();
+            prices[i] = room.getBasePrice();
+            extras[i] = (byte) extrasOf(room);
+            taxes[i] = room instanceof DeluxeRoom dlx ? dlx.getLuxuryTax() : 0;
+        }
+        int customerCount = customers.size();
+        int[][] customerColumns = new int[6][customerCount]; // id, first name, last name, email, phone, points
+        for (int i = 0; i < customerCount; i++) {
+            Customer c = customers.get(i);
+            customerIndex.put(c, i);
+            customerColumns[0][i] = strings.add(c.getCustomerId());
+            customerColumns[1][i] = strings.add(c.getFirstName());
+            customerColumns[2][i] = strings.add(c.getLastName());
+            customerColumns[3][i] = strings.add(c.getEmail());
+            customerColumns[4][i] = strings.add(c.getPhoneNumber());
+            customerColumns[5][i] = c.getLoyaltyPoints();
+        }
+        int[][] reservationColumns = new int[6][reservations.size()]; // id, customer, room, check-in, check-out, status
+        int reservationCount = 0;
+        for (Reservation r : reservations) {
+            Integer room = roomIndex.get(r.getRoom());
+            Integer customer = customerIndex.get(r.getCustomer());
+            if (room == null || customer == null) continue;
+            int i = reservationCount++;
+            reservationColumns[0][i] = strings.add(r.getReservationId());
+            reservationColumns[1][i] = customer;
+            reservationColumns[2][i] = room;
+            reservationColumns[3][i] = r.getCheckInDay();
+            reservationColumns[4][i] = r.getCheckOutDay();
+            reservationColumns[5][i] = strings.add(r.getStatus());
+        }
+
+        ColumnOutput out = new ColumnOutput(target);
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putInt(roomCount);
+        out.putInt(customerCount);
+        out.putInt(reservationCount);
+        out.putInt(strings.size());
+        strings.writeTo(out);
+
+        for (byte type : roomTypes) out.put(type);
+        for (int number : roomNumbers) out.putInt(number);
+        for (int capacity : capacities) out.putInt(capacity);
+        for (double price : prices) out.putDouble(price);
+        for (byte flags : extras) out.put(flags);
+        for (double tax : taxes) out.putDouble(tax);
+
+        for (int[] column : customerColumns) {
+            for (int value : column) out.putInt(value);
+        }
+
+        for (int[] column : reservationColumns) {
+            for (int i = 0; i < reservationCount; i++) out.putInt(column[i]);
+        }
+
+        out.finish();
+    }
+
+    /**
+     * Loads a binary snapshot into the hotel through a memory-mapped buffer.
+     * The checksum and version are checked before anything is added,
+     * so a corrupted or unknown file leaves the hotel untouched.
+     * @throws IOException If the file cannot be read, is corrupted or has another version.
+     */
+    public static void read(String filename, Hotel hotel) throws IOException {
+        Path path = Paths.get(filename);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + 8 || size > Integer.MAX_VALUE) throw new IOException("Snapshot has a bad size: " + size);
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (in.getInt(0) != MAGIC) throw new IOException("Not a hotel snapshot");
+            int version = in.getInt(4);
+            if (version != VERSION) throw new IOException("Unsupported snapshot version: " + version);
+            CRC32 crc = new CRC32();
+            crc.update(in.slice(0, (int) size - 8));
+            if (crc.getValue() != in.getLong((int) size - 8)) throw new IOException("Snapshot checksum does not match");
+
+            int roomCount = in.getInt(8);
+            int customerCount = in.getInt(12);
+            int reservationCount = in.getInt(16);
+            String[] strings = readStrings(in, HEADER_BYTES, in.getInt(20));
+
+            int pos = HEADER_BYTES + 4 * (strings.length + 1) + in.getInt(HEADER_BYTES + 4 * strings.length);
+            Room[] rooms = new Room[roomCount];
+            int types = pos;
+            int numbers = types + roomCount;
+            int capacities = numbers + 4 * roomCount;
+            int prices = capacities + 4 * roomCount;
+            int extras = prices + 8 * roomCount;
+            int taxes = extras + roomCount;
+            for (int i = 0; i < roomCount; i++) {
+                String number = strings[in.getInt(numbers + 4 * i)];
+                int capacity = in.getInt(capacities + 4 * i);
+                double price = in.getDouble(prices + 8 * i);
+                int flags = in.get(extras + i);
+                if (in.get(types + i) == DELUXE) {
+                    rooms[i] = new DeluxeRoom(number, capacity, price, (flags & MINI_BAR) != 0,
+                            (flags & JACUZZI) != 0, (flags & BALCONY) != 0, in.getDouble(taxes + 8 * i));
+                } else {
+                    rooms[i] = new StandardRoom(number, capacity, price, (flags & WIFI) != 0, (flags & TV) != 0);
+                }
+            }
+            pos = taxes + 8 * roomCount;
+
+            Customer[] customers = new Customer[customerCount];
+            long savedAt = Files.getLastModifiedTime(path).toMillis();
+            for (int i = 0; i < customerCount; i++) {
+                int column = pos + 4 * i;
+                int step = 4 * customerCount;
+                customers[i] = new Customer(strings[in.getInt(column)], strings[in.getInt(column + step)],
+                        strings[in.getInt(column + 2 * step)], strings[in.getInt(column + 3 * step)],
+                        strings[in.getInt(column + 4 * step)]);
+                customers[i].restoreLoyaltyPoints(in.getInt(column + 5 * step), savedAt);
+            }
+            pos += CUSTOMER_BYTES * customerCount;
+
+            for (Room room : rooms) hotel.addRoom(room);
+            // In a chain a customer may come back as the one another property registered first
+            for (int i = 0; i < customerCount; i++) customers[i] = hotel.registerCustomer(customers[i]);
+            for (int i = 0; i < reservationCount; i++) {
+                int column = pos + 4 * i;
+                int step = 4 * reservationCount;
+                Reservation res = new Reservation(strings[in.getInt(column)], customers[in.getInt(column + step)],
+                        rooms[in.getInt(column + 2 * step)], LocalDate.ofEpochDay(in.getInt(column + 3 * step)),
+                        LocalDate.ofEpochDay(in.getInt(column + 4 * step)));
+                res.setStatus(strings[in.getInt(column + 5 * step)]);
+                hotel.addReservation(res);
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // Only possible if the counts lie, which the checksum should have caught
+            throw new IOException("Snapshot is truncated", e);
+        }
+    }
+
+    private static String[] readStrings(ByteBuffer in, int pos, int count) {
+        String[] strings = new String[count];
+        int bytes = pos + 4 * (count + 1);
+        byte[] scratch = new byte[64];
+        for (int i = 0; i < count; i++) {
+            int start = in.getInt(pos + 4 * i);
+            int length = in.getInt(pos + 4 * (i + 1)) - start;
+            if (length > scratch.length) scratch = new byte[Math.max(length, scratch.length * 2)];
+            in.get(bytes + start, scratch, 0, length);
+            strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    private static int extrasOf(Room room) {
+        int flags = 0;
+        if (room instanceof StandardRoom std) {
+            if (std.hasWifi()) flags |= WIFI;
+            if (std.hasTV()) flags |= TV;
+        } else if (room instanceof DeluxeRoom dlx) {
+            if (dlx.hasMiniBar()) flags |= MINI_BAR;
+            if (dlx.hasJacuzzi()) flags |= JACUZZI;
+            if (dlx.hasBalcony()) flags |= BALCONY;
+        }
+        return flags;
+    }
+
+    // Each distinct text is stored once (statuses and repeated names cost 4 bytes per use)
+    private static class StringTable {
+        private final HashMap<String, Integer> indexes = new HashMap<>();
+        private final ArrayList<byte[]> encoded = new ArrayList<>();
+        private int totalBytes;
+
+        // Returns the index of the text
+        int add(String text) {
+            String key = text == null ? "" : text;
+            Integer index = indexes.putIfAbsent(key, encoded.size());
+            if (index != null) return index;
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            totalBytes += bytes.length;
+            return encoded.size() - 1;
+        }
+
+        int size() {
+            return encoded.size();
+        }
+
+        void writeTo(ColumnOutput out) throws IOException {
+            if (4L * (encoded.size() + 1) + totalBytes > Integer.MAX_VALUE) {
+                throw new IOException("String table too large: " + totalBytes + " bytes");
+            }
+            int offset = 0;
+            out.putInt(offset);
+            for (byte[] bytes : encoded) {
+                offset += bytes.length;
+                out.putInt(offset);
+            }
+            for (byte[] bytes : encoded) out.put(bytes);
+        }
+    }
+
+    // Buffers what is written, keeps the CRC32 of it, and ends with that checksum
+    private static class ColumnOutput {
+        private final OutputStream target;
+        private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        private final CRC32 crc = new CRC32();
+
+        ColumnOutput(OutputStream target) {
+            this.target = target;
+        }
+
+        private void room(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+        }
+
+        void put(byte value) throws IOException {
+            room(1);
+            buffer.put(value);
+        }
+
+        void put(byte[] bytes) throws IOException {
+            int off = 0;
+            while (off < bytes.length) {
+                if (!buffer.hasRemaining()) flush();
+                int n = Math.min(buffer.remaining(), bytes.length - off);
+                buffer.put(bytes, off, n);
+                off += n;
+            }
+        }
+
+        void putInt(int value) throws IOException {
+            room(4);
+            buffer.putInt(value);
+        }
+
+        void putDouble(double value) throws IOException {
+            room(8);
+            buffer.putDouble(value);
+        }
+
+        private void flush() throws IOException {
+            crc.update(buffer.array(), 0, buffer.position());
+            target.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+
+        // Writes the checksum of everything before it
+        void finish() throws IOException {
+            flush();
+            buffer.putLong(crc.getValue());
+            target.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.hotel.service;
+
+import com.hotel.model.*;
+import com.hotel.util.CsvWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+//Append-only log of every change made to the Hotel since the last snapshot.
+//Each change is one small line appended to the end of the file, and commit() forces it to disk.
+//Threads that commit at the same time share one FileChannel.force call (group commit).
+//Once a write or a flush fails, the journal is broken: nothing is written any more and every commit
+//fails, since later entries could not be replayed without the lost ones. Reopen it to start again.
+public class BookingJournal implements HotelJournal {
+
+    // Line prefixes for each kind of event
+    static final String ROOM = "ROOM";
+    static final String CUSTOMER = "CUSTOMER";
+    static final String RESERVATION = "RESERVATION";
+    static final String POINTS = "POINTS";
+    static final String STATUS = "STATUS";
+
+    private final Path path;
+    private final Path rotatedPath; // Previous segment, kept until the snapshot that covers it is written
+    private final Object writeLock = new Object();
+    private final Object forceLock = new Object();
+    private FileChannel channel;
+    private long writtenCount; // Lines written to the channel (guarded by writeLock)
+    private volatile long durableCount; // Lines known to be on disk
+    private volatile boolean broken; // A write or flush failed (see the class comment)
+    private volatile HotelListener listener; // Where errors go, null to drop them
+
+    /**
+     * Opens (or creates) the journal for appending.
+     * @param filename The journal file, e.g. "data/journal.log".
+     */
+    public BookingJournal(String filename) throws IOException {
+        this.path = Paths.get(filename);
+        this.rotatedPath = Paths.get(filename + ".old");
+        this.channel = open(path);
+    }
+
+    public HotelListener getListener() { return listener; }
+    public void setListener(HotelListener listener) { this.listener = listener; }
+
+    //Checks if a write or a flush failed, so no commit can succeed any more.
+    public boolean isBroken() {
+        return broken;
+    }
+
+    // Marks the journal broken and sends the error to the listener, if there is one
+    private void fail(String text) {
+        broken = true;
+        HotelListener l = listener;
+        if (l != null) l.message(text);
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * The files that still have to be replayed, in order:
+     * the rotated segment first (left over if we crashed during a snapshot), then the current one.
+     */
+    public static String[] segments(String filename) {
+        return new String[]{filename + ".old", filename};
+    }
+
+    // Entries use the same CSV rows as the data files, prefixed with the entry type
+
+    @Override
+    public void roomAdded(Room room) {
+        StringBuilder line = new StringBuilder();
+        try {
+            CsvWriter csv = new CsvWriter(line).field(ROOM);
+            DataService.writeRoom(csv, room);
+            csv.endRow();
+        } catch (IOException e) {
+            // StringBuilder does not throw
+        }
+        append(line);
+    }
+
+    @Override
+    public void customerRegistered(Customer customer) {
+        StringBuilder line = new StringBuilder();
+        try {
+            CsvWriter csv = new CsvWriter(line).field(CUSTOMER);
+            DataService.writeCustomer(csv, customer);
+            csv.endRow();
+        } catch (IOException e) {
+            // StringBuilder does not throw
+        }
+        append(line);
+    }
+
+    @Override
+    public void reservationAdded(Reservation res) {
+        StringBuilder line = new StringBuilder();
+        try {
+            CsvWriter csv = new CsvWriter(line).field(RESERVATION);
+            DataService.writeReservation(csv, res);
+            csv.endRow();
+        } catch (IOException e) {
+            // StringBuilder does not throw
+        }
+        append(line);
+    }
+
+    @Override
+    public void loyaltyPointsChanged(Customer customer) {
+        // The new balance, not the difference, so replaying twice is harmless
+        StringBuilder line = new StringBuilder();
+        try {
+            new CsvWriter(line).field(POINTS).field(customer.getEmail()).field(customer.getLoyaltyPoints()).endRow();
+        } catch (IOException e) {
+            // StringBuilder does not throw
+        }
+        append(line);
+    }
+
+    @Override
+    public void reservationStatusChanged(Reservation res) {
+        StringBuilder line = new StringBuilder();
+        try {
+            new CsvWriter(line).field(STATUS).field(res.getReservationId()).field(res.getStatus()).endRow();
+        } catch (IOException e) {
+            // StringBuilder does not throw
+        }
+        append(line);
+    }
+
+    //Writes one entry (ending with a line break) to the end of the journal (not yet forced to disk).
+    //Only entries written in full are counted, so a failed one is never reported as durable.
+    private void append(CharSequence entry) {
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(CharBuffer.wrap(entry));
+        synchronized (writeLock) {
+            if (broken) return;
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                writtenCount++;
+            } catch (IOException e) {
+                fail("Error writing journal: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public boolean commit() {
+        long target;
+        synchronized (writeLock) {
+            target = writtenCount;
+        }
+        if (broken) return false;
+        if (durableCount >= target) return true;
+        synchronized (forceLock) {
+            if (broken) return false;
+            if (durableCount >= target) return true;// Another thread's flush already covered our lines
+            long covered;
+            FileChannel current;
+            synchronized (writeLock) {
+                covered = writtenCount;
+                current = channel;
+            }
+            try {
+                current.force(false);
+                durableCount = covered;
+                return true;
+            } catch (IOException e) {
+                fail("Error flushing journal: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Starts a new, empty segment before a snapshot is taken.
+     * Everything written so far is moved to the rotated segment, which stays
+     * on disk until deleteRotated() is called after the snapshot is saved.
+     */
+    public void rotate() throws IOException {
+        synchronized (forceLock) {
+            synchronized (writeLock) {
+                channel.force(false);
+                channel.close();
+                if (Files.exists(rotatedPath)) {
+                    // An older snapshot failed: keep both segments in order
+                    Files.write(rotatedPath, Files.readAllBytes(path), StandardOpenOption.APPEND);
+                    Files.delete(path);
+                } else {
+                    Files.move(path, rotatedPath, StandardCopyOption.ATOMIC_MOVE);
+                }
+                channel = open(path);
+                durableCount = writtenCount;
+            }
+        }
+    }
+
+    //Called once the snapshot covering the rotated segment is safely written.
+    public void deleteRotated() throws IOException {
+        Files.deleteIfExists(rotatedPath);
+    }
+
+    public void close() {
+        synchronized (forceLock) {
+            synchronized (writeLock) {
+                try {
+                    channel.force(false);
+                    channel.close();
+                } catch (IOException e) {
+                    fail("Error closing journal: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -1,153 +1,879 @@
 package com.hotel.service;
 
 import com.hotel.model.*;
-import com.hotel.util.FileOps;
+import com.hotel.util.CsvReader;
+import com.hotel.util.CsvWriter;
+import com.hotel.util.AtomicFileSet;
+import com.hotel.util.Metrics;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 //This class acts as a bridge between the Hotel logic and the File system.
 //It converts objects (Room, Customer) into text (CSV format) and back.
+//The CSV files are a snapshot; changes made after it are kept in an append-only journal.
+//The same snapshot is also saved in a compact binary file, which is much faster to load;
+//the CSV files stay the format for importing and exporting data.
 public class DataService {
 
     // File paths where data will be stored
-    private static final String ROOMS_FILE = "data/rooms.csv";
-    private static final String CUSTOMERS_FILE = "data/customers.csv";
-    private static final String RESERVATIONS_FILE = "data/reservations.csv";
+    private final String roomsFile;
+    private final String customersFile;
+    private final String reservationsFile;
+    private final String journalFile;
+    private final String snapshotFile;
+    private final String archiveFile;
+    private final AtomicFileSet files; // Replaces all the files above together, see saveData
 
-    //Saves all hotel data (Rooms, Customers, Reservations) to files.
-    public void saveData(Hotel hotel) {
-        saveRooms(hotel.getRooms());
-        saveCustomers(hotel.getCustomers());
-        saveReservations(hotel.getReservations());
-        System.out.println("Data saved.");
+    // First line of each CSV file
+    static final String ROOMS_HEADER = "Type,RoomNumber,Capacity,BasePrice,Extras\n";
+    static final String CUSTOMERS_HEADER = "ID,FirstName,LastName,Email,Phone,Points\n";
+    static final String RESERVATIONS_HEADER = "ID,CustomerEmail,RoomNumber,CheckIn,CheckOut,Status\n";
+
+    // Below this size the reservations file is parsed in one piece
+    private static final int MIN_CHUNK_BYTES = 64 * 1024;
+    // Bytes scanned at a time when looking for the chunk boundaries
+    private static final int SPLIT_BUFFER_BYTES = 1 << 20;
+
+    private volatile HotelListener listener; // Where messages go, null to drop them (no console)
+    private BookingJournal journal;
+    private LazyReservationHistory history; // Reservations left in the file by a lazy load, null if none
+    private ScheduledExecutorService saveWorker; // Background and periodic saves
+
+    //Uses the default "data" directory.
+    public DataService() {
+        this("data");
+    }
+
+    /**
+     * @param dataDirectory Directory holding the CSV files and the journal.
+     */
+    public DataService(String dataDirectory) {
+        this.roomsFile = dataDirectory + "/rooms.csv";
+        this.customersFile = dataDirectory + "/customers.csv";
+        this.reservationsFile = dataDirectory + "/reservations.csv";
+        this.journalFile = dataDirectory + "/journal.log";
+        this.snapshotFile = dataDirectory + "/snapshot.bin";
+        this.archiveFile = dataDirectory + "/archive.db";
+        this.files = new AtomicFileSet(dataDirectory + "/manifest.csv");
+    }
+
+    /**
+     * Saves all hotel data (Rooms, Customers, Reservations) to files.
+     * The files are replaced together: after a crash at any point, the next load sees
+     * either the complete new set or the complete previous one.
+     * @return true if the new files are in place.
+     */
+    public boolean saveData(Hotel hotel) {
+        boolean saved = writeSnapshot(hotel);
+        if (saved) report("Data saved.");
+        return saved;
+    }
+
+    /**
+     * Replaces all the data in the directory with a generated hotel (see HotelDataGenerator).
+     * The rows are streamed to the new files as they are generated, without building the hotel in memory.
+     * The old journal, binary snapshot and archive belong to the old data, so they are deleted before the new files are committed.
+     * @return true if the new files are in place.
+     */
+    public synchronized boolean saveGenerated(HotelDataGenerator generator) {
+        if (journal != null || history != null) {
+            report("Cannot replace the data while the journal or the lazy history is open.");
+            return false;
+        }
+        long written;
+        try {
+            files.recover();
+            try (BufferedWriter writer = files.openWriter(roomsFile)) {
+                writer.write(ROOMS_HEADER);
+                generator.writeRooms(new CsvWriter(writer));
+            }
+            try (BufferedWriter writer = files.openWriter(customersFile)) {
+                writer.write(CUSTOMERS_HEADER);
+                generator.writeCustomers(new CsvWriter(writer));
+            }
+            try (BufferedWriter writer = files.openWriter(reservationsFile)) {
+                writer.write(RESERVATIONS_HEADER);
+                written = generator.writeReservations(new CsvWriter(writer));
+            }
+            // Deleted before the commit: a crash in between must not replay the old journal onto the new files
+            Files.deleteIfExists(Paths.get(snapshotFile));
+            Files.deleteIfExists(Paths.get(archiveFile));
+            for (String segment : BookingJournal.segments(journalFile)) {
+                Files.deleteIfExists(Paths.get(segment));
+            }
+            files.commit();
+        } catch (IOException e) {
+            abortFiles();
+            report("Error writing file: " + e.getMessage());
+            return false;
+        }
+        report("Generated " + generator.getRoomCount() + " rooms, " + generator.getCustomerCount()
+                + " customers and " + written + " reservations.");
+        return true;
+    }
+
+    public HotelListener getListener() { return listener; }
+    public void setListener(HotelListener listener) { this.listener = listener; }
+
+    // Sends a message to the listener, if there is one
+    private void report(String text) {
+        HotelListener l = listener;
+        if (l != null) l.message(text);
+    }
+
+    /**
+     * Same as saveData, but the files are written on a background thread so the caller does not wait.
+     * Changes made while the save runs are still in the journal (if it is started).
+     * @return Completes with true once the new files are in place, false if the save failed.
+     */
+    public synchronized CompletableFuture<Boolean> saveDataInBackground(Hotel hotel) {
+        return CompletableFuture.supplyAsync(() -> writeSnapshot(hotel), saveWorker());
+    }
+
+    //Number of the last complete save (0 if nothing was saved yet).
+    public long getGeneration() {
+        return files.getGeneration();
+    }
+
+    private synchronized ScheduledExecutorService saveWorker() {
+        if (saveWorker == null) {
+            saveWorker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "save-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return saveWorker;
     }
+
     //Loads all data from files into the Hotel object.
     public void loadData(Hotel hotel) {
-        loadRooms(hotel);
-        loadCustomers(hotel);
-        loadReservations(hotel);
-        System.out.println("Data loaded.");
+        loadData(hotel, false);
+    }
+
+    /**
+     * Loads all data from files into the Hotel object.
+     * @param parallel If true, the three files are parsed at the same time and the reservations file
+     *                 is split into chunks parsed on the fork-join pool. Links to customers and rooms are
+     *                 resolved afterwards in one pass, in file order, so the result is the same as a serial load.
+     */
+    public void loadData(Hotel hotel, boolean parallel) {
+        loadData(hotel, parallel, false);
+    }
+
+    /**
+     * Loads all data from files into the Hotel object.
+     * @param parallel See loadData(Hotel, boolean).
+     * @param lazyHistory If true, only reservations that have not ended yet are loaded. Older ones stay
+     *                    in the reservations file and are read the first time the history of their customer
+     *                    or room is looked at (they still count in the statistics from the start).
+     *                    The binary snapshot is not used, since it cannot be read row by row.
+     */
+    public void loadData(Hotel hotel, boolean parallel, boolean lazyHistory) {
+        try {
+            files.recover();// Finish (or throw away) a save that was cut short by a crash
+        } catch (IOException e) {
+            report("Error recovering the last save: " + e.getMessage());
+        }
+        Metrics metrics = hotel.getMetrics();
+        long start = System.nanoTime();
+        if (!lazyHistory && loadBinarySnapshot(hotel)) {
+            metrics.histogram("load.total").recordSince(start);
+            report("Data loaded.");
+            return;
+        }
+        Parsed<Room> rooms;
+        Parsed<Customer> customers;
+        List<Parsed<ReservationRow>> reservations;
+        if (parallel) {
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            CompletableFuture<Parsed<Room>> roomsTask = CompletableFuture.supplyAsync(
+                    () -> timedRead(metrics, "load.rooms", this::readRooms), pool);
+            CompletableFuture<Parsed<Customer>> customersTask = CompletableFuture.supplyAsync(
+                    () -> timedRead(metrics, "load.customers", this::readCustomers), pool);
+            reservations = timedReadChunks(metrics, "load.reservations", () -> readReservationsInChunks(pool));
+            rooms = roomsTask.join();
+            customers = customersTask.join();
+        } else {
+            rooms = timedRead(metrics, "load.rooms", this::readRooms);
+            customers = timedRead(metrics, "load.customers", this::readCustomers);
+            reservations = timedReadChunks(metrics, "load.reservations", () -> List.of(readReservations()));
+        }
+        long linkStart = System.nanoTime();
+
+        // Final pass: rooms and customers first, so reservations can find them
+        for (Room room : rooms.items) hotel.addRoom(room);
+        reportSkipped(rooms, "room");
+        for (Customer c : customers.items) hotel.registerCustomer(c);
+        reportSkipped(customers, "customer");
+        LazyReservationHistory lazy = lazyHistory ? openHistory(hotel) : null;
+        long today = LocalDate.now().toEpochDay();
+        for (Parsed<ReservationRow> chunk : reservations) {
+            for (ReservationRow row : chunk.items) {
+                Reservation res = row.link(hotel);
+                if (res == null) continue;
+                if (lazy != null && row.checkOut <= today) {
+                    // Ended: only remember where it is
+                    lazy.add(res, row.offset, row.length);
+                    hotel.recordUnloadedReservation(res);
+                } else {
+                    // Link the reservation to everything (and update the statistics)
+                    hotel.addReservation(res);
+                }
+            }
+            reportSkipped(chunk, "reservation");
+        }
+        if (lazy != null) {
+            lazy.finish();
+            history = lazy;
+            hotel.setHistoryLoader(lazy);
+        }
+        metrics.histogram("load.link").recordSince(linkStart);
+        metrics.histogram("load.total").recordSince(start);
+        report("Data loaded.");
     }
 
-    private void saveRooms(ArrayList<Room> rooms) {
-        ArrayList<String> lines = new ArrayList<>();
-        lines.add("Type,RoomNumber,Capacity,BasePrice,Extras");
+    // Times one file read: the time goes to the histogram with the name, the rows read to the counter name + ".rows"
+    private static <T> Parsed<T> timedRead(Metrics metrics, String name, Supplier<Parsed<T>> read) {
+        long start = System.nanoTime();
+        Parsed<T> parsed = read.get();
+        metrics.histogram(name).recordSince(start);
+        metrics.counter(name + ".rows").add(parsed.items.size());
+        return parsed;
+    }
+
+    // Same as timedRead, for a file read in chunks
+    private static <T> List<Parsed<T>> timedReadChunks(Metrics metrics, String name, Supplier<List<Parsed<T>>> read) {
+        long start = System.nanoTime();
+        List<Parsed<T>> chunks = read.get();
+        metrics.histogram(name).recordSince(start);
+        long rows = 0;
+        for (Parsed<T> chunk : chunks) rows += chunk.items.size();
+        metrics.counter(name + ".rows").add(rows);
+        return chunks;
+    }
+
+    private interface FileWrite {
+        void write() throws IOException;
+    }
 
-        for (Room room : rooms) {
-            String line = "";
-            if (room instanceof StandardRoom std) {
-                line = "STANDARD," + room.getRoomNumber() + "," + room.getCapacity() + "," +
-                       room.getBasePrice() + "," + std.hasWifi() + ";" + std.hasTV();
-            } else if (room instanceof DeluxeRoom dlx) {
-                line = "DELUXE," + room.getRoomNumber() + "," + room.getCapacity() + "," +
-                       room.getBasePrice() + "," + dlx.hasMiniBar() + ";" + dlx.hasJacuzzi() + ";" +
-                       dlx.hasBalcony() + ";" + dlx.getLuxuryTax();
+    // Times one file write, like timedRead
+    private static void timedWrite(Metrics metrics, String name, long rows, FileWrite write) throws IOException {
+        long start = System.nanoTime();
+        write.write();
+        metrics.histogram(name).recordSince(start);
+        metrics.counter(name + ".rows").add(rows);
+    }
+
+    // The binary snapshot is used unless a CSV file is newer (e.g. edited or imported by hand).
+    // Returns false if the CSV files have to be parsed instead.
+    private boolean loadBinarySnapshot(Hotel hotel) {
+        Path snapshot = Paths.get(snapshotFile);
+        try {
+            if (!Files.exists(snapshot)) return false;
+            FileTime snapshotTime = Files.getLastModifiedTime(snapshot);
+            for (String csv : new String[]{roomsFile, customersFile, reservationsFile}) {
+                Path path = Paths.get(csv);
+                if (Files.exists(path) && Files.getLastModifiedTime(path).compareTo(snapshotTime) > 0) return false;
             }
-            lines.add(line);
+            long start = System.nanoTime();
+            BinarySnapshot.read(snapshotFile, hotel);
+            Metrics metrics = hotel.getMetrics();
+            metrics.histogram("load.snapshot").recordSince(start);
+            metrics.counter("load.snapshot.rows").add(hotel.getRooms().size() + hotel.getCustomers().size() + hotel.getReservations().size());
+            return true;
+        } catch (IOException e) {
+            // Checked before anything is added, so the hotel is still empty
+            report("Cannot use " + snapshotFile + " (" + e.getMessage() + "), loading the CSV files.");
+            return false;
         }
-        FileOps.writeFile(ROOMS_FILE, lines);
     }
 
-    private void loadRooms(Hotel hotel) {
-        ArrayList<String> lines = FileOps.readFile(ROOMS_FILE);
-        for (int i = 1; i < lines.size(); i++) { // Skip header
+    // Returns null (load everything) if there is no reservations file to read the history from
+    private LazyReservationHistory openHistory(Hotel hotel) {
+        if (!Files.exists(Paths.get(reservationsFile))) return null;
+        try {
+            return new LazyReservationHistory(hotel, reservationsFile);
+        } catch (IOException e) {
+            report("Error reading file: " + e.getMessage());
+            return null;
+        }
+    }
 
+    // Rows parsed from one file (or one chunk of it), and the lines that were skipped as corrupted
+    private static class Parsed<T> {
+        final ArrayList<T> items = new ArrayList<>();
+        final ArrayList<Integer> skippedLines = new ArrayList<>();
+    }
+
+    // Throws away a save that failed; leftover temporary files are only reported, the old files are in place
+    private void abortFiles() {
+        try {
+            files.abort();
+        } catch (IOException e) {
+            report(e.getMessage());
+        }
+    }
+
+    private void reportSkipped(Parsed<?> parsed, String kind) {
+        for (int line : parsed.skippedLines) {
             // Skip corrupted lines to prevent system crash
+            report("Skipping corrupted " + kind + " data at line: " + line);
+        }
+    }
+
+    // A reservation row before its customer and room are looked up
+    private static class ReservationRow {
+        final String id;
+        final String email;
+        final String roomNumber;
+        final long checkIn;
+        final long checkOut;
+        final String status;
+        final long offset; // Where the row is in the file, in bytes (for lazy history)
+        final int length;
+
+        ReservationRow(CsvReader csv) {
+            this.id = csv.getString(0);
+            this.email = csv.getString(1);
+            this.roomNumber = csv.getString(2);
+            this.checkIn = csv.getEpochDay(3);
+            this.checkOut = csv.getEpochDay(4);
+            this.status = csv.getString(5);
+            this.offset = csv.getRecordOffset();
+            this.length = csv.getRecordLength();
+        }
+
+        // Returns null if the customer or room is unknown
+        Reservation link(Hotel hotel) {
+            Customer customer = hotel.findCustomerByEmail(email);
+            Room room = hotel.findRoom(roomNumber);
+            if (customer == null || room == null) return null;
+            Reservation res = new Reservation(id, customer, room, LocalDate.ofEpochDay(checkIn), LocalDate.ofEpochDay(checkOut));
+            res.setStatus(status);
+            return res;
+        }
+    }
+
+    /**
+     * Attaches the on-disk archive (archive.db) for old reservations. Call after loadData
+     * and before startJournal. From then on Hotel.archiveReservations moves ended reservations
+     * out of the heap into the archive, and the data files only hold the current ones.
+     * @param cachePages How many 4 KB archive pages to keep in memory.
+     */
+    public void openArchive(Hotel hotel, int cachePages) {
+        try {
+            DiskReservationArchive archive = new DiskReservationArchive(archiveFile, cachePages);
+            archive.setListener(this::report);// Archive errors go wherever this service's messages go
+            hotel.setArchive(archive);
+        } catch (IOException e) {
+            report("Error opening archive: " + e.getMessage());
+        }
+    }
+
+    //Detaches and closes the archive and the lazily loaded history. Call after stopJournal.
+    public void closeArchive(Hotel hotel) {
+        ReservationArchive archive = hotel.getArchive();
+        if (archive != null) {
+            hotel.setArchive(null);
+            archive.close();
+        }
+        if (history != null) {
+            hotel.setHistoryLoader(null);
+            history.close();
+            history = null;
+        }
+    }
+
+    /**
+     * Replays the journal left by the last run, saves a fresh snapshot,
+     * and from then on writes every change to the journal as it happens.
+     * Call after loadData (and after adding any default rooms).
+     * @param snapshotMinutes How often to save a full snapshot in the background (0 = never).
+     */
+    public void startJournal(Hotel hotel, long snapshotMinutes) {
+        int replayed = replayJournal(hotel);
+        if (replayed > 0) {
+            report("Recovered " + replayed + " changes from the journal.");
+        }
+        try {
+            journal = new BookingJournal(journalFile);
+            journal.setListener(this::report);// Journal errors go wherever this service's messages go
+        } catch (IOException e) {
+            report("Error opening journal: " + e.getMessage());
+            return;
+        }
+        hotel.setJournal(journal);
+        // Save the replayed changes to the data files in the background, so startup does not wait for it.
+        // The rotation at the start of the save moves the old entries aside until the files are written.
+        saveDataInBackground(hotel);
+
+        if (snapshotMinutes > 0) {
+            saveWorker().scheduleAtFixedRate(() -> writeSnapshot(hotel), snapshotMinutes, snapshotMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    //Stops periodic snapshots, waits for a background save to finish and closes the journal. Call after the final saveData.
+    public void stopJournal(Hotel hotel) {
+        ScheduledExecutorService worker;
+        synchronized (this) {
+            worker = saveWorker;
+            saveWorker = null;
+        }
+        if (worker != null) {
+            worker.shutdown();
             try {
-                String[] parts = lines.get(i).split(",");
-                if (parts.length < 4) continue;// Skip if data is missing
-
-                String type = parts[0];
-                String number = parts[1];
-                int capacity = Integer.parseInt(parts[2]);
-                double price = Double.parseDouble(parts[3]);
-
-                if (type.equals("STANDARD")) {
-                    String[] extras = parts[4].split(";");
-                    boolean wifi = Boolean.parseBoolean(extras[0]);
-                    boolean tv = Boolean.parseBoolean(extras[1]);
-                    hotel.addRoom(new StandardRoom(number, capacity, price, wifi, tv));
-                } else if (type.equals("DELUXE")) {
-                    String[] extras = parts[4].split(";");
-                    boolean minibar = Boolean.parseBoolean(extras[0]);
-                    boolean jacuzzi = Boolean.parseBoolean(extras[1]);
-                    boolean balcony = Boolean.parseBoolean(extras[2]);
-                    double tax = Double.parseDouble(extras[3]);
-                    hotel.addRoom(new DeluxeRoom(number, capacity, price, minibar, jacuzzi, balcony, tax));
+                while (!worker.awaitTermination(1, TimeUnit.MINUTES)) {
+                    report("Waiting for the background save to finish...");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (journal != null) {
+            hotel.setJournal(null);
+            journal.close();
+            journal = null;
+        }
+    }
+
+    // Writes the data files from a copy of the hotel's lists, as one new generation of the file set.
+    // With a journal, the current segment is set aside first and only deleted once the files are in place,
+    // so a crash in between loses nothing (replay skips what the snapshot already has).
+    // Returns false (and keeps the old files and the journal) if anything fails.
+    private synchronized boolean writeSnapshot(Hotel hotel) {
+        try {
+            if (journal != null) journal.rotate();
+        } catch (IOException e) {
+            report("Error rotating journal: " + e.getMessage());
+            return false;
+        }
+        Metrics metrics = hotel.getMetrics();
+        long start = System.nanoTime();
+        ArrayList<Room> rooms = copyOf(hotel.getRooms());
+        ArrayList<Customer> customers = copyOf(hotel.getCustomers());
+        LazyReservationHistory lazy = history;
+        try {
+            timedWrite(metrics, "save.rooms", rooms.size(), () -> saveRooms(rooms));
+            timedWrite(metrics, "save.customers", customers.size(), () -> saveCustomers(customers));
+            if (lazy == null) {
+                ArrayList<Reservation> reservations = copyOf(hotel.getReservations());
+                timedWrite(metrics, "save.reservations", reservations.size(), () -> saveReservations(reservations, null));
+                // Written last, so it is never older than the CSV files it was made with
+                timedWrite(metrics, "save.snapshot", rooms.size() + customers.size() + reservations.size(), () -> {
+                    try (OutputStream out = files.openStream(snapshotFile)) {
+                        BinarySnapshot.write(out, rooms, customers, reservations);
+                    }
+                });
+            } else {
+                // Holding the history's lock keeps rows from moving between it and the hotel's list meanwhile
+                synchronized (lazy) {
+                    ArrayList<Reservation> reservations = copyOf(hotel.getReservations());
+                    timedWrite(metrics, "save.reservations", reservations.size() + lazy.getUnloadedCount(),
+                            () -> saveReservations(reservations, lazy));
                 }
-            } catch (Exception e) {
-                System.out.println("Skipping corrupted room data at line: " + (i + 1));
+                // Part of the reservations are only in the CSV file: a binary snapshot would miss them
+                Files.deleteIfExists(Paths.get(snapshotFile));
             }
+            files.commit();
+        } catch (IOException e) {
+            abortFiles();
+            metrics.counter("save.failed").increment();
+            report("Error writing file: " + e.getMessage());
+            return false;
+        }
+        metrics.histogram("save.total").recordSince(start);
+        try {
+            if (journal != null) journal.deleteRotated();
+        } catch (IOException e) {
+            report("Error cleaning up journal: " + e.getMessage());
         }
+        return true;
     }
 
-    private void saveCustomers(ArrayList<Customer> customers) {
-        ArrayList<String> lines = new ArrayList<>();
-        lines.add("ID,FirstName,LastName,Email,Phone,Points");
+    // The hotel appends to its lists while holding their lock, so copying under it gives a consistent list
+    private static <T> ArrayList<T> copyOf(ArrayList<T> list) {
+        synchronized (list) {
+            return new ArrayList<>(list);
+        }
+    }
 
-        for (Customer c : customers) {
-            lines.add(c.getCustomerId() + "," + c.getFirstName() + "," + c.getLastName() + "," +
-                    c.getEmail() + "," + c.getPhoneNumber() + "," + c.getLoyaltyPoints());
+    /**
+     * Applies every journal entry that the CSV files do not have yet.
+     * Entries are idempotent (rooms, customers and reservations are skipped if they already exist,
+     * points and status store the final value), so replaying an entry twice is harmless.
+     * @return The number of entries read.
+     */
+    int replayJournal(Hotel hotel) {
+        int count = 0;
+        for (String segment : BookingJournal.segments(journalFile)) {
+            try (CsvReader csv = CsvReader.open(segment)) {
+                while (csv.next()) {
+                    count++;
+                    // A crash can leave a half-written last line: skip it like any corrupted row
+                    if (!replayEntry(hotel, csv)) {
+                        report("Skipping corrupted journal entry at line: " + csv.getLineNumber());
+                    }
+                }
+            } catch (IOException e) {
+                report("Error reading file: " + e.getMessage());
+            }
         }
-        FileOps.writeFile(CUSTOMERS_FILE, lines);
+        return count;
     }
 
-    private void loadCustomers(Hotel hotel) {
-        ArrayList<String> lines = FileOps.readFile(CUSTOMERS_FILE);
-        for (int i = 1; i < lines.size(); i++) {
+    // Returns false if the entry is corrupted
+    private boolean replayEntry(Hotel hotel, CsvReader csv) {
+        if (csv.fieldEquals(0, BookingJournal.ROOM)) {
+            Room room = parseRoom(csv, 1);
+            if (room == null) return !csv.hasError();
+            if (hotel.findRoom(room.getRoomNumber()) == null) hotel.addRoom(room);
+        } else if (csv.fieldEquals(0, BookingJournal.CUSTOMER)) {
+            Customer c = parseCustomer(csv, 1, 0);
+            if (c == null) return false;
+            if (hotel.findCustomerByEmail(c.getEmail()) == null) hotel.registerCustomer(c);
+        } else if (csv.fieldEquals(0, BookingJournal.RESERVATION)) {
+            if (csv.getFieldCount() < 7) return false;
+            if (hotel.findReservation(csv.getString(1)) == null) {
+                Reservation res = parseReservation(hotel, csv, 1);
+                if (res != null) hotel.addReservation(res);
+            }
+            return !csv.hasError();
+        } else if (csv.fieldEquals(0, BookingJournal.POINTS)) {
+            Customer customer = hotel.findCustomerByEmail(csv.getString(1));
+            int points = csv.getInt(2);
+            if (csv.hasError()) return false;
+            if (customer != null) customer.setLoyaltyPoints(points);
+        } else if (csv.fieldEquals(0, BookingJournal.STATUS)) {
+            if (csv.getFieldCount() < 3) return false;
+            Reservation res = hotel.findReservation(csv.getString(1));
+            if (res != null) hotel.updateReservationStatus(res, csv.getString(2));
+        } else {
+            return false;
+        }
+        return true;
+    }
 
-            // Skip corrupted lines to prevent system crash
-            try {
-                String[] parts = lines.get(i).split(",");
-                if (parts.length < 6) continue;
+    // Row formats shared by the CSV files and the journal
+
+    static void writeRoom(CsvWriter out, Room room) throws IOException {
+        if (room instanceof StandardRoom std) {
+            out.field("STANDARD").field(room.getRoomNumber()).field(room.getCapacity())
+               .field(room.getBasePrice()).parts(std.hasWifi(), std.hasTV());
+        } else if (room instanceof DeluxeRoom dlx) {
+            out.field("DELUXE").field(room.getRoomNumber()).field(room.getCapacity())
+               .field(room.getBasePrice()).parts(dlx.hasMiniBar(), dlx.hasJacuzzi(), dlx.hasBalcony(), dlx.getLuxuryTax());
+        }
+    }
+
+    // Returns null for unknown room types and for corrupted rows (check csv.hasError())
+    static Room parseRoom(CsvReader csv, int offset) {
+        if (csv.getFieldCount() < offset + 5) return null;// Skip if data is missing
+        String number = csv.getString(offset + 1);
+        int capacity = csv.getInt(offset + 2);
+        double price = csv.getDouble(offset + 3);
+        int extras = offset + 4;
+
+        Room room = null;
+        if (csv.fieldEquals(offset, "STANDARD")) {
+            boolean wifi = csv.getBoolean(extras, 0, ';');
+            boolean tv = csv.getBoolean(extras, 1, ';');
+            room = new StandardRoom(number, capacity, price, wifi, tv);
+        } else if (csv.fieldEquals(offset, "DELUXE")) {
+            boolean minibar = csv.getBoolean(extras, 0, ';');
+            boolean jacuzzi = csv.getBoolean(extras, 1, ';');
+            boolean balcony = csv.getBoolean(extras, 2, ';');
+            double tax = csv.getDouble(extras, 3, ';');
+            room = new DeluxeRoom(number, capacity, price, minibar, jacuzzi, balcony, tax);
+        }
+        return csv.hasError() ? null : room;
+    }
+
+    static void writeCustomer(CsvWriter out, Customer c) throws IOException {
+        writeCustomer(out, c.getCustomerId(), c.getFirstName(), c.getLastName(), c.getEmail(), c.getPhoneNumber(), c.getLoyaltyPoints());
+    }
+
+    // Same row from plain values, for writers that have no Customer object (see HotelDataGenerator)
+    static void writeCustomer(CsvWriter out, String id, String firstName, String lastName,
+                              String email, String phone, int points) throws IOException {
+        out.field(id).field(firstName).field(lastName).field(email).field(phone).field(points);
+    }
+
+    // Returns null for corrupted rows; savedAt is when the row was written (see Customer.restoreLoyaltyPoints)
+    static Customer parseCustomer(CsvReader csv, int offset, long savedAt) {
+        if (csv.getFieldCount() < offset + 6) return null;
+        int points = csv.getInt(offset + 5);
+        if (csv.hasError()) return null;
+
+        // Create customer and restore points
+        Customer c = new Customer(csv.getString(offset), csv.getString(offset + 1), csv.getString(offset + 2),
+                csv.getString(offset + 3), csv.getString(offset + 4));
+        c.restoreLoyaltyPoints(points, savedAt);
+        return c;
+    }
+
+    // We save Email and RoomNumber to link them back later
+    static void writeReservation(CsvWriter out, Reservation r) throws IOException {
+        writeReservation(out, r.getReservationId(), r.getCustomer().getEmail(), r.getRoom().getRoomNumber(),
+                r.getCheckInDay(), r.getCheckOutDay(), r.getStatus());
+    }
+
+    // Same row from plain values; days are epoch days
+    static void writeReservation(CsvWriter out, String id, String email, String roomNumber,
+                                 long checkInDay, long checkOutDay, String status) throws IOException {
+        out.field(id).field(email).field(roomNumber).field(LocalDate.ofEpochDay(checkInDay).toString())
+           .field(LocalDate.ofEpochDay(checkOutDay).toString()).field(status);
+    }
+
+    // Returns null if the customer or room is unknown, or the row is corrupted (check csv.hasError())
+    static Reservation parseReservation(Hotel hotel, CsvReader csv, int offset) {
+        long checkIn = csv.getEpochDay(offset + 3);
+        long checkOut = csv.getEpochDay(offset + 4);
+        if (csv.hasError()) return null;
+
+        // We need to find the real objects using Email and Room Number
+        Customer customer = hotel.findCustomerByEmail(csv.getString(offset + 1));
+        Room room = hotel.findRoom(csv.getString(offset + 2));
+        if (customer == null || room == null) return null;
+
+        Reservation res = new Reservation(csv.getString(offset), customer, room,
+                LocalDate.ofEpochDay(checkIn), LocalDate.ofEpochDay(checkOut));
+        res.setStatus(csv.getString(offset + 5));
+        return res;
+    }
 
-                // Create customer and restore points
-                Customer c = new Customer(parts[1], parts[2], parts[3], parts[4]);
-                c.addLoyaltyPoints(Integer.parseInt(parts[5]));
-                hotel.registerCustomer(c);
-            } catch (Exception e) {
-                System.out.println("Skipping corrupted customer data at line: " + (i + 1));
+    private void saveRooms(ArrayList<Room> rooms) throws IOException {
+        try (BufferedWriter writer = files.openWriter(roomsFile)) {
+            writer.write(ROOMS_HEADER);
+            CsvWriter csv = new CsvWriter(writer);
+            for (Room room : rooms) {
+                writeRoom(csv, room);
+                csv.endRow();
             }
         }
     }
 
-    private void saveReservations(ArrayList<Reservation> reservations) {
-        ArrayList<String> lines = new ArrayList<>();
-        lines.add("ID,CustomerEmail,RoomNumber,CheckIn,CheckOut,Status");
+    private Parsed<Room> readRooms() {
+        Parsed<Room> parsed = new Parsed<>();
+        try (CsvReader csv = CsvReader.open(roomsFile)) {
+            csv.next(); // Skip header
+            while (csv.next()) {
+                Room room = parseRoom(csv, 0);
+                if (room != null) {
+                    parsed.items.add(room);
+                } else if (csv.hasError()) {
+                    parsed.skippedLines.add(csv.getLineNumber());
+                }
+            }
+        } catch (IOException e) {
+            report("Error reading file: " + e.getMessage());
+        }
+        return parsed;
+    }
 
-        // We save Email and RoomNumber to link them back later
-        for (Reservation r : reservations) {
-            lines.add(r.getReservationId() + "," + r.getCustomer().getEmail() + "," +
-                      r.getRoom().getRoomNumber() + "," + r.getCheckInDate() + "," +
-                      r.getCheckOutDate() + "," + r.getStatus());
+    private void saveCustomers(ArrayList<Customer> customers) throws IOException {
+        try (BufferedWriter writer = files.openWriter(customersFile)) {
+            writer.write(CUSTOMERS_HEADER);
+            CsvWriter csv = new CsvWriter(writer);
+            for (Customer c : customers) {
+                writeCustomer(csv, c);
+                csv.endRow();
+            }
         }
-        FileOps.writeFile(RESERVATIONS_FILE, lines);
     }
 
-    private void loadReservations(Hotel hotel) {
-        ArrayList<String> lines = FileOps.readFile(RESERVATIONS_FILE);
-        for (int i = 1; i < lines.size(); i++) {
+    private Parsed<Customer> readCustomers() {
+        Parsed<Customer> parsed = new Parsed<>();
+        try (CsvReader csv = CsvReader.open(customersFile)) {
+            long savedAt = Files.getLastModifiedTime(Paths.get(customersFile)).toMillis();
+            csv.next(); // Skip header
+            while (csv.next()) {
+                if (csv.getFieldCount() < 6) continue;
+                Customer c = parseCustomer(csv, 0, savedAt);
+                if (c != null) {
+                    parsed.items.add(c);
+                } else {
+                    parsed.skippedLines.add(csv.getLineNumber());
+                }
+            }
+        } catch (IOException e) {
+            report("Error reading file: " + e.getMessage());
+        }
+        return parsed;
+    }
 
-            // Skip corrupted lines to prevent system crash
-            try {
-                String[] parts = lines.get(i).split(",");
-                if (parts.length < 6) continue;
-                // We need to find the real objects using Email and Room Number
-                Customer customer = hotel.findCustomerByEmail(parts[1]);
-                Room room = hotel.findRoom(parts[2]);
-
-                if (customer != null && room != null) {
-                    Reservation res = new Reservation(customer, room, LocalDate.parse(parts[3]), LocalDate.parse(parts[4]));
-                    res.setStatus(parts[5]);
-
-                    // Link the reservation to everything
-                    hotel.getReservations().add(res);
-                    room.addReservation(res);
-                    customer.addReservation(res);
+    // Rows not loaded yet (lazy history) are copied as they are, after the loaded ones
+    private void saveReservations(ArrayList<Reservation> reservations, LazyReservationHistory lazy) throws IOException {
+        try (BufferedWriter writer = files.openWriter(reservationsFile)) {
+            writer.write(RESERVATIONS_HEADER);
+            CsvWriter csv = new CsvWriter(writer);
+            for (Reservation r : reservations) {
+                writeReservation(csv, r);
+                csv.endRow();
+            }
+            if (lazy != null) lazy.writeUnloaded(writer);
+        }
+    }
+
+    private Parsed<ReservationRow> readReservations() {
+        try (CsvReader csv = CsvReader.open(reservationsFile)) {
+            csv.next(); // Skip header
+            return readReservationRows(csv);
+        } catch (IOException e) {
+            report("Error reading file: " + e.getMessage());
+            return new Parsed<>();
+        }
+    }
+
+    private static Parsed<ReservationRow> readReservationRows(CsvReader csv) throws IOException {
+        Parsed<ReservationRow> parsed = new Parsed<>();
+        while (csv.next()) {
+            if (csv.getFieldCount() < 6) continue;
+            ReservationRow row = new ReservationRow(csv);
+            if (csv.hasError()) {
+                parsed.skippedLines.add(csv.getLineNumber());
+            } else {
+                parsed.items.add(row);
+            }
+        }
+        return parsed;
+    }
+
+    // Splits the file into byte ranges of whole records and parses them on the pool,
+    // each task streaming its own range from the file. Returns the chunks in file order.
+    private List<Parsed<ReservationRow>> readReservationsInChunks(ForkJoinPool pool) {
+        Path path = Paths.get(reservationsFile);
+        long[][] chunks;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunkCount = (int) Math.max(1, Math.min(pool.getParallelism() * 4L, size / MIN_CHUNK_BYTES));
+            chunks = splitRecords(channel, size, chunkCount);
+        } catch (NoSuchFileException e) {
+            return List.of();
+        } catch (IOException e) {
+            report("Error reading file: " + e.getMessage());
+            return List.of();
+        }
+        long[] offsets = chunks[0];
+        long[] firstLines = chunks[1];
+
+        ArrayList<ForkJoinTask<Parsed<ReservationRow>>> tasks = new ArrayList<>();
+        for (int i = 0; i + 1 < offsets.length; i++) {
+            long start = offsets[i];
+            long end = offsets[i + 1];
+            int firstLine = (int) firstLines[i];
+            boolean header = i == 0;
+            tasks.add(pool.submit(() -> {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    Reader reader = new InputStreamReader(new RangeInputStream(channel, start, end), StandardCharsets.UTF_8);
+                    CsvReader csv = new CsvReader(reader, firstLine, start);
+                    if (header) csv.next(); // Skip header
+                    return readReservationRows(csv);
                 }
-            } catch (Exception e) {
-                System.out.println("Skipping corrupted reservation data at line: " + (i + 1));
+            }));
+        }
+        ArrayList<Parsed<ReservationRow>> results = new ArrayList<>();
+        try {
+            for (ForkJoinTask<Parsed<ReservationRow>> task : tasks) {
+                results.add(task.join());
             }
+        } catch (RuntimeException e) {
+            report("Error reading file: " + e.getMessage());
+            return List.of();
+        }
+        return results;
+    }
+
+    /**
+     * Splits a CSV file into about chunkCount byte ranges that each end after a line break outside quotes,
+     * so no record (even one with a quoted line break) is cut in two.
+     * Quotes and line breaks are single bytes in UTF-8, so the bytes are scanned without decoding,
+     * a buffer at a time: only the split points are kept, never the file.
+     * @return {chunk start offsets plus the end offset, line number each chunk starts at}
+     */
+    static long[][] splitRecords(FileChannel channel, long size, int chunkCount) throws IOException {
+        long[] offsets = new long[chunkCount + 1];
+        long[] firstLines = new long[chunkCount];
+        int found = 1;
+        firstLines[0] = 1;
+        long line = 1;
+        boolean quoted = false;
+        long target = size / chunkCount;
+        ByteBuffer buffer = ByteBuffer.allocate(SPLIT_BUFFER_BYTES);
+        long position = 0;
+        while (position < size && found < chunkCount) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) break;
+            for (int i = 0; i < read && found < chunkCount; i++) {
+                byte b = buffer.get(i);
+                if (b == '"') {
+                    quoted = !quoted; // An escaped "" flips twice
+                } else if (b == '\n') {
+                    line++;
+                    if (!quoted && position + i + 1 >= target) {
+                        offsets[found] = position + i + 1;
+                        firstLines[found] = line;
+                        found++;
+                        target = size * found / chunkCount;
+                    }
+                }
+            }
+            position += read;
+        }
+        offsets[found] = size;
+        return new long[][]{Arrays.copyOf(offsets, found + 1), Arrays.copyOf(firstLines, found)};
+    }
+
+    // The bytes [position, end) of a file, read with positional reads so each task can have its own range
+    private static class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        RangeInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) return -1;
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+            if (n < 0) return -1;
+            position += n;
+            return n;
         }
     }
 }
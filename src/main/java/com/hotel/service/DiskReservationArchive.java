@@ -0,0 +1,215 @@
+package com.hotel.service;
+
+import com.hotel.model.*;
+import com.hotel.util.PageStore;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+//Keeps archived reservations in a PageStore file, so only its page cache is on the heap.
+//Customers are found by email, as in reservations.csv, since that is what identifies a guest across a chain.
+//The history index is keyed by a fixed-size hash of the email, so a long email still fits in a key;
+//the email itself is the entry's value, and entries of other emails with the same hash are skipped.
+//Keys:
+//  "r" + reservation id                                         -> customer email, room number, dates, status
+//  "c" + email hash (hex) + 0 + check-in (hex) + 0 + res id     -> customer email (a customer's history in check-in order)
+public class DiskReservationArchive implements ReservationArchive {
+    private static final String RESERVATION = "r";
+    private static final String BY_CUSTOMER = "c";
+    private static final char SEPARATOR = '\0';
+    private static final int FLUSH_EVERY = 1024; // Changed pages stay in memory until flushed
+
+    private final PageStore store;
+    private volatile HotelListener listener; // Where errors go, null to drop them
+
+    /**
+     * @param filename The archive file, e.g. "data/archive.db".
+     * @param cachePages How many 4 KB pages to keep in memory.
+     */
+    public DiskReservationArchive(String filename, int cachePages) throws IOException {
+        this.store = new PageStore(filename, cachePages);
+    }
+
+    public HotelListener getListener() { return listener; }
+    public void setListener(HotelListener listener) { this.listener = listener; }
+
+    // Sends a message to the listener, if there is one
+    private void report(String text) {
+        HotelListener l = listener;
+        if (l != null) l.message(text);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Every entry is built and checked first, so a reservation too large for a page
+     * (e.g. a very long ID or email) fails the call with nothing written.
+     */
+    @Override
+    public synchronized void archive(List<Reservation> reservations) throws IOException {
+        int n = reservations.size();
+        String[] keys = new String[2 * n];
+        byte[][] values = new byte[2 * n][];
+        for (int i = 0; i < n; i++) {
+            Reservation res = reservations.get(i);
+            if (!fillEntries(res, keys, values, 2 * i)) {
+                throw new IOException("Reservation " + res.getReservationId() + " is too large to archive");
+            }
+        }
+        for (int k = 0; k < keys.length; k++) {
+            if (k > 0 && k % (2 * FLUSH_EVERY) == 0) store.flush();
+            store.put(keys[k], values[k]);
+        }
+        store.flush();
+    }
+
+    @Override
+    public boolean canArchive(Reservation res) {
+        try {
+            return fillEntries(res, new String[2], new byte[2][], 0);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Builds the two entries of a reservation at keys[at], keys[at + 1]; returns false if one does not fit a page
+    private static boolean fillEntries(Reservation res, String[] keys, byte[][] values, int at) throws IOException {
+        String email = res.getCustomer().getEmail();
+        keys[at] = RESERVATION + res.getReservationId();
+        values[at] = encode(res);
+        keys[at + 1] = customerKey(email) + sortableDay(res.getCheckInDate()) + SEPARATOR + res.getReservationId();
+        values[at + 1] = email.getBytes(StandardCharsets.UTF_8);
+        return PageStore.fits(keys[at], values[at]) && PageStore.fits(keys[at + 1], values[at + 1]);
+    }
+
+    @Override
+    public Reservation find(String reservationId, Hotel hotel) {
+        try {
+            byte[] row = store.get(RESERVATION + reservationId);
+            return row == null ? null : decode(reservationId, row, hotel);
+        } catch (IOException e) {
+            report("Error reading archive: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public List<Reservation> findByCustomer(Customer customer, Hotel hotel) {
+        ArrayList<String> ids = new ArrayList<>();
+        String prefix = customerKey(customer.getEmail());
+        byte[] email = customer.getEmail().getBytes(StandardCharsets.UTF_8);
+        try {
+            store.scan(prefix, (key, value) -> {
+                if (Arrays.equals(value, email)) ids.add(key.substring(key.lastIndexOf(SEPARATOR) + 1));
+                return true;
+            });
+        } catch (IOException e) {
+            report("Error reading archive: " + e.getMessage());
+        }
+        ArrayList<Reservation> result = new ArrayList<>();
+        for (String id : ids) {
+            Reservation res = find(id, hotel);
+            if (res != null) result.add(res);
+        }
+        return result;
+    }
+
+    @Override
+    public int countByCustomer(Customer customer) {
+        int[] count = {0};
+        byte[] email = customer.getEmail().getBytes(StandardCharsets.UTF_8);
+        try {
+            store.scan(customerKey(customer.getEmail()), (key, value) -> {
+                if (Arrays.equals(value, email)) count[0]++;
+                return true;
+            });
+        } catch (IOException e) {
+            report("Error reading archive: " + e.getMessage());
+        }
+        return count[0];
+    }
+
+    @Override
+    public void forEach(Hotel hotel, Consumer<Reservation> action) {
+        try {
+            store.scan(RESERVATION, (key, value) -> {
+                Reservation res = decode(key.substring(RESERVATION.length()), value, hotel);
+                if (res != null) action.accept(res);
+                return true;
+            });
+        } catch (IOException e) {
+            report("Error reading archive: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public int size() {
+        // Every reservation has exactly two keys
+        return (int) (store.size() / 2);
+    }
+
+    //The underlying store (for cache statistics).
+    public PageStore getStore() {
+        return store;
+    }
+
+    @Override
+    public void close() {
+        try {
+            store.close();
+        } catch (IOException e) {
+            report("Error closing archive: " + e.getMessage());
+        }
+    }
+
+    // "c" + 64-bit FNV-1a hash of the email's UTF-8 bytes, in fixed-width hex
+    private static String customerKey(String email) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : email.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        return BY_CUSTOMER + String.format("%016x", hash) + SEPARATOR;
+    }
+
+    // Fixed-width hex with the sign bit flipped, so string order is date order (also before 1970)
+    private static String sortableDay(LocalDate date) {
+        return String.format("%08x", (int) date.toEpochDay() ^ Integer.MIN_VALUE);
+    }
+
+    private static byte[] encode(Reservation res) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(res.getCustomer().getEmail());
+        out.writeUTF(res.getRoom().getRoomNumber());
+        out.writeInt(res.getCheckInDay());
+        out.writeInt(res.getCheckOutDay());
+        out.writeUTF(res.getStatus());
+        return bytes.toByteArray();
+    }
+
+    // Returns null if the customer or room is no longer in the hotel
+    private Reservation decode(String reservationId, byte[] row, Hotel hotel) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(row));
+            Customer customer = hotel.findCustomerByEmail(in.readUTF());
+            Room room = hotel.findRoom(in.readUTF());
+            LocalDate checkIn = LocalDate.ofEpochDay(in.readInt());
+            LocalDate checkOut = LocalDate.ofEpochDay(in.readInt());
+            String status = in.readUTF();
+            if (customer == null || room == null) return null;
+            Reservation res = new Reservation(reservationId, customer, room, checkIn, checkOut);
+            res.setStatus(status);
+            return res;
+        } catch (IOException e) {
+            report("Skipping corrupted archived reservation: " + reservationId);
+            return null;
+        }
+    }
+}
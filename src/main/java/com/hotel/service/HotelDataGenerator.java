@@ -0,0 +1,183 @@
+package com.hotel.service;
+
+import com.hotel.model.*;
+import com.hotel.util.CsvWriter;
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Random;
+
+//Makes up a large, realistic hotel for load and scale tests: floors of standard and deluxe rooms,
+//customers with names and emails, and reservations whose check-ins follow the seasons
+//(busy summers and holidays) and the week (more arrivals on Fridays and Saturdays).
+//The same seed, sizes and "today" always give the same files (main uses the current date unless one
+//is given). Rows are written as they are made, so millions of reservations need no more memory
+//than a few arrays the size of the room count.
+//Usage: HotelDataGenerator [directory] [rooms] [customers] [reservations] [seed] [today, e.g. 2025-06-01]
+public class HotelDataGenerator {
+
+    private static final int ROOMS_PER_FLOOR = 40;
+    private static final double AVERAGE_NIGHTS = 2.6;
+    private static final double TARGET_OCCUPANCY = 0.6; // Leaves room for the busy days
+    private static final int FUTURE_DAYS = 180; // Check-ins are planned this far ahead of "today"
+    private static final int ROOM_TRIES = 8; // Random rooms tried per arrival before it is turned away
+
+    // Demand by month, January first, and by day of the week, Monday first
+    private static final double[] SEASON = {0.70, 0.75, 0.85, 0.95, 1.05, 1.25, 1.45, 1.45, 1.05, 0.90, 0.75, 1.00};
+    private static final double[] WEEKDAY = {0.80, 0.85, 0.90, 1.00, 1.40, 1.30, 0.75};
+
+    private static final String[] FIRST_NAMES = {"Ayse", "Mehmet", "Elif", "Can", "Zeynep", "Emre", "Maria", "John",
+            "Anna", "David", "Sofia", "Lucas", "Emma", "Noah", "Olivia", "Liam", "Mia", "Yusuf", "Ali", "Deniz"};
+    private static final String[] LAST_NAMES = {"Yilmaz", "Kaya", "Demir", "Celik", "Sahin", "Smith", "Johnson",
+            "Garcia", "Muller", "Rossi", "Novak", "Ozturk", "Aydin", "Brown", "Martin", "Silva"};
+
+    private final long seed;
+    private final int roomCount;
+    private final int customerCount;
+    private final long reservationCount;
+    private final LocalDate today;
+
+    /**
+     * @param rooms Number of rooms (about a quarter of them deluxe).
+     * @param reservations Number of reservations wanted; fewer are written only if the rooms cannot take them.
+     * @param today Reservations ending before this day are history, later ones are still to come.
+     */
+    public HotelDataGenerator(long seed, int rooms, int customers, long reservations, LocalDate today) {
+        if (rooms <= 0 || customers <= 0 || reservations < 0) {
+            throw new IllegalArgumentException("Rooms and customers must be positive, reservations not negative");
+        }
+        this.seed = seed;
+        this.roomCount = rooms;
+        this.customerCount = customers;
+        this.reservationCount = reservations;
+        this.today = today;
+    }
+
+    public static void main(String[] args) {
+        String directory = args.length > 0 ? args[0] : "data";
+        int rooms = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int customers = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+        long reservations = args.length > 3 ? Long.parseLong(args[3]) : 10_000_000L;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42;
+        LocalDate today = args.length > 5 ? LocalDate.parse(args[5]) : LocalDate.now();
+
+        DataService dataService = new DataService(directory);
+        dataService.setListener(System.out::println);
+        long start = System.nanoTime();
+        if (dataService.saveGenerated(new HotelDataGenerator(seed, rooms, customers, reservations, today))) {
+            System.out.printf("Written to %s in %.1f s%n", directory, (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    public int getRoomCount() { return roomCount; }
+    public int getCustomerCount() { return customerCount; }
+
+    //Room numbers go floor by floor: 101, 102, ... 140, 201, ...
+    public static String roomNumber(int room) {
+        return (room / ROOMS_PER_FLOOR + 1) + String.format("%02d", room % ROOMS_PER_FLOOR + 1);
+    }
+
+    //Emails are unique, so reservations can refer to customers by them.
+    public static String email(int customer) {
+        return "guest" + (customer + 1) + "@example.com";
+    }
+
+    // Each file has its own random sequence, so any one of them can be written on its own
+    private Random random(int stream) {
+        return new Random(seed * 31 + stream);
+    }
+
+    //Writes one row per room, without the header.
+    void writeRooms(CsvWriter out) throws IOException {
+        Random random = random(1);
+        for (int i = 0; i < roomCount; i++) {
+            String number = roomNumber(i);
+            Room room;
+            if (random.nextInt(4) == 0) {
+                int capacity = 2 + random.nextInt(3);
+                double price = 150 + 10 * random.nextInt(16) + 20 * capacity;
+                room = new DeluxeRoom(number, capacity, price, random.nextInt(10) < 8, random.nextBoolean(),
+                        random.nextInt(10) < 6, 0.05 * (2 + random.nextInt(4)));
+            } else {
+                int capacity = 1 + random.nextInt(3);
+                double price = 60 + 5 * random.nextInt(10) + 20 * capacity;
+                room = new StandardRoom(number, capacity, price, random.nextInt(20) > 0, random.nextInt(10) < 7);
+            }
+            DataService.writeRoom(out, room);
+            out.endRow();
+        }
+    }
+
+    //Writes one row per customer, without the header.
+    void writeCustomers(CsvWriter out) throws IOException {
+        Random random = random(2);
+        for (int i = 0; i < customerCount; i++) {
+            String phone = String.format("555%07d", random.nextInt(10_000_000));
+            int points = random.nextInt(4) == 0 ? 10 * random.nextInt(100) : 0;
+            DataService.writeCustomer(out, "CUST" + (i + 1), FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                    LAST_NAMES[random.nextInt(LAST_NAMES.length)], email(i), phone, points);
+            out.endRow();
+        }
+    }
+
+    /**
+     * Writes the reservations in check-in order, without the header. Stays in one room never overlap.
+     * The days covered are chosen so the rooms end up about 60% full on average.
+     * @return The number of rows written.
+     */
+    long writeReservations(CsvWriter out) throws IOException {
+        Random random = random(3);
+        long days = Math.max(30, (long) Math.ceil(reservationCount * AVERAGE_NIGHTS / (roomCount * TARGET_OCCUPANCY)));
+        long last = today.toEpochDay() + FUTURE_DAYS;
+        long first = last - days + 1;
+
+        double totalDemand = 0;
+        for (long day = first; day <= last; day++) totalDemand += demand(day);
+
+        long[] freeFrom = new long[roomCount]; // First day each room is free again
+        long written = 0;
+        double demandSoFar = 0;
+        // Guests turned away on a full day come back the next one, even after the last planned day
+        for (long day = first; day <= last + days && written < reservationCount; day++) {
+            if (day <= last) demandSoFar += demand(day);
+            long due = day < last ? Math.round(reservationCount * demandSoFar / totalDemand) : reservationCount;
+            long arrivals = due - written;
+            DayOfWeek weekday = LocalDate.ofEpochDay(day).getDayOfWeek();
+            boolean weekend = weekday == DayOfWeek.FRIDAY || weekday == DayOfWeek.SATURDAY;
+            for (long a = 0; a < arrivals; a++) {
+                int room = freeRoom(random, freeFrom, day);
+                if (room < 0) continue;// Hotel full: still due tomorrow
+                int nights = weekend ? 1 + random.nextInt(2) : 1 + (int) Math.min(13, -Math.log(1 - random.nextDouble()) * 2.2);
+                freeFrom[room] = day + nights;
+                // Loyal guests come back: low customer numbers book far more often
+                int customer = (int) (customerCount * Math.pow(random.nextDouble(), 2));
+                written++;
+                DataService.writeReservation(out, "RES" + written, email(customer), roomNumber(room),
+                        day, day + nights, status(random, day + nights));
+                out.endRow();
+            }
+        }
+        return written;
+    }
+
+    private static double demand(long day) {
+        LocalDate date = LocalDate.ofEpochDay(day);
+        return SEASON[date.getMonthValue() - 1] * WEEKDAY[date.getDayOfWeek().getValue() - 1];
+    }
+
+    // A random room free on the day, or -1 if none was found after a few tries
+    private int freeRoom(Random random, long[] freeFrom, long day) {
+        for (int i = 0; i < ROOM_TRIES; i++) {
+            int room = random.nextInt(roomCount);
+            if (freeFrom[room] <= day) return room;
+        }
+        return -1;
+    }
+
+    private String status(Random random, long checkOut) {
+        int roll = random.nextInt(100);
+        if (checkOut <= today.toEpochDay()) return roll < 7 ? "CANCELLED" : "CONFIRMED";
+        if (roll < 5) return "CANCELLED";
+        return roll < 60 ? "CONFIRMED" : "PENDING";
+    }
+}
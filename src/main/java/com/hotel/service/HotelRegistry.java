@@ -0,0 +1,242 @@
+package com.hotel.service;
+
+import com.hotel.model.Customer;
+import com.hotel.model.CustomerDirectory;
+import com.hotel.model.Hotel;
+import com.hotel.model.HotelListener;
+import com.hotel.model.Room;
+import com.hotel.util.CsvReader;
+import com.hotel.util.CsvWriter;
+import com.hotel.util.FileOps;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//The hotels of a chain, in one JVM. Each property is a Hotel with its own DataService and data directory
+//(<root>/<id>/), so its rooms, reservations, locks and files are its own and bookings at different
+//properties never contend. The properties are listed in <root>/properties.csv.
+//Customers are shared through one CustomerDirectory: a guest is the same Customer at every property,
+//with one ID in the whole chain, and their archived history is found by email.
+//Loading, saving and searching the whole chain run one task per property on a fixed pool of threads.
+public class HotelRegistry {
+    static final String PROPERTIES_HEADER = "ID,Name,Address\n";
+
+    private final String rootDirectory;
+    private final String propertiesFile;
+    private final ConcurrentSkipListMap<String, Property> properties = new ConcurrentSkipListMap<>(); // By ID, in ID order
+    private final CustomerDirectory customers = new CustomerDirectory();
+    private final ExecutorService workers;
+    private volatile HotelListener listener; // Where messages go, null to drop them (no console)
+
+    private static class Property {
+        final String id;
+        final Hotel hotel;
+        final DataService dataService;
+
+        Property(String id, Hotel hotel, DataService dataService) {
+            this.id = id;
+            this.hotel = hotel;
+            this.dataService = dataService;
+        }
+    }
+
+    //A free room found by a search across the chain.
+    public record Availability(String propertyId, Hotel hotel, Room room) {}
+
+    //Uses one worker thread per processor.
+    public HotelRegistry(String rootDirectory) {
+        this(rootDirectory, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param rootDirectory Directory holding properties.csv and one data directory per property.
+     * @param threads Worker threads for loading, saving and searching.
+     */
+    public HotelRegistry(String rootDirectory, int threads) {
+        this.rootDirectory = rootDirectory;
+        this.propertiesFile = rootDirectory + "/properties.csv";
+        this.workers = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "registry-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        new File(rootDirectory).mkdirs();
+    }
+
+    public HotelListener getListener() { return listener; }
+    public void setListener(HotelListener listener) { this.listener = listener; }
+
+    // Sends a message to the listener, if there is one
+    private void report(String text) {
+        HotelListener l = listener;
+        if (l != null) l.message(text);
+    }
+
+    /**
+     * Adds a new, empty property and records it in properties.csv.
+     * Its hotel and data service report nothing until listeners are set on them.
+     * @param id Name of its data directory: letters, digits, '-' and '_' only.
+     * @return The new hotel, or null if a property with that ID exists already.
+     */
+    public Hotel addProperty(String id, String name, String address) {
+        if (id == null || !id.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Invalid property ID: " + id);
+        }
+        synchronized (properties) {
+            if (properties.containsKey(id)) {
+                report("Property " + id + " already exists.");
+                return null;
+            }
+            Property property = createProperty(id, name, address);
+            properties.put(id, property);
+            writeProperties();
+            return property.hotel;
+        }
+    }
+
+    private Property createProperty(String id, String name, String address) {
+        String dataDirectory = rootDirectory + "/" + id;
+        new File(dataDirectory).mkdirs();
+        Hotel hotel = new Hotel(name, address);
+        hotel.setCustomerDirectory(customers);
+        return new Property(id, hotel, new DataService(dataDirectory));
+    }
+
+    // Replaces properties.csv with the current list; the caller holds the properties lock
+    private void writeProperties() {
+        String tmp = propertiesFile + ".tmp";
+        try {
+            try (BufferedWriter writer = FileOps.openWriter(tmp)) {
+                writer.write(PROPERTIES_HEADER);
+                CsvWriter csv = new CsvWriter(writer);
+                for (Property property : properties.values()) {
+                    csv.field(property.id).field(property.hotel.getName()).field(property.hotel.getAddress());
+                    csv.endRow();
+                }
+            }
+            FileOps.replace(tmp, propertiesFile);
+        } catch (IOException e) {
+            report("Error writing file: " + e.getMessage());
+            new File(tmp).delete();
+        }
+    }
+
+    /**
+     * Reads properties.csv and loads every property listed there that is not loaded yet,
+     * one property per worker thread at a time.
+     * @return How many properties were loaded.
+     */
+    public int loadAll() {
+        long start = System.nanoTime();
+        ArrayList<Property> loaded = new ArrayList<>();
+        synchronized (properties) {
+            try (CsvReader csv = CsvReader.open(propertiesFile)) {
+                while (csv.next()) {
+                    if (csv.getLineNumber() == 1) continue;// Header
+                    String id = csv.getString(0);
+                    if (csv.getFieldCount() < 3 || id.isEmpty() || properties.containsKey(id)) continue;
+                    Property property = createProperty(id, csv.getString(1), csv.getString(2));
+                    properties.put(id, property);
+                    loaded.add(property);
+                }
+            } catch (IOException e) {
+                report("Error reading file: " + e.getMessage());
+            }
+        }
+        ArrayList<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (Property property : loaded) {
+            tasks.add(CompletableFuture.runAsync(() -> property.dataService.loadData(property.hotel), workers));
+        }
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).join();
+        report("Loaded " + loaded.size() + " properties (" + customers.size() + " customers) in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        return loaded.size();
+    }
+
+    /**
+     * Saves every property (see DataService.saveData), in parallel.
+     * A customer shared by several properties is written to the files of each.
+     * @return true if every property was saved.
+     */
+    public boolean saveAll() {
+        ArrayList<CompletableFuture<Boolean>> tasks = new ArrayList<>();
+        for (Property property : properties.values()) {
+            tasks.add(CompletableFuture.supplyAsync(() -> property.dataService.saveData(property.hotel), workers));
+        }
+        int failed = 0;
+        for (CompletableFuture<Boolean> task : tasks) {
+            if (!task.join()) failed++;
+        }
+        if (failed > 0) report(failed + " of " + tasks.size() + " properties could not be saved.");
+        return failed == 0;
+    }
+
+    /**
+     * Free rooms for the stay at every property. Each property is searched by its own task,
+     * and the results are merged in property ID order, each property's rooms in its own order.
+     */
+    public List<Availability> searchAvailableRooms(LocalDate checkIn, LocalDate checkOut) {
+        ArrayList<Property> searched = new ArrayList<>(properties.values());
+        ArrayList<CompletableFuture<ArrayList<Room>>> tasks = new ArrayList<>();
+        for (Property property : searched) {
+            tasks.add(CompletableFuture.supplyAsync(() -> property.hotel.searchAvailableRooms(checkIn, checkOut), workers));
+        }
+        ArrayList<Availability> found = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            Property property = searched.get(i);
+            for (Room room : tasks.get(i).join()) {
+                found.add(new Availability(property.id, property.hotel, room));
+            }
+        }
+        return found;
+    }
+
+    //The chain's customer with this email, whichever property they registered at.
+    public Customer findCustomer(String email) {
+        return customers.find(email);
+    }
+
+    /**
+     * The property's customer with this email. A customer known only at other properties
+     * is registered at this one first, so they can book there.
+     * @return null if the property or the customer is unknown.
+     */
+    public Customer customerAt(String propertyId, String email) {
+        Hotel hotel = getHotel(propertyId);
+        if (hotel == null) return null;
+        Customer customer = hotel.findCustomerByEmail(email);
+        if (customer != null) return customer;
+        Customer shared = customers.find(email);
+        return shared == null ? null : hotel.registerCustomer(shared);
+    }
+
+    public Hotel getHotel(String propertyId) {
+        Property property = properties.get(propertyId);
+        return property == null ? null : property.hotel;
+    }
+
+    public DataService getDataService(String propertyId) {
+        Property property = properties.get(propertyId);
+        return property == null ? null : property.dataService;
+    }
+
+    //Property IDs in order.
+    public List<String> getPropertyIds() {
+        return new ArrayList<>(properties.keySet());
+    }
+
+    public int size() { return properties.size(); }
+    public CustomerDirectory getCustomers() { return customers; }
+
+    //Stops the worker threads. Save first (saveAll) if needed.
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,208 @@
+package com.hotel.service;
+
+import com.hotel.model.*;
+import com.hotel.util.CsvReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+
+//Reservations that ended before startup are not kept in memory when loading lazily:
+//only where their row starts in reservations.csv and how long it is.
+//A customer's or room's old reservations are read back from the file, and linked to the hotel,
+//the first time its history is looked at.
+//The file stays open, so the rows can still be read after a save replaces it.
+public class LazyReservationHistory implements HistoryLoader {
+
+    // Largest run of rows read with one call when copying them to a new file
+    private static final int COPY_BYTES = 256 * 1024;
+
+    private final Hotel hotel;
+    private final FileChannel file;
+
+    // One entry per row still on disk, in file order
+    private long[] offsets = new long[1024];
+    private int[] lengths = new int[1024];
+    private int rowCount;
+    private final BitSet loaded = new BitSet();
+    private int loadedCount;
+
+    private final IdentityHashMap<Customer, int[]> rowsByCustomer = new IdentityHashMap<>();
+    private final IdentityHashMap<Room, int[]> rowsByRoom = new IdentityHashMap<>();
+    private long[] idIndex = new long[1024]; // (ID hash << 32 | row), one per row; sorted by finish()
+
+    /**
+     * @param hotel The hotel the rows are linked to once loaded.
+     * @param filename The reservations file the rows are read from.
+     */
+    LazyReservationHistory(Hotel hotel, String filename) throws IOException {
+        this.hotel = hotel;
+        this.file = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+    }
+
+    /**
+     * Remembers a row instead of loading it. Called while loading, before finish().
+     * @param res The reservation parsed from the row (only its ID, customer and room are kept).
+     */
+    synchronized void add(Reservation res, long offset, int length) {
+        if (rowCount == offsets.length) {
+            offsets = Arrays.copyOf(offsets, rowCount * 2);
+            lengths = Arrays.copyOf(lengths, rowCount * 2);
+            idIndex = Arrays.copyOf(idIndex, rowCount * 2);
+        }
+        int row = rowCount++;
+        offsets[row] = offset;
+        lengths[row] = length;
+        idIndex[row] = ((long) res.getReservationId().hashCode() << 32) | row;
+        rowsByCustomer.put(res.getCustomer(), append(rowsByCustomer.get(res.getCustomer()), row));
+        rowsByRoom.put(res.getRoom(), append(rowsByRoom.get(res.getRoom()), row));
+        res.getCustomer().setHistoryLoader(this);
+        res.getRoom().setHistoryLoader(this);
+    }
+
+    // Row lists are int arrays whose first element is the count
+    private static int[] append(int[] rows, int row) {
+        if (rows == null) rows = new int[4];
+        if (rows[0] + 1 == rows.length) rows = Arrays.copyOf(rows, rows.length * 2);
+        rows[++rows[0]] = row;
+        return rows;
+    }
+
+    //Sorts the ID index. Called once every row was added.
+    synchronized void finish() {
+        idIndex = Arrays.copyOf(idIndex, rowCount);
+        Arrays.sort(idIndex);
+    }
+
+    // Sends a message to the hotel's listener, if there is one
+    private void report(String text) {
+        HotelListener l = hotel.getListener();
+        if (l != null) l.message(text);
+    }
+
+    @Override
+    public synchronized void loadHistory(Customer customer) {
+        loadRows(rowsByCustomer.remove(customer));
+    }
+
+    @Override
+    public synchronized void loadHistory(Room room) {
+        loadRows(rowsByRoom.remove(room));
+    }
+
+    @Override
+    public synchronized Reservation loadReservation(String reservationId) {
+        long key = (long) reservationId.hashCode() << 32;
+        int i = Arrays.binarySearch(idIndex, key);
+        if (i < 0) i = -i - 1;
+        // Every row with the same hash, checked against the real ID
+        for (; i < idIndex.length && (idIndex[i] & 0xFFFFFFFF00000000L) == key; i++) {
+            int row = (int) idIndex[i];
+            if (loaded.get(row)) continue;
+            try {
+                CsvReader csv = readRow(row);
+                if (csv.fieldEquals(0, reservationId)) return loadRow(row, csv);
+            } catch (IOException e) {
+                report("Error reading reservation history: " + e.getMessage());
+                return null;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized int countUnloaded(Customer customer) {
+        int[] rows = rowsByCustomer.get(customer);
+        if (rows == null) return 0;
+        int count = 0;
+        for (int i = 1; i <= rows[0]; i++) {
+            if (!loaded.get(rows[i])) count++;
+        }
+        return count;
+    }
+
+    //Number of reservations still on disk.
+    public synchronized int getUnloadedCount() {
+        return rowCount - loadedCount;
+    }
+
+    private void loadRows(int[] rows) {
+        if (rows == null) return;
+        for (int i = 1; i <= rows[0]; i++) {
+            int row = rows[i];
+            if (loaded.get(row)) continue;
+            try {
+                loadRow(row, readRow(row));
+            } catch (IOException e) {
+                report("Error reading reservation history: " + e.getMessage());
+            }
+        }
+    }
+
+    // Rows were only remembered if they parsed and linked at startup, so a null here means the file changed
+    private Reservation loadRow(int row, CsvReader csv) {
+        loaded.set(row);
+        loadedCount++;
+        Reservation res = DataService.parseReservation(hotel, csv, 0);
+        if (res == null) {
+            report("Skipping corrupted reservation data at offset: " + offsets[row]);
+            return null;
+        }
+        hotel.restoreReservation(res);
+        return res;
+    }
+
+    private CsvReader readRow(int row) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(lengths[row]);
+        readFully(buffer, offsets[row]);
+        CsvReader csv = CsvReader.ofLine(new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+        csv.next();
+        return csv;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (file.read(buffer, position + buffer.position()) < 0) throw new IOException("Reservations file was truncated");
+        }
+    }
+
+    /**
+     * Copies the rows still on disk, unchanged, to a new reservations file.
+     * Rows that follow each other in the file are copied with one read.
+     * The caller holds this object's lock, so no row is loaded (and saved twice) meanwhile.
+     */
+    void writeUnloaded(Writer out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(COPY_BYTES);
+        int row = loaded.nextClearBit(0);
+        while (row < rowCount) {
+            long start = offsets[row];
+            long end = start + lengths[row];
+            int next = row + 1;
+            while (next < rowCount && !loaded.get(next) && offsets[next] == end && end + lengths[next] - start <= COPY_BYTES) {
+                end += lengths[next++];
+            }
+            if (end - start > buffer.capacity()) buffer = ByteBuffer.allocate((int) (end - start));
+            buffer.clear().limit((int) (end - start));
+            readFully(buffer, start);
+            String text = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+            out.write(text);
+            if (!text.endsWith("\n")) out.write('\n');// Last row of a file without a final line break
+            row = loaded.nextClearBit(next);
+        }
+    }
+
+    public synchronized void close() {
+        try {
+            file.close();
+        } catch (IOException e) {
+            report("Error closing reservations file: " + e.getMessage());
+        }
+    }
+}
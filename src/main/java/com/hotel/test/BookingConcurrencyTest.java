@@ -0,0 +1,199 @@
+package com.hotel.test;
+
+import com.hotel.model.*;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Stress tests for Hotel.bookRoom called from many threads at once.
+public class BookingConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS_PER_THREAD = 400;
+
+    private Hotel hotel;
+    private final ArrayList<Customer> customers = new ArrayList<>();
+    private final ArrayList<Room> rooms = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        hotel = new Hotel("Stress Hotel", "Istanbul");
+        for (int i = 0; i < 10; i++) {
+            Room room = (i % 2 == 0)
+                    ? new StandardRoom("1" + i, 2, 100.0, true, true)
+                    : new DeluxeRoom("2" + i, 4, 200.0, true, true, true, 0.20);
+            hotel.addRoom(room);
+            rooms.add(room);
+        }
+        for (int i = 0; i < 300; i++) {
+            Customer c = new Customer("Guest", "No" + i, "guest" + i + "@test.com", "555" + i);
+            hotel.registerCustomer(c);
+            customers.add(c);
+        }
+    }
+
+    @Test
+    public void NoDoubleBookingsUnderContention() throws Exception {
+        int booked = runConcurrently((random, start) -> {
+            Customer c = customers.get(random.nextInt(customers.size()));
+            Room r = rooms.get(random.nextInt(rooms.size()));
+            LocalDate in = start.plusDays(random.nextInt(30));
+            LocalDate out = in.plusDays(1 + random.nextInt(4));
+            return hotel.bookRoom(c, r, in, out, false, false);
+        });
+
+        assertTrue("Some bookings should succeed", booked > 0);
+        assertEquals(booked, hotel.getReservations().size());
+        assertNoDoubleBookings();
+    }
+
+    @Test
+    public void BlocksAreAllOrNothingUnderContention() throws Exception {
+        // Blocks of 3 of the 5 standard rooms compete with each other and with single bookings
+        AtomicInteger roomsBooked = new AtomicInteger();
+        runConcurrently((random, start) -> {
+            Customer c = customers.get(random.nextInt(customers.size()));
+            LocalDate in = start.plusDays(random.nextInt(30));
+            LocalDate out = in.plusDays(1 + random.nextInt(3));
+            if (random.nextBoolean()) {
+                boolean ok = hotel.bookRoom(c, rooms.get(random.nextInt(rooms.size())), in, out, false, false);
+                if (ok) roomsBooked.incrementAndGet();
+                return ok;
+            }
+            ArrayList<BookingRequest> block = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                block.add(new BookingRequest(c, "Standard Room", in, out));
+            }
+            int size = hotel.bookRooms(block).size();
+            assertTrue("Block must be booked whole or not at all", size == 0 || size == 3);
+            roomsBooked.addAndGet(size);
+            return size > 0;
+        });
+
+        assertEquals(roomsBooked.get(), hotel.getReservations().size());
+        assertNoDoubleBookings();
+
+        // More rooms than the hotel has: nothing is booked
+        ArrayList<BookingRequest> tooLarge = new ArrayList<>();
+        LocalDate later = LocalDate.now().plusYears(1);
+        for (int i = 0; i < 6; i++) {
+            tooLarge.add(new BookingRequest(customers.get(i), "Standard Room", later, later.plusDays(2)));
+        }
+        assertTrue(hotel.bookRooms(tooLarge).isEmpty());
+        assertEquals(roomsBooked.get(), hotel.getReservations().size());
+        assertEquals(5, hotel.bookRooms(tooLarge.subList(0, 5)).size());
+    }
+
+    @Test
+    public void LargeBlocksHoldOnlyThePickedRooms() {
+        Hotel large = new Hotel("Large Hotel", "Istanbul");
+        for (int i = 0; i < 20_000; i++) {
+            large.addRoom(new StandardRoom("S" + i, 2, 100.0, true, true));
+        }
+        Customer operator = large.registerCustomer(new Customer("Tour", "Operator", "tours@test.com", "555"));
+        LocalDate in = LocalDate.now().plusDays(20);
+        ArrayList<BookingRequest> block = new ArrayList<>();
+        for (int i = 0; i < 15_000; i++) {
+            block.add(new BookingRequest(operator, "Standard Room", in, in.plusDays(2)));
+        }
+        assertEquals(15_000, large.bookRooms(block).size());
+        assertEquals(5_000, large.searchAvailableRooms(in, in.plusDays(1)).size());
+
+        // A customer of another hotel is refused, and nothing is held afterwards
+        Customer stranger = new Customer("Not", "Registered", "stranger@test.com", "555");
+        ArrayList<BookingRequest> refused = new ArrayList<>(block.subList(0, 2));
+        refused.add(new BookingRequest(stranger, "Standard Room", in, in.plusDays(2)));
+        assertTrue(large.bookRooms(refused).isEmpty());
+        assertEquals(5_000, large.searchAvailableRooms(in, in.plusDays(1)).size());
+    }
+
+    private void assertNoDoubleBookings() {
+        for (Room r : rooms) {
+            List<Reservation> list = new ArrayList<>(r.getReservations());
+            list.sort((a, b) -> a.getCheckInDate().compareTo(b.getCheckInDate()));
+            for (int i = 1; i < list.size(); i++) {
+                assertFalse("Room " + r.getRoomNumber() + " is double booked",
+                        list.get(i).getCheckInDate().isBefore(list.get(i - 1).getCheckOutDate()));
+            }
+        }
+    }
+
+    @Test
+    public void NoLostLoyaltyPoints() throws Exception {
+        // Every customer starts with points and may book several times at once:
+        // the fraud check lets exactly one booking per customer through.
+        for (Customer c : customers) {
+            c.addLoyaltyPoints(50);
+        }
+        runConcurrently((random, start) -> {
+            Customer c = customers.get(random.nextInt(customers.size()));
+            Room r = rooms.get(random.nextInt(rooms.size()));
+            LocalDate in = start.plusDays(random.nextInt(60));
+            return hotel.bookRoom(c, r, in, in.plusDays(1), true, false);
+        });
+
+        double revenue = 0;
+        for (Customer c : customers) {
+            assertTrue("Fraud check must allow one booking at a time", c.getReservationHistory().size() <= 1);
+            int expected = 50;
+            if (!c.getReservationHistory().isEmpty()) {
+                double total = c.getReservationHistory().getFirst().calculateTotalAmount();
+                revenue += total;
+                double paid = total - 5.0;// 50 points = $5 discount
+                expected = (int) (paid * 0.05);
+            }
+            assertEquals("Points of " + c.getEmail(), expected, c.getLoyaltyPoints());
+        }
+        assertEquals(revenue, hotel.calculateRevenue(), 0.01);
+    }
+
+    private interface Attempt {
+        boolean run(Random random, LocalDate start);
+    }
+
+    // Runs the attempt on all threads at the same time and returns how many succeeded
+    private int runConcurrently(Attempt attempt) throws Exception {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch go = new CountDownLatch(1);
+            LocalDate start = LocalDate.now().plusDays(1);
+            ArrayList<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final long seed = t;
+                results.add(pool.submit(() -> {
+                    Random random = new Random(seed);
+                    go.await();
+                    int ok = 0;
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        if (attempt.run(random, start)) ok++;
+                    }
+                    return ok;
+                }));
+            }
+            go.countDown();
+            int total = 0;
+            for (Future<Integer> f : results) {
+                total += f.get(60, TimeUnit.SECONDS);
+            }
+            return total;
+        } finally {
+            pool.shutdownNow();
+            System.setOut(console);
+        }
+    }
+}
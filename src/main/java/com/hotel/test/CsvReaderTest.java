@@ -0,0 +1,84 @@
+package com.hotel.test;
+
+import com.hotel.util.CsvReader;
+import com.hotel.util.CsvWriter;
+import com.hotel.util.FileOps;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+//Checks the CSV parser against the JDK parsers and RFC 4180 quoting.
+public class CsvReaderTest {
+
+    @Test
+    public void QuotedFieldsRoundTrip() throws Exception {
+        StringBuilder out = new StringBuilder();
+        CsvWriter w = new CsvWriter(out);
+        w.field("Smith, Jr.").field("say \"hi\"").field("two\nlines").field(42).endRow();
+        w.field("plain").endRow();
+
+        CsvReader csv = CsvReader.ofLine(out.toString());
+        assertTrue(csv.next());
+        assertEquals(4, csv.getFieldCount());
+        assertEquals("Smith, Jr.", csv.getString(0));
+        assertEquals("say \"hi\"", csv.getString(1));
+        assertEquals("two\nlines", csv.getString(2));
+        assertEquals(42, csv.getInt(3));
+        assertFalse(csv.hasError());
+        assertTrue(csv.next());
+        assertEquals(3, csv.getLineNumber());
+        assertTrue(csv.fieldEquals(0, "plain"));
+        assertFalse(csv.next());
+    }
+
+    @Test
+    public void NumbersAndDatesMatchJdk() throws Exception {
+        String[] doubles = {"100.0", "0.2", "149.99", "-3.5", "1e3", "0.30000000000000004", "12345678901234567.8"};
+        for (String d : doubles) {
+            CsvReader csv = CsvReader.ofLine(d);
+            csv.next();
+            assertEquals(Double.parseDouble(d), csv.getDouble(0), 0.0);
+        }
+        LocalDate date = LocalDate.of(1999, 1, 1);
+        for (int i = 0; i < 20000; i += 7) {
+            CsvReader csv = CsvReader.ofLine(date.plusDays(i).toString());
+            csv.next();
+            assertEquals(date.plusDays(i).toEpochDay(), csv.getEpochDay(0));
+        }
+    }
+
+    @Test
+    public void BadValuesSetErrorFlag() throws Exception {
+        CsvReader csv = CsvReader.ofLine("abc,2026-02-30,\"open");
+        csv.next();
+        assertEquals(0, csv.getInt(0));
+        assertTrue(csv.hasError());
+        assertTrue(csv.isMalformed());
+        csv = CsvReader.ofLine("1,2026-02-30");
+        csv.next();
+        assertFalse(csv.hasError());
+        csv.getEpochDay(1);
+        assertTrue(csv.hasError());
+    }
+
+    @Test
+    public void FileOpsStreamsLines() throws Exception {
+        File file = File.createTempFile("lines", ".txt");
+        try {
+            ArrayList<String> lines = new ArrayList<>(List.of("first", "", "third, with a comma"));
+            FileOps.writeFile(file.getPath(), lines);
+            assertEquals(lines, FileOps.readFile(file.getPath()));
+            ArrayList<Integer> numbers = new ArrayList<>();
+            FileOps.forEachLine(file.getPath(), (lineNumber, line) -> numbers.add(lineNumber));
+            assertEquals(List.of(1, 2, 3), numbers);
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+        assertTrue(FileOps.readFile(file.getPath()).isEmpty());
+    }
+}
@@ -0,0 +1,262 @@
+package com.hotel.test;
+
+import com.hotel.model.*;
+import com.hotel.service.DataService;
+import com.hotel.service.HotelDataGenerator;
+import com.hotel.util.AtomicFileSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.time.LocalDate;
+
+//Checks that the binary snapshot and the parallel CSV load give the same hotel as the serial CSV load.
+public class DataServiceTest {
+
+    private File dataDir;
+
+    @Before
+    public void setUp() throws Exception {
+        dataDir = Files.createTempDirectory("hotel-data").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dataDir.listFiles();
+        if (files != null) {
+            for (File f : files) f.delete();
+        }
+        dataDir.delete();
+    }
+
+    private Hotel createHotel() {
+        Hotel hotel = new Hotel("Test Hotel", "Istanbul");
+        for (int i = 0; i < 20; i++) {
+            hotel.addRoom(new StandardRoom(String.valueOf(100 + i), 2, 100.0 + i, true, i % 2 == 0));
+        }
+        for (int i = 0; i < 50; i++) {
+            // Quoted emails with commas and line breaks must not be cut when the file is split
+            String email = i % 5 == 0 ? "guest" + i + ",\"vip\"\n@test.com" : "guest" + i + "@test.com";
+            hotel.registerCustomer(new Customer("Guest", "No " + i, email, "555" + i));
+        }
+        hotel.addRoom(new DeluxeRoom("900", 4, 250.0, true, true, false, 0.25));
+        LocalDate start = LocalDate.of(2026, 1, 1);
+        for (int i = 0; i < 4000; i++) {
+            Customer c = hotel.getCustomers().get(i % 50);
+            Room room = hotel.getRooms().get(i % 20);
+            LocalDate in = start.plusDays(i / 20);
+            Reservation res = new Reservation(c, room, in, in.plusDays(1));
+            if (i % 7 == 0) res.setStatus("CANCELLED");
+            hotel.addReservation(res);
+        }
+        return hotel;
+    }
+
+    private static void assertSameReservations(Hotel expected, Hotel actual) {
+        assertEquals(expected.getReservations().size(), actual.getReservations().size());
+        for (int i = 0; i < expected.getReservations().size(); i++) {
+            Reservation a = expected.getReservations().get(i);
+            Reservation b = actual.getReservations().get(i);
+            assertEquals(a.getReservationId(), b.getReservationId());
+            assertEquals(a.getCustomer().getEmail(), b.getCustomer().getEmail());
+            assertEquals(a.getRoom().getRoomNumber(), b.getRoom().getRoomNumber());
+            assertEquals(a.getCheckInDate(), b.getCheckInDate());
+            assertEquals(a.getStatus(), b.getStatus());
+        }
+        assertEquals(expected.calculateRevenue(), actual.calculateRevenue(), 0.001);
+        assertEquals(expected.calculateOccupancyRate(), actual.calculateOccupancyRate(), 0.0);
+    }
+
+    @Test
+    public void ParallelLoadMatchesSerial() {
+        Hotel hotel = createHotel();
+        new DataService(dataDir.getPath()).saveData(hotel);
+        new File(dataDir, "snapshot.bin").delete();// Force the CSV path
+
+        Hotel serial = new Hotel("Test Hotel", "Istanbul");
+        new DataService(dataDir.getPath()).loadData(serial, false);
+        Hotel parallel = new Hotel("Test Hotel", "Istanbul");
+        new DataService(dataDir.getPath()).loadData(parallel, true);
+
+        assertEquals(4000, serial.getReservations().size());
+        assertSameReservations(hotel, serial);
+        assertSameReservations(serial, parallel);
+    }
+
+    @Test
+    public void BinarySnapshotMatchesCsv() throws Exception {
+        Hotel hotel = createHotel();
+        new DataService(dataDir.getPath()).saveData(hotel);
+
+        Hotel binary = new Hotel("Test Hotel", "Istanbul");
+        new DataService(dataDir.getPath()).loadData(binary);
+        assertSameReservations(hotel, binary);
+        DeluxeRoom suite = (DeluxeRoom) binary.findRoom("900");
+        assertEquals(0.25, suite.getLuxuryTax(), 0.0);
+        assertTrue(suite.hasJacuzzi());
+        assertFalse(suite.hasBalcony());
+
+        // A corrupted snapshot is rejected by its checksum and the CSV files are used instead
+        File snapshot = new File(dataDir, "snapshot.bin");
+        byte[] bytes = Files.readAllBytes(snapshot.toPath());
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(snapshot.toPath(), bytes);
+        snapshot.setLastModified(System.currentTimeMillis() + 60_000);
+        Hotel fallback = new Hotel("Test Hotel", "Istanbul");
+        new DataService(dataDir.getPath()).loadData(fallback);
+        assertSameReservations(hotel, fallback);
+    }
+
+    @Test
+    public void InterruptedSaveKeepsOneGeneration() throws Exception {
+        String manifest = dataDir.getPath() + "/manifest.csv";
+        File a = new File(dataDir, "a.csv");
+        File b = new File(dataDir, "b.csv");
+        AtomicFileSet set = new AtomicFileSet(manifest);
+        writeSet(set, "one");
+        set.commit();
+        assertEquals(1, set.getGeneration());
+
+        // Crash before the commit point: the old generation stays
+        writeSet(set, "two");
+        AtomicFileSet restarted = new AtomicFileSet(manifest);
+        restarted.recover();
+        assertEquals(1, restarted.getGeneration());
+        assertEquals("one", Files.readString(a.toPath()));
+        assertFalse(new File(dataDir, "b.csv.tmp").exists());
+
+        // Crash after the commit point, with only a.csv renamed: recover finishes the job
+        writeSet(restarted, "three");
+        restarted.commit();
+        Files.move(b.toPath(), new File(dataDir, "b.csv.tmp").toPath());
+        Files.writeString(b.toPath(), "two");
+        AtomicFileSet again = new AtomicFileSet(manifest);
+        again.recover();
+        assertEquals(2, again.getGeneration());
+        assertEquals("three", Files.readString(a.toPath()));
+        assertEquals("three", Files.readString(b.toPath()));
+    }
+
+    private void writeSet(AtomicFileSet set, String content) throws Exception {
+        for (String name : new String[]{"a.csv", "b.csv"}) {
+            try (Writer writer = set.openWriter(dataDir.getPath() + "/" + name)) {
+                writer.write(content);
+            }
+        }
+    }
+
+    @Test
+    public void ArchivedReservationsLeaveTheHeap() {
+        Hotel hotel = createHotel();
+        DataService dataService = new DataService(dataDir.getPath());
+        dataService.openArchive(hotel, 16);
+        double revenue = hotel.calculateRevenue();
+        Customer guest = hotel.findCustomerByEmail("guest1@test.com");
+        int history = guest.getReservationHistory().size();
+        String oldId = guest.getReservationHistory().getFirst().getReservationId();
+
+        // 20 rooms a night from 2026-01-01: the first 100 nights end by 2026-04-11
+        assertEquals(2000, hotel.archiveReservations(LocalDate.of(2026, 4, 11)));
+        assertEquals(2000, hotel.getReservations().size());
+        assertEquals(2000, hotel.getArchive().size());
+        assertEquals(revenue, hotel.calculateRevenue(), 0.001);
+        assertEquals(history, hotel.getReservationHistory(guest).size());
+        assertEquals(oldId, hotel.findReservation(oldId).getReservationId());
+        assertEquals(oldId, hotel.findReservations("guest1@test.com", 0, 1).getFirst().getReservationId());
+        dataService.saveData(hotel);
+        dataService.closeArchive(hotel);
+
+        // Only current reservations are in the data files; statistics still count the archived ones
+        Hotel restarted = new Hotel("Test Hotel", "Istanbul");
+        DataService again = new DataService(dataDir.getPath());
+        again.loadData(restarted);
+        assertEquals(2000, restarted.getReservations().size());
+        again.openArchive(restarted, 16);
+        assertEquals(revenue, restarted.calculateRevenue(), 0.001);
+        assertEquals(history, restarted.getReservationHistory(restarted.findCustomerByEmail("guest1@test.com")).size());
+        again.closeArchive(restarted);
+    }
+
+    @Test
+    public void LongEmailsAreArchivedOrKeptInMemory() {
+        Hotel hotel = new Hotel("Test Hotel", "Istanbul");
+        Room room = new StandardRoom("101", 2, 100.0, true, true);
+        hotel.addRoom(room);
+        Customer longest = hotel.registerCustomer(new Customer("A", "B", "a".repeat(240) + "@test.com", "555"));
+        Customer tooLong = hotel.registerCustomer(new Customer("C", "D", "c".repeat(800) + "@test.com", "555"));
+        assertFalse(Customer.isValidEmail(tooLong.getEmail()));
+        LocalDate in = LocalDate.of(2026, 1, 6);
+        hotel.addReservation(new Reservation(longest, room, in, in.plusDays(1)));
+        hotel.addReservation(new Reservation(tooLong, room, in.plusDays(1), in.plusDays(2)));
+        DataService dataService = new DataService(dataDir.getPath());
+        dataService.openArchive(hotel, 16);
+
+        // The email does not fit a key, but its hash does; the other one does not fit a page at all
+        assertEquals(1, hotel.archiveReservations(in.plusDays(5)));
+        assertEquals(1, hotel.getArchive().size());
+        assertEquals(1, hotel.getReservationHistory(longest).size());
+        assertEquals(1, hotel.getReservations().size());
+        assertSame(tooLong, hotel.getReservations().getFirst().getCustomer());
+        dataService.closeArchive(hotel);
+    }
+
+    @Test
+    public void LazyHistoryLoadsOnFirstAccess() {
+        Hotel hotel = createHotel();
+        Customer guest = hotel.findCustomerByEmail("guest1@test.com");
+        LocalDate soon = LocalDate.now().plusDays(10);
+        hotel.addReservation(new Reservation(guest, hotel.findRoom("101"), soon, soon.plusDays(2)));
+        int history = guest.getReservationHistory().size();
+        int roomHistory = hotel.findRoom("100").getReservations().size();
+        String oldId = hotel.getReservations().get(1).getReservationId();
+        new DataService(dataDir.getPath()).saveData(hotel);
+
+        // Everything before the new booking has ended: only that one is loaded
+        Hotel restarted = new Hotel("Test Hotel", "Istanbul");
+        DataService dataService = new DataService(dataDir.getPath());
+        dataService.loadData(restarted, true, true);
+        assertEquals(1, restarted.getReservations().size());
+        assertEquals(hotel.calculateRevenue(), restarted.calculateRevenue(), 0.001);
+        assertEquals(hotel.calculateOccupancyRate(), restarted.calculateOccupancyRate(), 0.0);
+        assertEquals(oldId, restarted.findReservation(oldId).getReservationId());
+        assertEquals(roomHistory, restarted.findRoom("100").getReservations().size());
+        assertEquals(history, restarted.getReservationHistory(restarted.findCustomerByEmail("guest1@test.com")).size());
+
+        // Rows never loaded are copied to the new file unchanged
+        dataService.saveData(restarted);
+        dataService.closeArchive(restarted);
+        Hotel again = new Hotel("Test Hotel", "Istanbul");
+        new DataService(dataDir.getPath()).loadData(again);
+        assertEquals(hotel.getReservations().size(), again.getReservations().size());
+        assertEquals(hotel.calculateRevenue(), again.calculateRevenue(), 0.001);
+        assertEquals(history, again.findCustomerByEmail("guest1@test.com").getReservationHistory().size());
+    }
+
+    @Test
+    public void GeneratedDataIsRepeatable() throws Exception {
+        LocalDate today = LocalDate.of(2026, 6, 1);
+        DataService dataService = new DataService(dataDir.getPath());
+        assertTrue(dataService.saveGenerated(new HotelDataGenerator(7, 120, 500, 5000, today)));
+        byte[] first = Files.readAllBytes(new File(dataDir, "reservations.csv").toPath());
+        assertTrue(dataService.saveGenerated(new HotelDataGenerator(7, 120, 500, 5000, today)));
+        assertArrayEquals(first, Files.readAllBytes(new File(dataDir, "reservations.csv").toPath()));
+
+        Hotel hotel = new Hotel("Generated", "Istanbul");
+        new DataService(dataDir.getPath()).loadData(hotel);
+        assertEquals(120, hotel.getRooms().size());
+        assertEquals(500, hotel.getCustomers().size());
+        assertEquals(5000, hotel.getReservations().size());
+        // Stays in a room never overlap
+        for (Room room : hotel.getRooms()) {
+            long freeFrom = Long.MIN_VALUE;
+            for (Reservation r : room.getReservations()) {
+                assertTrue(r.getCheckInDay() >= freeFrom);
+                freeFrom = r.getCheckOutDay();
+            }
+        }
+    }
+}
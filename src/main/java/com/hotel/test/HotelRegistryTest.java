@@ -0,0 +1,186 @@
+package com.hotel.test;
+
+import com.hotel.model.*;
+import com.hotel.service.HotelRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+
+//Checks that the properties of a chain keep their own data but share their customers.
+public class HotelRegistryTest {
+
+    private File rootDir;
+
+    @Before
+    public void setUp() throws Exception {
+        rootDir = Files.createTempDirectory("hotel-chain").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        delete(rootDir);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) delete(child);
+        }
+        file.delete();
+    }
+
+    @Test
+    public void CustomersAreSharedAcrossPropertiesAndReloaded() {
+        HotelRegistry chain = new HotelRegistry(rootDir.getPath(), 2);
+        Hotel istanbul = chain.addProperty("istanbul", "Bosphorus Hotel", "Istanbul");
+        Hotel izmir = chain.addProperty("izmir", "Aegean Hotel", "Izmir, Turkey");
+        assertNull(chain.addProperty("izmir", "Duplicate", "Izmir"));
+        istanbul.addRoom(new StandardRoom("101", 2, 100.0, true, true));
+        izmir.addRoom(new DeluxeRoom("201", 4, 200.0, true, true, true, 0.20));
+
+        Customer customer = istanbul.registerCustomer(new Customer("Ali", "Veli", "ali@test.com", "555"));
+        assertNull(izmir.findCustomerByEmail("ali@test.com"));
+        assertSame(customer, chain.customerAt("izmir", "ali@test.com"));
+        assertSame(customer, chain.findCustomer("ali@test.com"));
+        // Registering the same email again at a property gives the chain's customer
+        assertSame(customer, izmir.registerCustomer(new Customer("Ali", "Veli", "ali@test.com", "555")));
+        assertEquals(1, izmir.getCustomers().size());
+
+        LocalDate in = LocalDate.now().plusDays(3);
+        assertTrue(izmir.bookRoom(customer, izmir.findRoom("201"), in, in.plusDays(2), false, false));
+        assertTrue(chain.saveAll());
+        chain.shutdown();
+
+        HotelRegistry reloaded = new HotelRegistry(rootDir.getPath(), 2);
+        assertEquals(2, reloaded.loadAll());
+        assertEquals(List.of("istanbul", "izmir"), reloaded.getPropertyIds());
+        assertEquals("Izmir, Turkey", reloaded.getHotel("izmir").getAddress());
+        assertEquals(1, reloaded.getHotel("istanbul").getTotalRooms());
+        assertEquals(0, reloaded.getHotel("istanbul").getReservations().size());
+        assertEquals(1, reloaded.getHotel("izmir").getReservations().size());
+        Customer shared = reloaded.findCustomer("ali@test.com");
+        assertSame(shared, reloaded.getHotel("istanbul").findCustomerByEmail("ali@test.com"));
+        assertSame(shared, reloaded.getHotel("izmir").findCustomerByEmail("ali@test.com"));
+        assertSame(shared, reloaded.getHotel("izmir").getReservations().get(0).getCustomer());
+        reloaded.shutdown();
+    }
+
+    @Test
+    public void PropertiesNumberingCustomersAlikeKeepThemApart() throws Exception {
+        HotelRegistry chain = new HotelRegistry(rootDir.getPath(), 2);
+        chain.addProperty("a", "Hotel A", "Istanbul").addRoom(new StandardRoom("101", 2, 100.0, true, true));
+        chain.addProperty("b", "Hotel B", "Izmir").addRoom(new StandardRoom("101", 2, 100.0, true, true));
+        assertTrue(chain.saveAll());
+        chain.shutdown();
+        // Files numbered per property, as the generator writes them; Ali has a different balance at each
+        LocalDate past = LocalDate.now().minusDays(30);
+        String header = "ID,FirstName,LastName,Email,Phone,Points\n";
+        Files.writeString(new File(rootDir, "a/customers.csv").toPath(), header
+                + "CUST1,Ali,Veli,ali@test.com,555,100\nCUST2,Bora,Kaya,bora@test.com,555,0\n");
+        Files.writeString(new File(rootDir, "b/customers.csv").toPath(), header
+                + "CUST1,Cem,Ak,cem@test.com,555,0\nCUST2,Ali,Veli,ali@test.com,555,250\n");
+        Files.writeString(new File(rootDir, "b/reservations.csv").toPath(), "ID,CustomerEmail,RoomNumber,CheckIn,CheckOut,Status\n"
+                + "RES-C,cem@test.com,101," + past + "," + past.plusDays(2) + ",CONFIRMED\n"
+                + "RES-A,ali@test.com,101," + past.plusDays(5) + "," + past.plusDays(6) + ",CONFIRMED\n");
+        for (String id : new String[]{"a", "b"}) new File(rootDir, id + "/snapshot.bin").delete();
+        backdate(new File(rootDir, "a"), 60);
+
+        for (int round = 0; round < 2; round++) {
+            HotelRegistry loaded = new HotelRegistry(rootDir.getPath(), 2);
+            assertEquals(2, loaded.loadAll());
+            Customer ali = loaded.findCustomer("ali@test.com");
+            // The balance in the most recently saved file (b's), whichever property is loaded first
+            assertEquals(250, ali.getLoyaltyPoints());
+            HashSet<String> ids = new HashSet<>();
+            for (String email : new String[]{"ali@test.com", "bora@test.com", "cem@test.com"}) {
+                Customer c = loaded.findCustomer(email);
+                assertTrue(ids.add(c.getCustomerId()));
+                assertSame(c, loaded.getCustomers().findById(c.getCustomerId()));
+            }
+
+            // Archived history is found by email, not by an ID another guest may have had
+            Hotel b = loaded.getHotel("b");
+            loaded.getDataService("b").openArchive(b, 16);
+            if (round == 0) assertEquals(2, b.archiveReservations(LocalDate.now()));
+            assertEquals(List.of("RES-A"), reservationIds(b.getReservationHistory(ali)));
+            assertEquals(List.of("RES-C"), reservationIds(b.getReservationHistory(loaded.findCustomer("cem@test.com"))));
+            assertEquals(ali, b.findReservation("RES-A").getCustomer());
+            assertTrue(loaded.saveAll());
+            loaded.getDataService("b").closeArchive(b);
+            loaded.shutdown();
+        }
+        // Each saved customers.csv lists every ID once
+        for (String id : new String[]{"a", "b"}) {
+            List<String> lines = Files.readAllLines(new File(rootDir, id + "/customers.csv").toPath());
+            HashSet<String> ids = new HashSet<>();
+            for (String line : lines.subList(1, lines.size())) assertTrue(ids.add(line.substring(0, line.indexOf(','))));
+        }
+    }
+
+    @Test
+    public void PointsRedeemedAtOnePropertyAreNotRestoredByAnother() throws Exception {
+        HotelRegistry chain = new HotelRegistry(rootDir.getPath(), 2);
+        Hotel a = chain.addProperty("a", "Hotel A", "Istanbul");
+        chain.addProperty("b", "Hotel B", "Izmir");
+        Customer ali = a.registerCustomer(new Customer("Ali", "Veli", "ali@test.com", "555"));
+        ali.addLoyaltyPoints(250);
+        assertSame(ali, chain.customerAt("b", "ali@test.com"));
+        assertTrue(chain.saveAll());
+        backdate(new File(rootDir, "b"), 60);
+        // Ali redeems 100 points, and only property a is saved since
+        assertTrue(ali.redeemLoyaltyPoints(100));
+        assertTrue(chain.getDataService("a").saveData(a));
+        chain.shutdown();
+
+        // a is loaded first, so neither the higher nor the last loaded balance would be right
+        for (int threads = 1; threads <= 2; threads++) {
+            HotelRegistry loaded = new HotelRegistry(rootDir.getPath(), threads);
+            assertEquals(2, loaded.loadAll());
+            assertEquals(150, loaded.findCustomer("ali@test.com").getLoyaltyPoints());
+            loaded.shutdown();
+        }
+    }
+
+    // Moves the modification time of every file in the directory back, as if it was saved earlier
+    private static void backdate(File dir, int minutes) throws Exception {
+        long time = System.currentTimeMillis() - minutes * 60_000L;
+        for (File file : dir.listFiles()) file.setLastModified(time);
+    }
+
+    private static List<String> reservationIds(List<Reservation> reservations) {
+        return reservations.stream().map(Reservation::getReservationId).toList();
+    }
+
+    @Test
+    public void SearchMergesEveryPropertyInOrder() {
+        HotelRegistry chain = new HotelRegistry(rootDir.getPath(), 4);
+        for (int p = 0; p < 20; p++) {
+            Hotel hotel = chain.addProperty(String.format("p%02d", p), "Hotel " + p, "Street " + p);
+            for (int r = 0; r < 3; r++) {
+                hotel.addRoom(new StandardRoom(String.valueOf(100 + r), 2, 100.0, true, true));
+            }
+        }
+        Hotel booked = chain.getHotel("p07");
+        Customer customer = booked.registerCustomer(new Customer("Ayse", "Kaya", "ayse@test.com", "555"));
+        LocalDate in = LocalDate.now().plusDays(10);
+        assertTrue(booked.bookRoom(customer, booked.findRoom("101"), in, in.plusDays(3), false, false));
+
+        List<HotelRegistry.Availability> found = chain.searchAvailableRooms(in.plusDays(1), in.plusDays(2));
+        assertEquals(20 * 3 - 1, found.size());
+        assertEquals("p00", found.get(0).propertyId());
+        assertEquals("p19", found.get(found.size() - 1).propertyId());
+        for (HotelRegistry.Availability a : found) {
+            assertSame(chain.getHotel(a.propertyId()), a.hotel());
+            assertFalse(a.propertyId().equals("p07") && a.room().getRoomNumber().equals("101"));
+        }
+        assertEquals(20 * 3, chain.searchAvailableRooms(in.plusDays(3), in.plusDays(4)).size());
+        chain.shutdown();
+    }
+}
@@ -0,0 +1,148 @@
+package com.hotel.test;
+
+import com.hotel.model.*;
+import com.hotel.server.HotelServer;
+import com.hotel.server.LoadGenerator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+
+//Calls the booking API over real HTTP on a free port.
+public class HotelServerTest {
+
+    private Hotel hotel;
+    private HotelServer server;
+    private URI base;
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @Before
+    public void setUp() throws Exception {
+        hotel = new Hotel("Test Hotel", "Istanbul");
+        for (int i = 0; i < 20; i++) {
+            hotel.addRoom(new StandardRoom(String.valueOf(100 + i), 2, 100.0, true, true));
+        }
+        server = new HotelServer(hotel, 0);
+        server.start();
+        base = URI.create("http://localhost:" + server.getPort());
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private HttpResponse<String> post(String path, String json) throws Exception {
+        return http.send(HttpRequest.newBuilder(base.resolve(path)).POST(HttpRequest.BodyPublishers.ofString(json)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return http.send(HttpRequest.newBuilder(base.resolve(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void RegisterBookAndList() throws Exception {
+        String ali = "{\"firstName\":\"Ali\",\"lastName\":\"Veli\",\"email\":\"ali@test.com\",\"phone\":\"555\"}";
+        assertEquals(201, post("/customers", ali).statusCode());
+        assertEquals(409, post("/customers", ali).statusCode());
+        assertEquals(400, post("/customers", "{\"firstName\":\"A\",\"lastName\":\"B\",\"email\":\"nobody\",\"phone\":\"555\"}").statusCode());
+        assertEquals(400, post("/customers", "{\"firstName\":\"A\",\"lastName\":\"B\",\"email\":\"a@b.com\",\"phone\":\"55x\"}").statusCode());
+        assertNull(hotel.findCustomerByEmail("a@b.com"));
+
+        LocalDate in = LocalDate.now().plusDays(5);
+        String stay = "\"checkIn\":\"" + in + "\",\"checkOut\":\"" + in.plusDays(1) + "\"";
+        HttpResponse<String> rooms = get("/rooms/available?checkIn=" + in + "&checkOut=" + in.plusDays(1));
+        assertEquals(200, rooms.statusCode());
+        assertTrue(rooms.body().startsWith("[{\"room\":\"100\""));
+
+        HttpResponse<String> booked = post("/bookings", "{\"email\":\"ali@test.com\",\"room\":\"100\"," + stay + "}");
+        assertEquals(201, booked.statusCode());
+        String id = hotel.getReservations().getFirst().getReservationId();
+        assertTrue(booked.body().contains("\"id\":\"" + id + "\""));
+        assertFalse(get("/rooms/available?checkIn=" + in + "&checkOut=" + in.plusDays(1)).body().contains("\"room\":\"100\""));
+
+        LocalDate past = LocalDate.now().minusDays(2);
+        assertEquals(400, post("/bookings", "{\"email\":\"ali@test.com\",\"room\":\"101\",\"checkIn\":\"" + past
+                + "\",\"checkOut\":\"" + past.plusDays(1) + "\"}").statusCode());
+
+        assertTrue(get("/reservations?email=ali%40test.com").body().contains(id));
+        assertEquals(404, get("/reservations?email=nobody%40test.com").statusCode());
+        assertEquals(400, post("/bookings", "{\"email\":").statusCode());
+        assertEquals(405, get("/bookings").statusCode());
+    }
+
+    private static double totalPrice(HttpResponse<String> response) {
+        String body = response.body();
+        int at = body.indexOf("\"totalPrice\":") + "\"totalPrice\":".length();
+        return Double.parseDouble(body.substring(at, body.indexOf(',', at)));
+    }
+
+    @Test
+    public void UpgradesAreDecidedByTheServer() throws Exception {
+        hotel.addRoom(new DeluxeRoom("300", 4, 200.0, true, true, true, 0.20));
+        hotel.addRoom(new DeluxeRoom("301", 4, 200.0, true, true, true, 0.20));
+        for (String name : new String[]{"a", "b", "c"}) {
+            assertEquals(201, post("/customers", "{\"firstName\":\"" + name + "\",\"lastName\":\"X\",\"email\":\"" + name
+                    + "@test.com\",\"phone\":\"555\"}").statusCode());
+        }
+        LocalDate in = LocalDate.now().plusDays(5);
+        String stay = "\"checkIn\":\"" + in + "\",\"checkOut\":\"" + in.plusDays(2) + "\"";
+
+        // A free standard room is booked as asked, even when an upgrade is accepted
+        HttpResponse<String> standard = post("/bookings", "{\"email\":\"a@test.com\",\"room\":\"100\",\"upgrade\":\"true\"," + stay + "}");
+        assertEquals(201, standard.statusCode());
+        assertTrue(standard.body().contains("\"room\":\"100\",\"upgraded\":false"));
+
+        // A deluxe room asked for directly is paid in full
+        HttpResponse<String> deluxe = post("/bookings", "{\"email\":\"b@test.com\",\"room\":\"300\",\"upgrade\":\"true\"," + stay + "}");
+        assertEquals(201, deluxe.statusCode());
+        assertTrue(deluxe.body().contains("\"room\":\"300\",\"upgraded\":false"));
+
+        // A taken standard room is upgraded to a free deluxe one, at the standard price
+        HttpResponse<String> upgraded = post("/bookings", "{\"email\":\"c@test.com\",\"room\":\"100\",\"upgrade\":\"true\"," + stay + "}");
+        assertEquals(201, upgraded.statusCode());
+        assertTrue(upgraded.body().contains("\"room\":\"301\",\"upgraded\":true"));
+        assertTrue(totalPrice(upgraded) < totalPrice(deluxe));
+    }
+
+    @Test
+    public void FailuresInTheHotelAreAnswered() throws Exception {
+        Hotel broken = new Hotel("Broken Hotel", "Istanbul") {
+            @Override
+            public java.util.ArrayList<Room> searchAvailableRooms(LocalDate checkIn, LocalDate checkOut) {
+                throw new IllegalStateException("index corrupted");
+            }
+        };
+        HotelServer other = new HotelServer(broken, 0);
+        other.start();
+        try {
+            URI uri = URI.create("http://localhost:" + other.getPort() + "/rooms/available?checkIn=2030-01-01&checkOut=2030-01-02");
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(500, response.statusCode());
+            assertTrue(response.body().startsWith("{\"error\":"));
+            assertTrue(response.body().contains("index corrupted"));
+        } finally {
+            other.stop(0);
+        }
+    }
+
+    @Test
+    public void LoadGeneratorReportsLatencies() throws Exception {
+        LoadGenerator.Report report = LoadGenerator.run(base, 50, 2);
+        assertEquals(0, report.errors());
+        assertEquals(50 * 2 * 3, report.requests());
+        assertTrue(report.p50Micros() <= report.p99Micros());
+        assertEquals(50 * 2, hotel.getCustomers().size());
+        // Every guest books once, so bookings are only refused when another client took the room first
+        assertEquals(50 * 2, report.booked() + report.refused());
+        assertEquals(report.booked(), hotel.getReservations().size());
+        assertTrue(report.booked() >= 50 * 2 * 9 / 10);
+    }
+}
@@ -7,6 +7,7 @@ import static org.junit.Assert.*;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
 
 public class HotelTest {
 
@@ -124,6 +125,61 @@ public class HotelTest {
         assertEquals(200.0, res.calculateTotalAmount(), 0.01);
     }
 
+    @Test
+    public void RateCalendarMatchesNightlyPrices() {
+        LocalDate start = LocalDate.of(2026, 1, 1);
+        RateCalendar calendar = new RateCalendar(dlxRoom, start, 60);
+        LocalDate in = LocalDate.of(2026, 1, 6);
+        LocalDate out = LocalDate.of(2026, 1, 20);
+
+        double expected = 0;
+        for (LocalDate d = in; d.isBefore(out); d = d.plusDays(1)) {
+            expected += dlxRoom.calculatePrice(d);
+        }
+        assertTrue(calendar.covers(in, out));
+        assertEquals(expected, calendar.getStayTotal(in, out), 0.001);
+        assertFalse(calendar.covers(in, start.plusDays(61)));
+    }
+
+    @Test
+    public void SeasonalAndHolidayRates() {
+        LocalDate start = LocalDate.of(2026, 1, 1);
+        RateCalendar calendar = new RateCalendar(stdRoom, start, 60);
+        calendar.applySeasonalRate(LocalDate.of(2026, 1, 6), LocalDate.of(2026, 1, 8), 1.5);
+        calendar.setHolidayRate(LocalDate.of(2026, 1, 7), 500.0);
+
+        assertEquals(150.0, calendar.getNightlyRate(LocalDate.of(2026, 1, 6)), 0.001);// Tuesday, high season
+        assertEquals(500.0, calendar.getNightlyRate(LocalDate.of(2026, 1, 7)), 0.001);// Holiday wins
+        assertEquals(120.0, calendar.getNightlyRate(LocalDate.of(2026, 1, 9)), 0.001);// Friday, weekend rule
+        assertEquals(650.0, calendar.getStayTotal(LocalDate.of(2026, 1, 6), LocalDate.of(2026, 1, 8)), 0.001);
+
+        // Rolling keeps the seasonal and holiday rates
+        calendar.rollTo(LocalDate.of(2026, 1, 5));
+        assertEquals(500.0, calendar.getNightlyRate(LocalDate.of(2026, 1, 7)), 0.001);
+        assertEquals(650.0, calendar.findStayTotal(LocalDate.of(2026, 1, 6), LocalDate.of(2026, 1, 8)), 0.001);
+        assertEquals(-1.0, calendar.findStayTotal(LocalDate.of(2026, 1, 4), LocalDate.of(2026, 1, 6)), 0.0);// Before the new start
+    }
+
+    @Test
+    public void RepricingOneRoomKeepsItsPlanMatesRates() {
+        StandardRoom mate = new StandardRoom("102", 2, 100.0, true, true);
+        hotel.addRoom(mate);
+        assertSame(stdRoom.getRateCalendar(), mate.getRateCalendar());
+        LocalDate tuesday = LocalDate.now().plusWeeks(1).with(java.time.DayOfWeek.TUESDAY);
+
+        hotel.setBasePrice(stdRoom, 150.0);
+        hotel.applySeasonalRate(tuesday, tuesday.plusDays(1), 2.0);// Recomputes every calendar
+        assertNotSame(stdRoom.getRateCalendar(), mate.getRateCalendar());
+        assertEquals(200.0, mate.calculateStayPrice(tuesday, tuesday.plusDays(1)), 0.001);
+        assertEquals(300.0, stdRoom.calculateStayPrice(tuesday, tuesday.plusDays(1)), 0.001);
+        // The calendar keeps the prices it was built with, even if a room on it is changed directly
+        StandardRoom third = new StandardRoom("103", 2, 100.0, true, true);
+        hotel.addRoom(third);
+        mate.setBasePrice(80.0);
+        hotel.applySeasonalRate(tuesday.plusDays(7), tuesday.plusDays(8), 1.5);
+        assertEquals(200.0, third.calculateStayPrice(tuesday, tuesday.plusDays(1)), 0.001);
+    }
+
     @Test
     public void InvalidDateRange() {
         LocalDate in = LocalDate.of(2026, 10, 6);
@@ -156,6 +212,25 @@ public class HotelTest {
         assertEquals(4, customer.getLoyaltyPoints());
     }
 
+    @Test
+    public void BookingResultAndListener() {
+        customer.addLoyaltyPoints(100);
+        ArrayList<String> messages = new ArrayList<>();
+        hotel.setListener(messages::add);
+
+        LocalDate in = LocalDate.of(2026, 1, 6);
+        BookingResult result = hotel.book(customer, stdRoom, in, in.plusDays(1), true, false);
+        assertTrue(result.isSuccess());
+        assertEquals(100.0, result.getTotalPrice(), 0.001);
+        assertEquals(90.0, result.getFinalPrice(), 0.001);
+        assertEquals(100, result.getPointsUsed());
+        assertEquals(4, result.getPointsEarned());
+        assertSame(result.getReservation(), hotel.findReservation(result.getReservationId()));
+        assertTrue(messages.contains("Reservation successful! ID: " + result.getReservationId() + " in Room: 101"));
+
+        assertEquals(BookingResult.Status.TOO_FAST, hotel.book(customer, dlxRoom, in, in.plusDays(1), false, false).getStatus());
+    }
+
     @Test
     public void PartialPointRedemption() {
         // Customer has sufficient points to cover the entire amount
@@ -198,14 +273,13 @@ public class HotelTest {
 
     @Test
     public void VIPCustomerStatus() {
-        // Make 3 reservations
+        // Make 3 reservations on following nights
         LocalDate in = LocalDate.now();
-        LocalDate out = LocalDate.now().plusDays(1);
-        hotel.bookRoom(customer, stdRoom, in, out, false, false);
+        hotel.bookRoom(customer, stdRoom, in, in.plusDays(1), false, false);
         customer.setLastBookingTime(null); // Bypass spam check
-        hotel.bookRoom(customer, stdRoom, in, out, false, false);
+        hotel.bookRoom(customer, stdRoom, in.plusDays(1), in.plusDays(2), false, false);
         customer.setLastBookingTime(null);
-        hotel.bookRoom(customer, stdRoom, in, out, false, false);
+        hotel.bookRoom(customer, stdRoom, in.plusDays(2), in.plusDays(3), false, false);
         assertTrue("Customer should be VIP (3+ bookings)", customer.getReservationHistory().size() >= 3);
     }
 
@@ -226,16 +300,98 @@ public class HotelTest {
         assertEquals(100.0, hotel.calculateRevenue(), 0.01);
     }
 
+    @Test
+    public void RunningStatistics() {
+        Customer other = new Customer("Ayse", "Kaya", "ayse@test.com", "555");
+        hotel.registerCustomer(other);
+        LocalDate in = LocalDate.of(2026, 1, 6);// Tuesday
+        hotel.addReservation(new Reservation(customer, stdRoom, in, in.plusDays(2)));
+        hotel.addReservation(new Reservation(other, stdRoom, in.plusDays(2), in.plusDays(3)));
+        hotel.addReservation(new Reservation(other, dlxRoom, in, in.plusDays(1)));
+
+        HotelStatistics stats = hotel.getStatistics();
+        // 100 + 100 (std) + 100 (std, Thursday) + 240 (dlx)
+        assertEquals(540.0, hotel.calculateRevenue(), 0.01);
+        assertEquals(2, stats.getOccupiedRooms(in));
+        assertEquals(1, stats.getOccupiedRooms(in.plusDays(1)));
+        assertEquals(0, stats.getOccupiedRooms(in.plusDays(3)));
+        assertEquals("101", stats.getMostPopularRoomNumber());
+        assertEquals(2, stats.getMostPopularCount());
+        assertEquals(3, hotel.getReservations().size());
+
+        // Cancelling frees the nights in the statistics, un-cancelling counts them again
+        Reservation first = hotel.getReservations().get(0);
+        hotel.updateReservationStatus(first, "CANCELLED");
+        assertEquals(1, stats.getOccupiedRooms(in));
+        assertEquals(0, stats.getOccupiedRooms(in.plusDays(1)));
+        hotel.updateReservationStatus(first, "CANCELLED");
+        assertEquals(1, stats.getOccupiedRooms(in));
+        hotel.updateReservationStatus(first, "CONFIRMED");
+        assertEquals(2, stats.getOccupiedRooms(in));
+        assertEquals(1, stats.getOccupiedRooms(in.plusDays(1)));
+    }
+
     @Test
     public void SearchAvailableRooms() {
-        // stdRoom is booked (dirty), dlxRoom is free (clean)
-        stdRoom.setClean(false);
-        ArrayList<Room> available = hotel.searchAvailableRooms(LocalDate.now(), LocalDate.now().plusDays(1));
+        // stdRoom is booked for these dates, dlxRoom is free
+        LocalDate in = LocalDate.now();
+        LocalDate out = LocalDate.now().plusDays(1);
+        hotel.bookRoom(customer, stdRoom, in, out, false, false);
+        ArrayList<Room> available = hotel.searchAvailableRooms(in, out);
         // Should find only dlxRoom
         assertEquals(1, available.size());
         assertEquals("201", available.getFirst().getRoomNumber());
     }
 
+    @Test
+    public void NoDoubleBooking() {
+        Customer other = new Customer("Ayse", "Kaya", "ayse@test.com", "555");
+        hotel.registerCustomer(other);
+        LocalDate in = LocalDate.of(2026, 1, 6);
+
+        assertTrue(hotel.bookRoom(customer, stdRoom, in, in.plusDays(3), false, false));
+        assertFalse("Overlapping stay must be rejected", hotel.bookRoom(other, stdRoom, in.plusDays(2), in.plusDays(4), false, false));
+        assertEquals(0, other.getReservationHistory().size());
+        assertEquals(0, other.getLoyaltyPoints());
+    }
+
+    @Test
+    public void SearchAvailableRoomsByDate() {
+        // stdRoom booked for 10-13 Jan: nights 10, 11, 12
+        stdRoom.addReservation(new Reservation(customer, stdRoom, LocalDate.of(2026, 1, 10), LocalDate.of(2026, 1, 13)));
+
+        assertFalse(stdRoom.isAvailable(LocalDate.of(2026, 1, 12), LocalDate.of(2026, 1, 14)));
+        assertFalse(stdRoom.isAvailable(LocalDate.of(2026, 1, 8), LocalDate.of(2026, 1, 11)));
+        // Check-out day of one guest is the check-in day of the next
+        assertTrue(stdRoom.isAvailable(LocalDate.of(2026, 1, 13), LocalDate.of(2026, 1, 15)));
+        assertTrue(stdRoom.isAvailable(LocalDate.of(2026, 1, 8), LocalDate.of(2026, 1, 10)));
+
+        ArrayList<Room> available = hotel.searchAvailableRooms(LocalDate.of(2026, 1, 11), LocalDate.of(2026, 1, 12));
+        assertEquals(1, available.size());
+        assertEquals("201", available.getFirst().getRoomNumber());
+    }
+
+    @Test
+    public void CancelledReservationFreesRoom() {
+        Reservation res = new Reservation(customer, stdRoom, LocalDate.of(2026, 1, 10), LocalDate.of(2026, 1, 13));
+        stdRoom.addReservation(res);
+        res.setStatus("CANCELLED");
+        stdRoom.refreshAvailability();
+        assertTrue(stdRoom.isAvailable(LocalDate.of(2026, 1, 10), LocalDate.of(2026, 1, 13)));
+    }
+
+    @Test
+    public void CompactReservationKeepsDatesAndStatus() {
+        Reservation res = new Reservation(customer, stdRoom, LocalDate.of(2026, 1, 10), LocalDate.of(2026, 1, 13));
+        assertEquals(3, res.getNights());
+        res.setCheckInDate(LocalDate.of(2026, 1, 11));// Check-out stays
+        assertEquals(LocalDate.of(2026, 1, 13), res.getCheckOutDate());
+        assertEquals("PENDING", res.getStatus());
+        res.setStatus("NO_SHOW");
+        assertEquals("NO_SHOW", res.getStatus());
+        assertFalse(res.isCancelled());
+    }
+
     @Test
     public void RoomRecommendation() {
         // Customer books Deluxe 2 times
@@ -244,7 +400,7 @@ public class HotelTest {
 
         hotel.bookRoom(customer, dlxRoom, in, out, false, false);
         customer.setLastBookingTime(null);
-        hotel.bookRoom(customer, dlxRoom, in, out, false, false);
+        hotel.bookRoom(customer, dlxRoom, out, out.plusDays(1), false, false);
 
         // Recommendation should be a Deluxe room
         Room recommended = hotel.recommendRoom(customer.getEmail());
@@ -262,6 +418,37 @@ public class HotelTest {
         assertEquals("Ali", found.getFirstName());
     }
 
+    @Test
+    public void FindCustomerById() {
+        assertSame(customer, hotel.findCustomerById(customer.getCustomerId()));
+        assertNull(hotel.findCustomerById("CUST-UNKNOWN"));
+    }
+
+    @Test
+    public void FindRoomByNumber() {
+        assertSame(dlxRoom, hotel.findRoom("201"));
+        assertNull(hotel.findRoom("999"));
+    }
+
+    @Test
+    public void ReservationPagesSortedByCheckIn() {
+        customer.addReservation(new Reservation(customer, stdRoom, LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 2)));
+        customer.addReservation(new Reservation(customer, stdRoom, LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 2)));
+        customer.addReservation(new Reservation(customer, dlxRoom, LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 2)));
+
+        List<Reservation> first = hotel.findReservations("ali@test.com", 0, 2);
+        assertEquals(2, first.size());
+        assertEquals(LocalDate.of(2026, 1, 1), first.get(0).getCheckInDate());
+        assertEquals(LocalDate.of(2026, 2, 1), first.get(1).getCheckInDate());
+
+        List<Reservation> second = hotel.findReservations("ali@test.com", 1, 2);
+        assertEquals(1, second.size());
+        assertEquals(LocalDate.of(2026, 3, 1), second.get(0).getCheckInDate());
+
+        assertTrue(hotel.findReservations("ali@test.com", 2, 2).isEmpty());
+        assertTrue(hotel.findReservations("nobody@test.com", 0, 2).isEmpty());
+    }
+
     @Test
     public void SpamProtection() {
         LocalDate in = LocalDate.now().plusDays(1);
@@ -275,4 +462,109 @@ public class HotelTest {
 
         assertEquals("Spam protection should block 2nd booking", initialCount, finalCount);
     }
+
+    @Test
+    public void UpgradeFitsTheStayAndSkipsBookedRooms() {
+        DeluxeRoom open = new DeluxeRoom("202", 4, 200.0, true, true, true, 0.20);
+        DeluxeRoom tight = new DeluxeRoom("203", 4, 200.0, true, true, true, 0.20);
+        hotel.addRoom(open);
+        hotel.addRoom(tight);
+        LocalDate in = LocalDate.now().plusDays(20);
+        LocalDate out = in.plusDays(3);
+        Customer other = new Customer("Ayse", "Kaya", "ayse@test.com", "555");
+        hotel.registerCustomer(other);
+        // 201 is taken during the stay; 203 is taken right before and right after it
+        hotel.addReservation(new Reservation(other, dlxRoom, in.plusDays(1), in.plusDays(2)));
+        hotel.addReservation(new Reservation(other, tight, in.minusDays(2), in));
+        Reservation after = new Reservation(other, tight, out, out.plusDays(2));
+        hotel.addReservation(after);
+
+        assertSame(tight, hotel.findUpgrade(stdRoom, in, out));
+        assertNull("Deluxe rooms have no upgrade", hotel.findUpgrade(dlxRoom, in, out));
+
+        // Once the next guest cancels, 203 has free nights after the stay, like 202: the first added wins
+        hotel.updateReservationStatus(after, "CANCELLED");
+        assertSame(open, hotel.findUpgrade(stdRoom, in, out));
+
+        hotel.addReservation(new Reservation(other, open, in, out));
+        hotel.addReservation(new Reservation(other, tight, in.plusDays(2), out));
+        assertNull("Every deluxe room is booked", hotel.findUpgrade(stdRoom, in, out));
+        // Beyond the inventory horizon the rooms are checked one by one
+        LocalDate far = LocalDate.now().plusDays(RoomInventory.DEFAULT_HORIZON_NIGHTS + 10);
+        assertSame(dlxRoom, hotel.findUpgrade(stdRoom, far, far.plusDays(2)));
+    }
+
+    @Test
+    public void InventoryMatchesRoomByRoomChecks() {
+        // More than 64 rooms, so the bitsets span several words
+        for (int i = 0; i < 150; i++) {
+            hotel.addRoom(i % 3 == 0 ? new DeluxeRoom(String.valueOf(300 + i), 4, 200.0, true, true, true, 0.20)
+                    : new StandardRoom(String.valueOf(300 + i), 2, 100.0, true, true));
+        }
+        java.util.Random random = new java.util.Random(5);
+        LocalDate today = LocalDate.now();
+        ArrayList<Reservation> added = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            Room room = hotel.getRooms().get(random.nextInt(hotel.getRooms().size()));
+            LocalDate in = today.plusDays(random.nextInt(60) - 5);
+            LocalDate out = in.plusDays(1 + random.nextInt(5));
+            if (!room.isAvailable(in, out)) continue;
+            Reservation res = new Reservation(customer, room, in, out);
+            hotel.addReservation(res);
+            added.add(res);
+        }
+        for (int i = 0; i < added.size(); i += 4) hotel.updateReservationStatus(added.get(i), "CANCELLED");
+
+        for (int day = 0; day < 60; day += 3) {
+            LocalDate in = today.plusDays(day);
+            LocalDate out = in.plusDays(1 + day % 4);
+            ArrayList<Room> expected = new ArrayList<>();
+            for (Room room : hotel.getRooms()) {
+                if (room.isAvailable(in, out)) expected.add(room);
+            }
+            assertEquals(expected, hotel.searchAvailableRooms(in, out));
+        }
+        int bookedTonight = 0;
+        for (Room room : hotel.getRooms()) {
+            if (!room.isAvailable(today, today.plusDays(1))) bookedTonight++;
+        }
+        assertEquals(bookedTonight, hotel.getInventory().countBooked(today.toEpochDay()));
+        assertEquals(100.0 * bookedTonight / hotel.getTotalRooms(), hotel.calculateOccupancyRate(), 0.001);
+        Room deluxe = hotel.findAvailableDeluxeRoom();
+        assertTrue(deluxe == null || deluxe instanceof DeluxeRoom && deluxe.isAvailable(today, today.plusDays(1)));
+    }
+
+    @Test
+    public void QuoteGridMatchesBookedPrices() {
+        LocalDate today = LocalDate.now();
+        StandardRoom standard = new StandardRoom("501", 2, 99.99, true, true);
+        DeluxeRoom deluxe = new DeluxeRoom("502", 4, 187.35, true, true, true, 0.17);
+        hotel.addRoom(standard);
+        hotel.addRoom(deluxe);
+        hotel.applySeasonalRate(today.plusDays(10), today.plusDays(40), 1.37);
+        deluxe.getRateCalendar().setHolidayRate(today.plusDays(20), 333.33);
+        int horizon = RateCalendar.DEFAULT_HORIZON_DAYS;
+        // Inside the calendar, and overlapping its start and its end, where stays fall back to calculatePrice
+        LocalDate[] firsts = {today, today.minusDays(5), today.plusDays(horizon - 30)};
+        for (Room room : new Room[]{standard, deluxe}) {
+            for (LocalDate first : firsts) {
+                QuoteGrid grid = new QuoteGrid(room, first, 60, 21);
+                for (int a = 0; a < 60; a++) {
+                    LocalDate in = first.plusDays(a);
+                    for (int nights = 1; nights <= 21; nights++) {
+                        Reservation res = new Reservation(customer, room, in, in.plusDays(nights));
+                        assertEquals(res.calculateTotalAmount(), grid.getQuote(in, nights), 0.0);
+                    }
+                }
+            }
+        }
+        // A room outside a hotel has no calendar: the night-by-night loop
+        StandardRoom loose = new StandardRoom("900", 2, 99.99, true, true);
+        QuoteGrid grid = new QuoteGrid(loose, today, 30, 7);
+        assertEquals(loose.calculateStayPrice(today.plusDays(3), today.plusDays(9)), grid.getQuote(today.plusDays(3), 6), 0.0);
+        // Seasons apply to quotes as they do to bookings
+        LocalDate season = today.plusDays(15);
+        assertTrue(new QuoteGrid(standard, today, 30, 7).getQuote(season, 1) > standard.calculatePrice(season) * 1.3);
+        assertEquals(4, hotel.quoteRatePlans(today, 7, 3).size());
+    }
 }
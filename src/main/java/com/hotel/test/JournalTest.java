@@ -0,0 +1,108 @@
+package com.hotel.test;
+
+import com.hotel.model.*;
+import com.hotel.service.BookingJournal;
+import com.hotel.service.DataService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+//Checks that changes written to the journal survive a crash (no saveData before exit).
+public class JournalTest {
+
+    private File dataDir;
+
+    @Before
+    public void setUp() throws Exception {
+        dataDir = Files.createTempDirectory("hotel-journal").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dataDir.listFiles();
+        if (files != null) {
+            for (File f : files) f.delete();
+        }
+        dataDir.delete();
+    }
+
+    @Test
+    public void RecoverBookingsAfterCrash() {
+        Hotel hotel = new Hotel("Test Hotel", "Istanbul");
+        hotel.addRoom(new StandardRoom("101", 2, 100.0, true, true));
+        DataService dataService = new DataService(dataDir.getPath());
+        dataService.loadData(hotel);
+        dataService.startJournal(hotel, 0);
+
+        Customer customer = new Customer("Ali", "Veli", "ali@test.com", "1234567890");
+        hotel.registerCustomer(customer);
+        LocalDate in = LocalDate.of(2026, 1, 6);
+        assertTrue(hotel.bookRoom(customer, hotel.findRoom("101"), in, in.plusDays(1), false, false));
+        String reservationId = customer.getReservationHistory().getFirst().getReservationId();
+        hotel.addRoom(new DeluxeRoom("201", 4, 200.0, true, true, true, 0.20));
+        // "Crash": close the files without saving a snapshot
+        dataService.stopJournal(hotel);
+
+        Hotel recovered = new Hotel("Test Hotel", "Istanbul");
+        DataService restarted = new DataService(dataDir.getPath());
+        restarted.loadData(recovered);
+        restarted.startJournal(recovered, 0);
+
+        Customer c = recovered.findCustomerByEmail("ali@test.com");
+        assertNotNull(c);
+        assertEquals(customer.getCustomerId(), c.getCustomerId());
+        assertEquals(5, c.getLoyaltyPoints());
+        assertEquals(1, c.getReservationHistory().size());
+        assertNotNull(recovered.findReservation(reservationId));
+        assertNotNull(recovered.findRoom("201"));
+        assertFalse(recovered.findRoom("101").isAvailable(in, in.plusDays(1)));
+
+        // Replaying again (e.g. crash during the startup snapshot) must not duplicate anything
+        restarted.stopJournal(recovered);
+        Hotel again = new Hotel("Test Hotel", "Istanbul");
+        DataService third = new DataService(dataDir.getPath());
+        third.loadData(again);
+        third.startJournal(again, 0);
+        assertEquals(1, again.getReservations().size());
+        assertEquals(1, again.getCustomers().size());
+        third.stopJournal(again);
+    }
+
+    @Test
+    public void BookingsTheJournalCannotSaveAreTakenBack() throws Exception {
+        Hotel hotel = new Hotel("Test Hotel", "Istanbul");
+        Room room = new StandardRoom("101", 2, 100.0, true, true);
+        hotel.addRoom(room);
+        Customer customer = hotel.registerCustomer(new Customer("Ali", "Veli", "ali@test.com", "1234567890"));
+        customer.addLoyaltyPoints(300);
+        BookingJournal journal = new BookingJournal(new File(dataDir, "journal.log").getPath());
+        ArrayList<String> errors = new ArrayList<>();
+        journal.setListener(errors::add);
+        hotel.setJournal(journal);
+        journal.close();// Every write fails from now on
+
+        LocalDate in = LocalDate.now().plusDays(3);
+        BookingResult result = hotel.book(customer, room, in, in.plusDays(2), true, false);
+        assertEquals(BookingResult.Status.NOT_SAVED, result.getStatus());
+        assertTrue(journal.isBroken());
+        assertFalse(errors.isEmpty());
+        assertFalse(journal.commit());
+        // Nights, points and occupancy are as before the booking
+        assertTrue(room.isAvailable(in, in.plusDays(2)));
+        assertEquals(300, customer.getLoyaltyPoints());
+        assertEquals(0, hotel.getStatistics().getOccupiedRooms(in));
+        assertTrue(hotel.getReservations().getFirst().isCancelled());
+
+        Customer other = hotel.registerCustomer(new Customer("Ayse", "Kaya", "ayse@test.com", "555"));
+        assertEquals(List.of(), hotel.bookRooms(List.of(new BookingRequest(other, "Standard Room", in, in.plusDays(1)))));
+        assertEquals(0, other.getLoyaltyPoints());
+        assertTrue(room.isAvailable(in, in.plusDays(2)));
+    }
+}
@@ -0,0 +1,65 @@
+package com.hotel.test;
+
+import com.hotel.model.*;
+import com.hotel.util.LatencyHistogram;
+import com.hotel.util.Metrics;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import javax.management.ObjectName;
+
+public class MetricsTest {
+
+    @Test
+    public void PercentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 1..100000 microseconds, once each
+        for (long i = 1; i <= 100_000; i++) histogram.record(i * 1000);
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000L, histogram.getMaxNanos());
+        assertEquals(50_000_000.0, histogram.getPercentile(50), 50_000_000.0 * 0.035);
+        assertEquals(99_000_000.0, histogram.getPercentile(99), 99_000_000.0 * 0.035);
+        assertEquals(99_900_000.0, histogram.getPercentile(99.9), 99_900_000.0 * 0.035);
+        assertEquals(100_000_000L, histogram.getPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void BookingsAreCountedAndPublished() throws Exception {
+        Hotel hotel = new Hotel("Test Hotel", "Istanbul");
+        Room room = new StandardRoom("101", 2, 100.0, true, true);
+        hotel.addRoom(room);
+        Customer first = new Customer("Ali", "Veli", "ali@test.com", "555");
+        Customer second = new Customer("Ayse", "Kaya", "ayse@test.com", "555");
+        hotel.registerCustomer(first);
+        hotel.registerCustomer(second);
+        LocalDate in = LocalDate.now().plusDays(5);
+        assertTrue(hotel.bookRoom(first, room, in, in.plusDays(2), false, false));
+        assertFalse(hotel.bookRoom(second, room, in, in.plusDays(1), false, false));
+        hotel.searchAvailableRooms(in, in.plusDays(1));
+
+        Metrics metrics = hotel.getMetrics();
+        assertEquals(2, metrics.histogram("hotel.book").getCount());
+        assertEquals(1, metrics.counter("hotel.booked").sum());
+        assertEquals(1, metrics.counter("hotel.refused.unavailable").sum());
+        assertEquals(1, metrics.histogram("hotel.search").getCount());
+        assertTrue(metrics.report().contains("hotel.book "));
+
+        String name = "com.hotel:type=Metrics,name=MetricsTest";
+        metrics.registerMBean(name);
+        try {
+            ObjectName objectName = new ObjectName(name);
+            assertEquals(2L, ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "hotel.book.count"));
+            assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "hotel.booked"));
+            ManagementFactory.getPlatformMBeanServer().invoke(objectName, "reset", null, null);
+            assertEquals(0, metrics.histogram("hotel.book").getCount());
+        } finally {
+            metrics.unregisterMBean(name);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.hotel.test;
+
+import com.hotel.util.PageStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+//Checks the on-disk B+tree: ordered scans, reopening, and a bounded page cache.
+public class PageStoreTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("hotel-pages").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) f.delete();
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void ManyKeysSurviveReopen() throws Exception {
+        String file = dir.getPath() + "/test.db";
+        ArrayList<Integer> numbers = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) numbers.add(i);
+        Collections.shuffle(numbers, new Random(7));
+
+        try (PageStore store = new PageStore(file, 16)) {
+            for (int n : numbers) {
+                store.put(String.format("k%06d", n), ("value " + n).getBytes(StandardCharsets.UTF_8));
+            }
+            store.put("k000042", "replaced".getBytes(StandardCharsets.UTF_8));
+            assertEquals(20000, store.size());
+        }
+
+        try (PageStore store = new PageStore(file, 16)) {
+            assertEquals(20000, store.size());
+            assertEquals("replaced", new String(store.get("k000042"), StandardCharsets.UTF_8));
+            assertEquals("value 19999", new String(store.get("k019999"), StandardCharsets.UTF_8));
+            assertNull(store.get("k020000"));
+
+            ArrayList<String> keys = new ArrayList<>();
+            store.scan("k01230", (key, value) -> keys.add(key));
+            assertEquals(10, keys.size());
+            assertEquals("k012300", keys.get(0));
+            assertEquals("k012309", keys.get(9));
+            assertTrue(store.getCachedPages() <= 16);
+        }
+    }
+}
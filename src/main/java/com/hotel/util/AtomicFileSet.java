@@ -0,0 +1,179 @@
+package com.hotel.util;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+//Replaces a group of files in one directory so that, even after a crash,
+//either every new version or every old version is in place, never a mix.
+//New versions are written to ".tmp" files and forced to disk. Then a manifest listing
+//the generation number and the size and CRC32 of every file is written and renamed into place:
+//that rename is the commit point. Only then are the ".tmp" files renamed over the old ones.
+//If we crash during those renames, recover() finishes them from the manifest.
+public class AtomicFileSet {
+    private static final String TMP = ".tmp";
+
+    private final Path manifest;
+    private final ArrayList<Entry> pending = new ArrayList<>();
+    private long generation;
+
+    /**
+     * @param manifestFile The manifest, in the same directory as the files it covers.
+     */
+    public AtomicFileSet(String manifestFile) {
+        this.manifest = Paths.get(manifestFile);
+    }
+
+    //Number of the last committed set (0 if nothing was committed yet).
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Finishes a commit that was interrupted by a crash, or throws away
+     * the ".tmp" files of a set that was never committed. Call before reading the files.
+     */
+    public void recover() throws IOException {
+        Files.deleteIfExists(tmpOf(manifest));
+        if (!Files.exists(manifest)) return;
+        try (CsvReader csv = CsvReader.open(manifest.toString())) {
+            while (csv.next()) {
+                if (csv.fieldEquals(0, "GENERATION")) {
+                    generation = Math.max(generation, Long.parseLong(csv.getString(1)));
+                } else if (csv.fieldEquals(0, "FILE") && csv.getFieldCount() >= 4) {
+                    Path target = manifest.resolveSibling(csv.getString(1));
+                    Path tmp = tmpOf(target);
+                    if (!Files.exists(tmp)) continue;
+                    long size = Long.parseLong(csv.getString(2));
+                    long crc = Long.parseLong(csv.getString(3));
+                    if (Files.size(tmp) == size && checksum(tmp) == crc) {
+                        FileOps.replace(tmp.toString(), target.toString());// Committed but not yet renamed
+                    } else {
+                        Files.delete(tmp);// Left by a save that never committed
+                    }
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Corrupted manifest: " + manifest, e);
+        }
+    }
+
+    /**
+     * Starts writing the new version of a file. The file itself is only replaced by commit().
+     * @param filename A file in the manifest's directory.
+     * @return A buffered UTF-8 writer; close it before commit().
+     */
+    public BufferedWriter openWriter(String filename) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(openStream(filename), StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    //Same as openWriter, for binary files.
+    public OutputStream openStream(String filename) throws IOException {
+        Entry entry = new Entry(Paths.get(filename));
+        pending.add(entry);
+        return entry;
+    }
+
+    /**
+     * Replaces every file opened since the last commit with its new version,
+     * as one step with a new generation number.
+     */
+    public void commit() throws IOException {
+        for (Entry entry : pending) {
+            if (!entry.closed) throw new IOException("Not closed: " + entry.target);
+        }
+        long next = generation + 1;
+        Path manifestTmp = tmpOf(manifest);
+        try (FileOutputStream out = new FileOutputStream(manifestTmp.toFile())) {
+            StringBuilder text = new StringBuilder();
+            CsvWriter csv = new CsvWriter(text);
+            csv.field("GENERATION").field(Long.toString(next)).endRow();
+            for (Entry entry : pending) {
+                csv.field("FILE").field(entry.target.getFileName().toString())
+                   .field(Long.toString(Files.size(entry.tmp))).field(Long.toString(entry.getChecksum().getValue())).endRow();
+            }
+            out.write(text.toString().getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        }
+        FileOps.replace(manifestTmp.toString(), manifest.toString());// Commit point
+        generation = next;
+        for (Entry entry : pending) {
+            FileOps.replace(entry.tmp.toString(), entry.target.toString());
+        }
+        pending.clear();
+    }
+
+    /**
+     * Throws away every file opened since the last commit. The old versions stay in place.
+     * Every file is tried, even after one fails.
+     * @throws IOException The first failure (others are added as suppressed); the old versions are still in place.
+     */
+    public void abort() throws IOException {
+        IOException failure = null;
+        for (Entry entry : pending) {
+            try {
+                entry.close();
+                Files.deleteIfExists(entry.tmp);
+            } catch (IOException e) {
+                if (failure == null) failure = new IOException("Error deleting " + entry.tmp + ": " + e.getMessage(), e);
+                else failure.addSuppressed(e);
+            }
+        }
+        pending.clear();
+        if (failure != null) throw failure;
+    }
+
+    private static Path tmpOf(Path path) {
+        return path.resolveSibling(path.getFileName() + TMP);
+    }
+
+    private static long checksum(Path path) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(path)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, n);
+            }
+        }
+        return crc.getValue();
+    }
+
+    // A ".tmp" file whose CRC32 is computed while it is written, and which is forced to disk when closed
+    private static class Entry extends CheckedOutputStream {
+        final Path target;
+        final Path tmp;
+        final FileOutputStream file;
+        boolean closed;
+
+        Entry(Path target) throws IOException {
+            this(target, tmpOf(target), new FileOutputStream(tmpOf(target).toFile()));
+        }
+
+        private Entry(Path target, Path tmp, FileOutputStream file) {
+            super(file, new CRC32());
+            this.target = target;
+            this.tmp = tmp;
+            this.file = file;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            flush();
+            file.getFD().sync();
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package com.hotel.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+//A CSV parser that reads one record at a time into a reused char buffer.
+//Fields are kept as offsets into that buffer, so numbers, booleans and dates are parsed
+//without creating Strings; a String is only made when getString is called.
+//Follows RFC 4180: fields may be quoted, "" inside quotes is a quote, and quoted fields may contain commas and line breaks.
+//Bad numbers or dates do not throw: they set an error flag that the caller checks with hasError().
+public class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int NONE = -2;
+    private static final long DAYS_0000_TO_1970 = 719528;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int bufferPos;
+    private int bufferLen;
+    private int pushback = NONE; // One char put back by unread()
+    private boolean eof;
+
+    private char[] record = new char[256]; // Unquoted content of the current record
+    private int recordLen;
+    private int[] fieldStart = new int[16];
+    private int[] fieldEnd = new int[16];
+    private int fieldCount;
+    private int lineNumber; // Line where the current record starts (1-based)
+    private int nextLineNumber;
+    private long bytePos; // UTF-8 bytes consumed so far (not counting a pushed-back char)
+    private long recordOffset; // Byte offset where the current record starts
+    private boolean malformed;
+    private boolean error;
+    private int partStart; // Result of findPart
+    private int partEnd;
+
+    public CsvReader(Reader in) {
+        this(in, 1);
+    }
+
+    /**
+     * @param firstLineNumber Line number of the first line read, when the reader starts in the middle of a file.
+     */
+    public CsvReader(Reader in, int firstLineNumber) {
+        this(in, firstLineNumber, 0);
+    }
+
+    /**
+     * @param firstByteOffset Byte offset of the first char read, so getRecordOffset gives positions in the whole file.
+     */
+    public CsvReader(Reader in, int firstLineNumber, long firstByteOffset) {
+        this.in = in;
+        this.nextLineNumber = firstLineNumber;
+        this.bytePos = firstByteOffset;
+    }
+
+    /**
+     * Opens a UTF-8 file for reading.
+     * @return A reader over the file, or over nothing if the file does not exist.
+     */
+    public static CsvReader open(String filename) throws IOException {
+        if (!new File(filename).exists()) {
+            return new CsvReader(new StringReader(""));
+        }
+        return new CsvReader(new InputStreamReader(new FileInputStream(filename), StandardCharsets.UTF_8));
+    }
+
+    //Parses a single line (e.g. a journal entry) without a file.
+    public static CsvReader ofLine(String line) {
+        return new CsvReader(new StringReader(line));
+    }
+
+    /**
+     * Reads the next record.
+     * @return false at the end of the input.
+     */
+    public boolean next() throws IOException {
+        fieldCount = 0;
+        recordLen = 0;
+        malformed = false;
+        error = false;
+        lineNumber = nextLineNumber;
+        recordOffset = bytePos;
+
+        int c = read();
+        if (c < 0) return false;
+
+        int start = 0;
+        boolean quoted = false;
+        boolean afterQuote = false; // Closing quote seen, waiting for a separator
+        boolean fieldBegin = true;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    malformed = true;// Unterminated quote
+                    endField(start);
+                    return true;
+                }
+                if (c == '"') {
+                    int peek = read();
+                    if (peek == '"') {
+                        append('"');
+                    } else {
+                        quoted = false;
+                        afterQuote = true;
+                        c = peek;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') nextLineNumber++;
+                    append((char) c);
+                }
+            } else if (c < 0 || c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    int peek = read();
+                    if (peek != '\n') unread(peek);
+                }
+                if (c >= 0) nextLineNumber++;
+                endField(start);
+                return true;
+            } else if (c == ',') {
+                endField(start);
+                start = recordLen;
+                fieldBegin = true;
+                afterQuote = false;
+                c = read();
+                continue;
+            } else if (c == '"' && fieldBegin) {
+                quoted = true;
+            } else {
+                if (afterQuote) malformed = true;// Text after a closing quote
+                append((char) c);
+            }
+            fieldBegin = false;
+            c = read();
+        }
+    }
+
+    //Line number where the current record starts (for error messages).
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Where the current record starts in the file, in bytes (assumes UTF-8 without a byte order mark).
+     * Together with getRecordLength it lets a caller read the record again later without parsing the file.
+     */
+    public long getRecordOffset() {
+        return recordOffset;
+    }
+
+    //Length of the current record in bytes, including its line break.
+    public int getRecordLength() {
+        return (int) (bytePos - recordOffset);
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    //True if the record had a quoting error (unterminated quote, text after a closing quote).
+    public boolean isMalformed() {
+        return malformed;
+    }
+
+    //True if any getInt/getDouble/getEpochDay call on this record failed.
+    public boolean hasError() {
+        return error || malformed;
+    }
+
+    public String getString(int field) {
+        if (field >= fieldCount) {
+            error = true;
+            return "";
+        }
+        return new String(record, fieldStart[field], fieldEnd[field] - fieldStart[field]);
+    }
+
+    //Compares a field with a text without creating a String.
+    public boolean fieldEquals(int field, String text) {
+        if (field >= fieldCount) return false;
+        int start = fieldStart[field];
+        int length = fieldEnd[field] - start;
+        if (length != text.length()) return false;
+        for (int i = 0; i < length; i++) {
+            if (record[start + i] != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    public int getInt(int field) {
+        if (field >= fieldCount) {
+            error = true;
+            return 0;
+        }
+        return parseInt(fieldStart[field], fieldEnd[field]);
+    }
+
+    public double getDouble(int field) {
+        if (field >= fieldCount) {
+            error = true;
+            return 0;
+        }
+        return parseDouble(fieldStart[field], fieldEnd[field]);
+    }
+
+    //Same as Boolean.parseBoolean: true only for "true" (any case).
+    public boolean getBoolean(int field) {
+        if (field >= fieldCount) {
+            error = true;
+            return false;
+        }
+        return parseBoolean(fieldStart[field], fieldEnd[field]);
+    }
+
+    /**
+     * Parses an ISO date (yyyy-MM-dd) straight to an epoch day, without a formatter.
+     * @return The epoch day, as LocalDate.toEpochDay would return it.
+     */
+    public long getEpochDay(int field) {
+        if (field >= fieldCount) {
+            error = true;
+            return 0;
+        }
+        return parseEpochDay(fieldStart[field], fieldEnd[field]);
+    }
+
+    // Parts of a field split by a second separator, e.g. "true;false;0.2"
+
+    public boolean getBoolean(int field, int part, char separator) {
+        return findPart(field, part, separator) && parseBoolean(partStart, partEnd);
+    }
+
+    public double getDouble(int field, int part, char separator) {
+        return findPart(field, part, separator) ? parseDouble(partStart, partEnd) : 0;
+    }
+
+    private boolean findPart(int field, int part, char separator) {
+        if (field >= fieldCount) {
+            error = true;
+            return false;
+        }
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        for (int i = 0; i < part; i++) {
+            while (start < end && record[start] != separator) start++;
+            if (start == end) {
+                error = true;// Not enough parts
+                return false;
+            }
+            start++;
+        }
+        int stop = start;
+        while (stop < end && record[stop] != separator) stop++;
+        partStart = start;
+        partEnd = stop;
+        return true;
+    }
+
+    private int parseInt(int start, int end) {
+        boolean negative = false;
+        if (start < end && (record[start] == '-' || record[start] == '+')) {
+            negative = record[start] == '-';
+            start++;
+        }
+        if (start == end) {
+            error = true;
+            return 0;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = record[i];
+            if (c < '0' || c > '9' || value > Integer.MAX_VALUE) {
+                error = true;
+                return 0;
+            }
+            value = value * 10 + (c - '0');
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+            error = true;
+            return 0;
+        }
+        return (int) value;
+    }
+
+    // Fast path for plain decimals like "100.0": mantissa and power of ten are both exact doubles,
+    // so one division gives the same correctly rounded result as Double.parseDouble.
+    private double parseDouble(int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (record[i] == '-' || record[i] == '+')) {
+            negative = record[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean dot = false;
+        boolean simple = i < end;
+        for (; i < end && simple; i++) {
+            char c = record[i];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) digits++;
+                if (dot) fractionDigits++;
+                if (digits > 15 || fractionDigits >= POWERS_OF_TEN.length) simple = false;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                simple = false;
+            }
+        }
+        if (simple && end - start > (negative ? 1 : 0) + (dot ? 1 : 0)) {
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+        // Exponents, NaN, long mantissas: let the JDK handle the rare cases
+        try {
+            return Double.parseDouble(new String(record, start, end - start));
+        } catch (NumberFormatException e) {
+            error = true;
+            return 0;
+        }
+    }
+
+    private boolean parseBoolean(int start, int end) {
+        if (end - start != 4) return false;
+        return (record[start] | 0x20) == 't' && (record[start + 1] | 0x20) == 'r'
+                && (record[start + 2] | 0x20) == 'u' && (record[start + 3] | 0x20) == 'e';
+    }
+
+    private long parseEpochDay(int start, int end) {
+        if (end - start != 10 || record[start + 4] != '-' || record[start + 7] != '-') {
+            error = true;
+            return 0;
+        }
+        int year = digits(start, 4);
+        int month = digits(start + 5, 2);
+        int day = digits(start + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            error = true;
+            return 0;
+        }
+        // Same arithmetic as LocalDate.toEpochDay
+        long y = year;
+        long total = 365 * y + (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        total += (367L * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) total--;
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    // Returns -1 if any char is not a digit
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = record[i];
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> isLeapYear(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private void append(char c) {
+        if (recordLen == record.length) {
+            char[] bigger = new char[record.length * 2];
+            System.arraycopy(record, 0, bigger, 0, recordLen);
+            record = bigger;
+        }
+        record[recordLen++] = c;
+    }
+
+    private void endField(int start) {
+        if (fieldCount == fieldStart.length) {
+            int[] biggerStart = new int[fieldCount * 2];
+            int[] biggerEnd = new int[fieldCount * 2];
+            System.arraycopy(fieldStart, 0, biggerStart, 0, fieldCount);
+            System.arraycopy(fieldEnd, 0, biggerEnd, 0, fieldCount);
+            fieldStart = biggerStart;
+            fieldEnd = biggerEnd;
+        }
+        fieldStart[fieldCount] = start;
+        fieldEnd[fieldCount] = recordLen;
+        fieldCount++;
+    }
+
+    private int read() throws IOException {
+        if (pushback != NONE) {
+            int c = pushback;
+            pushback = NONE;
+            if (c >= 0) bytePos += utf8Length((char) c);
+            return c;
+        }
+        if (bufferPos == bufferLen) {
+            if (eof) return -1;
+            bufferLen = in.read(buffer, 0, buffer.length);
+            bufferPos = 0;
+            if (bufferLen <= 0) {
+                bufferLen = 0;
+                eof = true;
+                return -1;
+            }
+        }
+        char c = buffer[bufferPos++];
+        bytePos += utf8Length(c);
+        return c;
+    }
+
+    private void unread(int c) {
+        pushback = c;
+        if (c >= 0) bytePos -= utf8Length((char) c);
+    }
+
+    // Bytes the char takes in UTF-8 (each half of a surrogate pair counts 2, the pair 4)
+    private static int utf8Length(char c) {
+        if (c < 0x80) return 1;
+        if (c < 0x800 || Character.isSurrogate(c)) return 2;
+        return 3;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
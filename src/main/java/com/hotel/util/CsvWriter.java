@@ -0,0 +1,78 @@
+package com.hotel.util;
+
+import java.io.IOException;
+
+//Writes CSV rows field by field to any Appendable (a BufferedWriter, a StringBuilder).
+//Text fields that contain a comma, quote or line break are quoted as in RFC 4180,
+//so names and emails with commas can be read back by CsvReader.
+public class CsvWriter {
+    private final Appendable out;
+    private boolean firstField = true;
+
+    public CsvWriter(Appendable out) {
+        this.out = out;
+    }
+
+    public CsvWriter field(String value) throws IOException {
+        separator();
+        if (value == null) return this;
+        if (needsQuotes(value)) {
+            out.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') out.append('"');
+                out.append(c);
+            }
+            out.append('"');
+        } else {
+            out.append(value);
+        }
+        return this;
+    }
+
+    public CsvWriter field(int value) throws IOException {
+        separator();
+        out.append(Integer.toString(value));
+        return this;
+    }
+
+    public CsvWriter field(double value) throws IOException {
+        separator();
+        out.append(Double.toString(value));
+        return this;
+    }
+
+    public CsvWriter field(boolean value) throws IOException {
+        separator();
+        out.append(value ? "true" : "false");
+        return this;
+    }
+
+    //Writes a field made of several values joined by ';' (e.g. room extras). Values must not need quoting.
+    public CsvWriter parts(Object... values) throws IOException {
+        separator();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) out.append(';');
+            out.append(String.valueOf(values[i]));
+        }
+        return this;
+    }
+
+    public void endRow() throws IOException {
+        out.append('\n');
+        firstField = true;
+    }
+
+    private void separator() throws IOException {
+        if (!firstField) out.append(',');
+        firstField = false;
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,98 @@
+package com.hotel.util;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+//A sorted set of non-overlapping date ranges (check-in inclusive, check-out exclusive).
+//Ranges are stored as epoch days so overlap checks are a single TreeMap lookup.
+public class DateRangeSet {
+    // start epoch day -> end epoch day (exclusive)
+    private final TreeMap<Long, Long> ranges;
+
+    public DateRangeSet() {
+        this.ranges = new TreeMap<>();
+    }
+
+    /**
+     * Adds the nights [from, to) to the set.
+     * Touching or overlapping ranges are merged into one.
+     * @param from First night (inclusive).
+     * @param to Check-out day (exclusive).
+     */
+    public void add(LocalDate from, LocalDate to) {
+        add(from.toEpochDay(), to.toEpochDay());
+    }
+
+    //Same as add(LocalDate, LocalDate), with epoch days.
+    public void add(long start, long end) {
+        if (start >= end) return;
+
+        // Merge with a range that starts before and reaches into this one
+        Map.Entry<Long, Long> lower = ranges.floorEntry(start);
+        if (lower != null && lower.getValue() >= start) {
+            start = lower.getKey();
+            end = Math.max(end, lower.getValue());
+        }
+        // Swallow every range that starts inside the new one
+        Map.Entry<Long, Long> next = ranges.ceilingEntry(start);
+        while (next != null && next.getKey() <= end) {
+            end = Math.max(end, next.getValue());
+            ranges.remove(next.getKey());
+            next = ranges.ceilingEntry(start);
+        }
+        ranges.put(start, end);
+    }
+
+    /**
+     * Checks if any night in [from, to) is already in the set.
+     * Since ranges never overlap, only the last range starting before 'to' can collide.
+     */
+    public boolean overlaps(LocalDate from, LocalDate to) {
+        return overlaps(from.toEpochDay(), to.toEpochDay());
+    }
+
+    //Same as overlaps(LocalDate, LocalDate), with epoch days.
+    public boolean overlaps(long start, long end) {
+        if (start >= end) return false;
+
+        Map.Entry<Long, Long> candidate = ranges.lowerEntry(end);
+        return candidate != null && candidate.getValue() > start;
+    }
+
+    //Checks if a single night is covered by the set.
+    public boolean contains(LocalDate night) {
+        return overlaps(night, night.plusDays(1));
+    }
+
+    /**
+     * The ranges that have nights in [from, to), cut to it.
+     * @return Pairs of epoch days: start0, end0, start1, end1, ...
+     */
+    public long[] rangesBetween(long from, long to) {
+        Map.Entry<Long, Long> first = ranges.lowerEntry(from);
+        Long start = first != null && first.getValue() > from ? first.getKey() : Long.valueOf(from);
+        long[] result = new long[8];
+        int count = 0;
+        for (Map.Entry<Long, Long> range : ranges.subMap(start, true, to, false).entrySet()) {
+            if (count == result.length) result = Arrays.copyOf(result, count * 2);
+            result[count++] = Math.max(range.getKey(), from);
+            result[count++] = Math.min(range.getValue(), to);
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    public void clear() {
+        ranges.clear();
+    }
+
+    public boolean isEmpty() {
+        return ranges.isEmpty();
+    }
+
+    //Number of separate ranges (after merging).
+    public int size() {
+        return ranges.size();
+    }
+}
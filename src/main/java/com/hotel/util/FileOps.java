@@ -1,50 +1,128 @@
 package com.hotel.util;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Scanner;
 
 //A utility class to help with reading and writing files.
 //This class handles the low-level file operations.
 public class FileOps {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    //Receives the lines of a file one by one (see forEachLine).
+    public interface LineHandler {
+        /**
+         * @param lineNumber Line number in the file, starting from 1.
+         * @param line The line without its line break.
+         */
+        void handle(int lineNumber, String line);
+    }
+
     /**
      * Writes a list of strings to a file.
      * Each string in the list becomes a new line in the file.
+     * The lines go to a temporary file first, which then replaces the file in one step,
+     * so a crash never leaves a half-written file behind.
      * * @param filename The name/path of the file.
      * @param lines The data to write.
+     * @throws UncheckedIOException If the file cannot be written; the old file is then left as it was.
      */
     public static void writeFile(String filename, ArrayList<String> lines) {
+        String tmp = filename + ".tmp";
         try {
-            FileWriter writer = new FileWriter(filename);
-            for (String line : lines) {
-                writer.write(line + "\n");
+            try (FileOutputStream out = new FileOutputStream(tmp);
+                 BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+                writer.flush();
+                out.getFD().sync();
             }
-            writer.close();// Always close the file to save changes
-        } catch (Exception e) {
-            System.out.println("Error writing file: " + e.getMessage());
+            replace(tmp, filename);
+        } catch (IOException e) {
+            new File(tmp).delete();
+            throw new UncheckedIOException(e);
         }
     }
 
+    /**
+     * Renames source over target in one step, then forces the directory to disk
+     * so the rename itself survives a crash.
+     * @param source A file that is already on disk (synced).
+     * @param target The file to replace; created if missing.
+     */
+    public static void replace(String source, String target) throws IOException {
+        Path to = Paths.get(target);
+        Files.move(Paths.get(source), to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Path dir = to.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Some systems (e.g. Windows) cannot open a directory; the rename is still atomic there
+        }
+    }
+
+    /**
+     * Opens a buffered UTF-8 writer that replaces the file in place.
+     * Use writeFile or AtomicFileSet when a crash must not leave a half-written file.
+     * Lets callers write rows one at a time instead of building the whole file in memory.
+     * The caller must close it (try-with-resources) to save the changes.
+     * @param filename The name/path of the file.
+     */
+    public static BufferedWriter openWriter(String filename) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filename), StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
     /**
      * Reads a file and returns the content as a list of strings.
+     * Prefer forEachLine for large files.
      * * @param filename The name/path of the file to read.
-     * @return An ArrayList containing lines of the file.
+     * @return An ArrayList containing lines of the file (empty if it does not exist).
+     * @throws UncheckedIOException If the file cannot be read.
      */
     public static ArrayList<String> readFile(String filename) {
         ArrayList<String> lines = new ArrayList<>();
         try {
-            File file = new File(filename);
-            if (file.exists()) {
-                Scanner scanner = new Scanner(file);
-                while (scanner.hasNextLine()) {
-                    lines.add(scanner.nextLine());
-                }
-                scanner.close();
-            }
-        } catch (Exception e) {
-            System.out.println("Error reading file: " + e.getMessage());
+            forEachLine(filename, (lineNumber, line) -> lines.add(line));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
         return lines;
     }
+
+    /**
+     * Streams a file line by line through a buffered reader,
+     * so only the current line is held in memory.
+     * Does nothing if the file does not exist. CSV files are read with CsvReader instead,
+     * which also handles quoted fields that span lines.
+     * @param filename The name/path of the file to read.
+     * @param handler Called once per line, in order.
+     */
+    public static void forEachLine(String filename, LineHandler handler) throws IOException {
+        File file = new File(filename);
+        if (!file.exists()) return;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                handler.handle(++lineNumber, line);
+            }
+        }
+    }
 }
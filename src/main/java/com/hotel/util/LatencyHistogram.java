@@ -0,0 +1,85 @@
+package com.hotel.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+//Counts durations (in nanoseconds) in log-linear buckets, like an HDR histogram:
+//every power of two is split into 32 buckets, so a percentile is off by at most about 3%,
+//whatever the range (from nanoseconds to hours) and however many values are recorded.
+//Recording is one array increment and allocates nothing, so it can be called on hot paths
+//from many threads at once.
+public class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS; // Buckets per power of two
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    //Records one duration; negative values count as 0.
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    //Records the time since a System.nanoTime() reading.
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    // Values below 32 get a bucket each; above, the top 6 bits of the value pick the bucket
+    static int bucketOf(long value) {
+        if (value < SUB_COUNT) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift << SUB_BITS) + (int) (value >>> shift);
+    }
+
+    // The largest value that falls in the bucket
+    static long highestIn(int bucket) {
+        if (bucket < 2 * SUB_COUNT) return bucket;
+        int shift = (bucket >>> SUB_BITS) - 1;
+        long mantissa = bucket - ((long) shift << SUB_BITS);
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    public long getCount() { return count.sum(); }
+    public long getTotalNanos() { return totalNanos.sum(); }
+    public long getMaxNanos() { return maxNanos.get(); }
+
+    /**
+     * The duration that the given share of recorded values did not exceed.
+     * Values recorded while this runs may or may not be included.
+     * @param percentile Between 0 and 100, e.g. 99.9.
+     * @return Nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(highestIn(i), getMaxNanos());
+        }
+        return getMaxNanos();
+    }
+
+    //Forgets everything recorded so far.
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+}
@@ -0,0 +1,191 @@
+package com.hotel.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+//Named counters and latency histograms, for seeing where the time goes.
+//Callers look a metric up once and keep it (e.g. in a final field): recording is then
+//a counter or histogram update, with no map lookup and no allocation.
+//The values can be read as text (report), dumped periodically, or watched over JMX.
+public class Metrics {
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private ScheduledExecutorService dumper;
+
+    //The counter with this name, created on first use.
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    //The histogram with this name, created on first use.
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    //Zeroes every counter and histogram.
+    public void reset() {
+        for (LongAdder c : counters.values()) c.reset();
+        for (LatencyHistogram h : histograms.values()) h.reset();
+    }
+
+    /**
+     * One line per metric, sorted by name. Histograms show the count, the total time,
+     * the p50/p99/p999 and max in milliseconds, and a rows/s rate if there is a matching
+     * "name.rows" counter. Metrics with nothing recorded are left out.
+     */
+    public String report() {
+        StringBuilder out = new StringBuilder();
+        for (String name : sorted(counters)) {
+            long value = counters.get(name).sum();
+            if (value != 0) out.append(String.format("%-28s %d%n", name, value));
+        }
+        for (String name : sorted(histograms)) {
+            LatencyHistogram h = histograms.get(name);
+            if (h.getCount() == 0) continue;
+            out.append(String.format("%-28s n=%d total=%.1f ms p50=%.3f p99=%.3f p999=%.3f max=%.3f ms",
+                    name, h.getCount(), h.getTotalNanos() / 1e6, h.getPercentile(50) / 1e6,
+                    h.getPercentile(99) / 1e6, h.getPercentile(99.9) / 1e6, h.getMaxNanos() / 1e6));
+            // A counter named like the histogram plus ".rows" turns its total time into a rate
+            LongAdder rows = counters.get(name + ".rows");
+            if (rows != null && rows.sum() > 0 && h.getTotalNanos() > 0) {
+                out.append(String.format(" (%.0f rows/s)", rows.sum() * 1e9 / h.getTotalNanos()));
+            }
+            out.append(System.lineSeparator());
+        }
+        return out.toString();
+    }
+
+    private static List<String> sorted(Map<String, ?> map) {
+        ArrayList<String> names = new ArrayList<>(map.keySet());
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Sends report() to the consumer at a fixed rate, on a background daemon thread.
+     * Replaces an earlier dump schedule.
+     */
+    public synchronized void startDump(long periodSeconds, Consumer<String> out) {
+        stopDump();
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> out.accept(report()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopDump() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+
+    /**
+     * Publishes the metrics on the platform MBean server, e.g. for JConsole.
+     * Every counter is an attribute; every histogram gives "name.count", "name.p50Millis",
+     * "name.p99Millis", "name.p999Millis" and "name.maxMillis". A "reset" operation zeroes them all.
+     * @param name The object name, e.g. "com.hotel:type=Metrics".
+     */
+    public void registerMBean(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(name);
+        if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+        server.registerMBean(new MetricsMBean(), objectName);
+    }
+
+    public void unregisterMBean(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(name);
+        if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+    }
+
+    // Attributes are listed anew each time the info is asked for, since metrics are created on first use
+    private class MetricsMBean implements DynamicMBean {
+        private static final String[] PARTS = {"count", "p50Millis", "p99Millis", "p999Millis", "maxMillis"};
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            LongAdder counter = counters.get(attribute);
+            if (counter != null) return counter.sum();
+            int dot = attribute.lastIndexOf('.');
+            LatencyHistogram h = dot < 0 ? null : histograms.get(attribute.substring(0, dot));
+            if (h == null) throw new AttributeNotFoundException(attribute);
+            return switch (attribute.substring(dot + 1)) {
+                case "count" -> (Object) h.getCount();
+                case "p50Millis" -> h.getPercentile(50) / 1e6;
+                case "p99Millis" -> h.getPercentile(99) / 1e6;
+                case "p999Millis" -> h.getPercentile(99.9) / 1e6;
+                case "maxMillis" -> h.getMaxNanos() / 1e6;
+                default -> throw new AttributeNotFoundException(attribute);
+            };
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                try {
+                    list.add(new Attribute(attribute, getAttribute(attribute)));
+                } catch (AttributeNotFoundException e) {
+                    // Left out, as the interface allows
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) {
+            if (!actionName.equals("reset")) throw new UnsupportedOperationException(actionName);
+            reset();
+            return null;
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            ArrayList<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (String name : sorted(counters)) {
+                attributes.add(new MBeanAttributeInfo(name, "long", "Counter", true, false, false));
+            }
+            for (String name : sorted(histograms)) {
+                for (String part : PARTS) {
+                    String type = part.equals("count") ? "long" : "double";
+                    attributes.add(new MBeanAttributeInfo(name + "." + part, type, "Latency histogram", true, false, false));
+                }
+            }
+            MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Zeroes every metric", null, "void", MBeanOperationInfo.ACTION);
+            return new MBeanInfo(Metrics.class.getName(), "Hotel counters and latency histograms",
+                    attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[]{reset}, null);
+        }
+    }
+}
@@ -0,0 +1,473 @@
+package com.hotel.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+//A small embedded key-value store kept in one file: a B+tree of fixed-size pages over a FileChannel.
+//Keys are sorted as unsigned UTF-8 bytes, so keys sharing a prefix can be scanned in order.
+//Pages are read on demand into an LRU cache; only that cache lives on the heap.
+//flush() first writes every changed page to a write-ahead file, so a crash during the
+//in-place writes is repaired on the next open (and a crash before flush() keeps the old tree).
+//Entries are never deleted; put() on an existing key replaces its value.
+public final class PageStore implements AutoCloseable {
+    public static final int PAGE_SIZE = 4096;
+    // Any two entries must fit in half a page, so a split always gives two valid pages
+    public static final int MAX_KEY_BYTES = 255;
+    public static final int MAX_VALUE_BYTES = 700;
+
+    private static final int MAGIC = 0x48505331; // "HPS1"
+    private static final byte LEAF = 0;
+    private static final byte INTERNAL = 1;
+    private static final int NODE_HEADER_BYTES = 1 + 2 + 4;
+    private static final Comparator<byte[]> KEY_ORDER = Arrays::compareUnsigned;
+
+    //Receives entries from scan(), in key order.
+    public interface EntryVisitor {
+        /**
+         * @return false to stop the scan.
+         */
+        boolean visit(String key, byte[] value);
+    }
+
+    private final Path walPath;
+    private final FileChannel channel;
+    private final int cacheCapacity;
+    private final LinkedHashMap<Integer, Node> cache = new LinkedHashMap<>(64, 0.75f, true); // Page id -> page, least recently used first
+    private int rootPage;
+    private int pageCount; // Pages in the file, including the header page 0
+    private long entryCount;
+    private boolean headerDirty;
+    private long cacheHits;
+    private long cacheMisses;
+
+    /**
+     * Opens (or creates) a store, repairing an interrupted flush if needed.
+     * @param filename The data file; the write-ahead file is filename + ".wal".
+     * @param cacheCapacity How many pages to keep in memory (changed pages stay until the next flush).
+     */
+    public PageStore(String filename, int cacheCapacity) throws IOException {
+        this.walPath = Paths.get(filename + ".wal");
+        this.cacheCapacity = Math.max(cacheCapacity, 8);
+        this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        replayWal();
+        if (channel.size() == 0) {
+            // New file: header page and an empty root leaf
+            pageCount = 1;
+            Node root = newNode(true);
+            rootPage = root.id;
+            flush();
+        } else {
+            ByteBuffer header = readPage(0);
+            if (header.getInt() != MAGIC || header.getInt() != PAGE_SIZE) {
+                channel.close();
+                throw new IOException("Not a page store: " + filename);
+            }
+            rootPage = header.getInt();
+            pageCount = header.getInt();
+            entryCount = header.getLong();
+        }
+    }
+
+    public synchronized byte[] get(String key) throws IOException {
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        Node node = load(rootPage);
+        while (!node.leaf) {
+            node = load(node.children.get(childIndex(node, k)));
+        }
+        int i = search(node.keys, k);
+        byte[] value = i >= 0 ? node.values.get(i) : null;
+        trimCache();
+        return value;
+    }
+
+    //Checks if an entry is small enough for put (MAX_KEY_BYTES of UTF-8 key, MAX_VALUE_BYTES of value).
+    public static boolean fits(String key, byte[] value) {
+        return value.length <= MAX_VALUE_BYTES && key.getBytes(StandardCharsets.UTF_8).length <= MAX_KEY_BYTES;
+    }
+
+    /**
+     * Inserts or replaces an entry. Not durable until flush().
+     * @throws IllegalArgumentException If the key or value is too long for a page (see fits).
+     */
+    public synchronized void put(String key, byte[] value) throws IOException {
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        if (k.length > MAX_KEY_BYTES || value.length > MAX_VALUE_BYTES) {
+            throw new IllegalArgumentException("Entry too large for a page: " + key);
+        }
+        Split split = insert(rootPage, k, value);
+        if (split != null) {
+            // The root was split: the tree grows one level
+            Node root = newNode(false);
+            root.keys.add(split.key);
+            root.children.add(rootPage);
+            root.children.add(split.page);
+            rootPage = root.id;
+            headerDirty = true;
+        }
+        trimCache();
+    }
+
+    /**
+     * Visits every entry whose key starts with the prefix, in key order.
+     */
+    public synchronized void scan(String prefix, EntryVisitor visitor) throws IOException {
+        byte[] p = prefix.getBytes(StandardCharsets.UTF_8);
+        Node node = load(rootPage);
+        while (!node.leaf) {
+            node = load(node.children.get(childIndex(node, p)));
+        }
+        int i = search(node.keys, p);
+        if (i < 0) i = -i - 1;
+        try {
+            while (true) {
+                for (; i < node.keys.size(); i++) {
+                    byte[] key = node.keys.get(i);
+                    if (!startsWith(key, p)) return;
+                    if (!visitor.visit(new String(key, StandardCharsets.UTF_8), node.values.get(i))) return;
+                }
+                if (node.next == 0) return;
+                node = load(node.next);
+                i = 0;
+            }
+        } finally {
+            trimCache();
+        }
+    }
+
+    //Number of distinct keys.
+    public synchronized long size() {
+        return entryCount;
+    }
+
+    /**
+     * Makes every change so far durable: changed pages go to the write-ahead file (forced),
+     * then to their place in the data file (forced), then the write-ahead file is removed.
+     */
+    public synchronized void flush() throws IOException {
+        ArrayList<Node> dirty = new ArrayList<>();
+        for (Node node : cache.values()) {
+            if (node.dirty) dirty.add(node);
+        }
+        if (dirty.isEmpty() && !headerDirty) return;
+        dirty.sort(Comparator.comparingInt(node -> node.id));
+
+        ArrayList<ByteBuffer> pages = new ArrayList<>();
+        ArrayList<Integer> ids = new ArrayList<>();
+        ids.add(0);
+        pages.add(encodeHeader());
+        for (Node node : dirty) {
+            ids.add(node.id);
+            pages.add(encode(node));
+        }
+
+        // 1. Write-ahead file: (page id, page)*, then -1 and a CRC32 of everything before it
+        CRC32 crc = new CRC32();
+        try (FileChannel wal = FileChannel.open(walPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer id = ByteBuffer.allocate(4);
+            for (int i = 0; i < pages.size(); i++) {
+                id.clear();
+                id.putInt(ids.get(i)).flip();
+                crc.update(id.duplicate());
+                writeFully(wal, id, -1);
+                crc.update(pages.get(i).duplicate());
+                writeFully(wal, pages.get(i).duplicate(), -1);
+            }
+            ByteBuffer end = ByteBuffer.allocate(12).putInt(-1).putLong(crc.getValue());
+            end.flip();
+            writeFully(wal, end, -1);
+            wal.force(true);
+        }
+
+        // 2. Pages in place
+        for (int i = 0; i < pages.size(); i++) {
+            writeFully(channel, pages.get(i), (long) ids.get(i) * PAGE_SIZE);
+        }
+        channel.force(true);
+        for (Node node : dirty) node.dirty = false;
+        headerDirty = false;
+
+        // 3. Done: the write-ahead file is no longer needed
+        Files.deleteIfExists(walPath);
+        trimCache();
+    }
+
+    public synchronized long getCacheHits() {
+        return cacheHits;
+    }
+
+    public synchronized long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    public synchronized int getCachedPages() {
+        return cache.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // ---- B+tree ----
+
+    // A page in memory. Leaves hold keys and values; internal pages hold keys and keys.size() + 1 children,
+    // where child i has the keys in [keys[i-1], keys[i]).
+    private static final class Node {
+        final int id;
+        final boolean leaf;
+        final ArrayList<byte[]> keys = new ArrayList<>();
+        final ArrayList<byte[]> values;
+        final ArrayList<Integer> children;
+        int next; // Next leaf in key order, 0 = none (page 0 is the header)
+        boolean dirty;
+
+        Node(int id, boolean leaf) {
+            this.id = id;
+            this.leaf = leaf;
+            this.values = leaf ? new ArrayList<>() : null;
+            this.children = leaf ? null : new ArrayList<>();
+        }
+
+        int entryBytes(int i) {
+            return 2 + keys.get(i).length + (leaf ? 2 + values.get(i).length : 4);
+        }
+
+        int encodedSize() {
+            int size = NODE_HEADER_BYTES;
+            for (int i = 0; i < keys.size(); i++) size += entryBytes(i);
+            return size;
+        }
+    }
+
+    // Result of splitting a page: the first key of the new right page, and its id
+    private record Split(byte[] key, int page) {}
+
+    private Split insert(int pageId, byte[] key, byte[] value) throws IOException {
+        Node node = load(pageId);
+        if (node.leaf) {
+            int i = search(node.keys, key);
+            if (i >= 0) {
+                node.values.set(i, value);
+            } else {
+                i = -i - 1;
+                node.keys.add(i, key);
+                node.values.add(i, value);
+                entryCount++;
+                headerDirty = true;
+            }
+            node.dirty = true;
+        } else {
+            int child = childIndex(node, key);
+            Split split = insert(node.children.get(child), key, value);
+            if (split == null) return null;
+            node.keys.add(child, split.key());
+            node.children.add(child + 1, split.page());
+            node.dirty = true;
+        }
+        return node.encodedSize() > PAGE_SIZE ? split(node) : null;
+    }
+
+    // Moves the upper half (by bytes) of an overfull page to a new page
+    private Split split(Node node) throws IOException {
+        int total = node.encodedSize() - NODE_HEADER_BYTES;
+        int mid = 0;
+        int bytes = 0;
+        while (mid < node.keys.size() - 1 && bytes + node.entryBytes(mid) <= total / 2) {
+            bytes += node.entryBytes(mid);
+            mid++;
+        }
+        mid = Math.max(mid, 1);
+
+        Node right = newNode(node.leaf);
+        int count = node.keys.size();
+        byte[] separator;
+        if (node.leaf) {
+            right.keys.addAll(node.keys.subList(mid, count));
+            right.values.addAll(node.values.subList(mid, count));
+            node.keys.subList(mid, count).clear();
+            node.values.subList(mid, count).clear();
+            right.next = node.next;
+            node.next = right.id;
+            separator = right.keys.get(0);
+        } else {
+            // The middle key moves up to the parent
+            separator = node.keys.get(mid);
+            right.keys.addAll(node.keys.subList(mid + 1, count));
+            right.children.addAll(node.children.subList(mid + 1, count + 1));
+            node.keys.subList(mid, count).clear();
+            node.children.subList(mid + 1, count + 1).clear();
+        }
+        node.dirty = true;
+        return new Split(separator, right.id);
+    }
+
+    private Node newNode(boolean leaf) {
+        Node node = new Node(pageCount++, leaf);
+        node.dirty = true;
+        headerDirty = true;
+        cache.put(node.id, node);
+        return node;
+    }
+
+    // Index of the child that holds the key: the number of keys <= key
+    private static int childIndex(Node node, byte[] key) {
+        int i = search(node.keys, key);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    private static int search(ArrayList<byte[]> keys, byte[] key) {
+        return Collections.binarySearch(keys, key, KEY_ORDER);
+    }
+
+    private static boolean startsWith(byte[] key, byte[] prefix) {
+        return key.length >= prefix.length && Arrays.equals(key, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    // ---- Page cache and I/O ----
+
+    private Node load(int pageId) throws IOException {
+        Node node = cache.get(pageId);
+        if (node != null) {
+            cacheHits++;
+            return node;
+        }
+        cacheMisses++;
+        node = decode(pageId, readPage(pageId));
+        cache.put(pageId, node);
+        return node;
+    }
+
+    // Drops least recently used pages. Changed pages are kept until flush() has written them.
+    // Called only between operations, so no page that an operation still holds is dropped.
+    private void trimCache() {
+        Iterator<Map.Entry<Integer, Node>> it = cache.entrySet().iterator();
+        while (cache.size() > cacheCapacity && it.hasNext()) {
+            if (!it.next().getValue().dirty) it.remove();
+        }
+    }
+
+    private ByteBuffer readPage(int pageId) throws IOException {
+        ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+        long position = (long) pageId * PAGE_SIZE;
+        while (page.hasRemaining()) {
+            if (channel.read(page, position + page.position()) < 0) {
+                throw new IOException("Page " + pageId + " is past the end of the file");
+            }
+        }
+        page.flip();
+        return page;
+    }
+
+    private ByteBuffer encodeHeader() {
+        ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+        page.putInt(MAGIC).putInt(PAGE_SIZE).putInt(rootPage).putInt(pageCount).putLong(entryCount);
+        page.clear();
+        return page;
+    }
+
+    private static ByteBuffer encode(Node node) {
+        ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+        page.put(node.leaf ? LEAF : INTERNAL);
+        page.putShort((short) node.keys.size());
+        page.putInt(node.leaf ? node.next : node.children.get(0));
+        for (int i = 0; i < node.keys.size(); i++) {
+            byte[] key = node.keys.get(i);
+            page.putShort((short) key.length).put(key);
+            if (node.leaf) {
+                byte[] value = node.values.get(i);
+                page.putShort((short) value.length).put(value);
+            } else {
+                page.putInt(node.children.get(i + 1));
+            }
+        }
+        page.clear();
+        return page;
+    }
+
+    private static Node decode(int pageId, ByteBuffer page) throws IOException {
+        byte type = page.get();
+        if (type != LEAF && type != INTERNAL) throw new IOException("Corrupted page " + pageId);
+        Node node = new Node(pageId, type == LEAF);
+        int count = page.getShort() & 0xFFFF;
+        if (node.leaf) {
+            node.next = page.getInt();
+        } else {
+            node.children.add(page.getInt());
+        }
+        for (int i = 0; i < count; i++) {
+            byte[] key = new byte[page.getShort() & 0xFFFF];
+            page.get(key);
+            node.keys.add(key);
+            if (node.leaf) {
+                byte[] value = new byte[page.getShort() & 0xFFFF];
+                page.get(value);
+                node.values.add(value);
+            } else {
+                node.children.add(page.getInt());
+            }
+        }
+        return node;
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (position < 0) {
+                target.write(buffer);
+            } else {
+                position += target.write(buffer, position);
+            }
+        }
+    }
+
+    // Re-applies a complete write-ahead file left by a crash; an incomplete one is ignored,
+    // since nothing was written in place before it was complete.
+    private void replayWal() throws IOException {
+        if (!Files.exists(walPath)) return;
+        ByteBuffer wal = ByteBuffer.wrap(Files.readAllBytes(walPath));
+        CRC32 crc = new CRC32();
+        ArrayList<Integer> ids = new ArrayList<>();
+        ArrayList<ByteBuffer> pages = new ArrayList<>();
+        boolean complete = false;
+        while (wal.remaining() >= 4) {
+            int start = wal.position();
+            int id = wal.getInt();
+            if (id == -1) {
+                complete = wal.remaining() >= 8 && wal.getLong() == crc.getValue();
+                break;
+            }
+            if (wal.remaining() < PAGE_SIZE) break;
+            ByteBuffer page = wal.slice(wal.position(), PAGE_SIZE);
+            wal.position(wal.position() + PAGE_SIZE);
+            crc.update(wal.duplicate().position(start).limit(wal.position()));
+            ids.add(id);
+            pages.add(page);
+        }
+        if (complete) {
+            for (int i = 0; i < pages.size(); i++) {
+                writeFully(channel, pages.get(i), (long) ids.get(i) * PAGE_SIZE);
+            }
+            channel.force(true);
+        }
+        Files.delete(walPath);
+    }
+}